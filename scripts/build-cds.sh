@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Builds an AppCDS archive from a training run of the application so later launches map
+# pre-parsed classes instead of loading and verifying them again.
+#
+# Usage: scripts/build-cds.sh [archive-path]
+# Environment: CP (classpath, default "target/classes:lib/*")
+set -euo pipefail
+
+CP="${CP:-target/classes:lib/*}"
+ARCHIVE="${1:-target/sms.jsa}"
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+
+if [ "${JAVA_MAJOR%%.*}" -ge 13 ]; then
+    # Dynamic archive: records every class loaded during the training run.
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$CP" com.sms.Main --warmup-exit
+else
+    # JDK 11: dump the loaded class list first, then build a static archive from it.
+    CLASS_LIST="${ARCHIVE%.jsa}.classlist"
+    java -XX:DumpLoadedClassList="$CLASS_LIST" -cp "$CP" com.sms.Main --warmup-exit
+    java -Xshare:dump -XX:SharedClassListFile="$CLASS_LIST" -XX:SharedArchiveFile="$ARCHIVE" -cp "$CP"
+fi
+
+echo "CDS archive written to $ARCHIVE"
+echo "Run with: java -XX:SharedArchiveFile=$ARCHIVE -cp \"$CP\" com.sms.Main"
@@ -1,17 +1,111 @@
 package com.sms;
 
 import com.sms.controllers.ConsoleController;
+import com.sms.controllers.ScriptController;
+import com.sms.models.BulkTransitionResult;
+import com.sms.models.Course;
+import com.sms.models.DeltaPage;
+import com.sms.models.Enrollment;
+import com.sms.models.OperationResult;
+import com.sms.models.StatusFilter;
+import com.sms.models.Student;
+import com.sms.models.SyncToken;
+import com.sms.services.AtRiskDetector;
+import com.sms.services.AttendanceArchiveService;
+import com.sms.services.ChangeSink;
+import com.sms.services.CourseService;
+import com.sms.services.EnrollmentService;
+import com.sms.services.GradeImportService;
+import com.sms.services.OutboxRelay;
+import com.sms.services.SoftDeletePurger;
+import com.sms.services.StudentService;
+import com.sms.services.SyncService;
+import com.sms.services.TranscriptService;
+import com.sms.utils.DatabaseConnection;
+import com.sms.utils.StartupPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && args[0].equals("--archive-attendance")) {
+                archiveAttendance(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--import-grades")) {
+                importGrades(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--export-transcripts")) {
+                exportTranscripts(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--outbox-relay")) {
+                runOutboxRelay(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--sync")) {
+                sync(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--transition")) {
+                transition(args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--purge-deleted")) {
+                purgeDeleted();
+                return;
+            }
+            if (args.length > 0 && args[0].equals("--script")) {
+                if (args.length < 2) {
+                    System.err.println("Usage: --script <command-file>");
+                    System.exit(2);
+                }
+                int exitCode = new ScriptController(System.out).run(Paths.get(args[1]));
+                System.exit(exitCode);
+            }
+
             logger.info("Starting Student Management System");
+            StartupPipeline startup = startBackgroundInitialization();
+            List<String> options = Arrays.asList(args);
+
+            // Training run for the CDS archive (see BUILD_INSTRUCTIONS.md): initialise everything,
+            // report the phase timings and exit without entering the menu loop.
+            if (options.contains("--warmup-exit")) {
+                boolean ready = startup.awaitReady(60, TimeUnit.SECONDS);
+                startup.printReport(System.out);
+                DatabaseConnection.getInstance().closeConnection();
+                System.exit(ready ? 0 : 1);
+            }
+            if (options.contains("--startup-report")) {
+                startup.start().thenRun(() -> startup.printReport(System.out));
+            }
+
+            // Soft-deleted rows are removed in small batches during the quiet window.
+            SoftDeletePurger purger = SoftDeletePurger.fromEnvironment();
+            purger.start();
+
             ConsoleController controller = new ConsoleController();
             controller.start();
+            purger.close();
+            DatabaseConnection.getInstance().closeConnection();
             logger.info("Student Management System terminated successfully");
         } catch (Exception e) {
             logger.error("Fatal error in Student Management System", e);
@@ -19,4 +113,221 @@ public class Main {
             System.exit(1);
         }
     }
+
+    private static StartupPipeline startBackgroundInitialization() {
+        StartupPipeline startup = StartupPipeline.getInstance();
+        startup.registerWarmup("classes", () -> {
+            for (String name : new String[]{"com.sms.services.StudentService", "com.sms.services.EnrollmentService",
+                    "com.sms.services.AttendanceService", "com.sms.dao.StudentDAO", "com.sms.dao.EnrollmentDAO",
+                    "com.sms.dao.AttendanceDAO", "com.sms.models.Enrollment", "com.sms.models.Attendance"}) {
+                try {
+                    Class.forName(name);
+                } catch (ClassNotFoundException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+        startup.registerWarmup("change-feed", () -> {
+            try {
+                DatabaseConnection.getInstance().startChangeFeed();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        startup.registerWarmup("at-risk", () -> {
+            try {
+                AtRiskDetector.getInstance().load();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        startup.start();
+        return startup;
+    }
+
+    // Usage: --import-grades <grades.csv> (columns student_id,course_code,grade[,complete])
+    private static void importGrades(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: --import-grades <grades.csv>");
+            System.exit(2);
+        }
+
+        List<OperationResult> results = new GradeImportService().importCsv(Paths.get(args[1]));
+        int applied = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isSuccess()) {
+                applied++;
+            } else {
+                System.out.println("Row " + (i + 1) + ": " + results.get(i));
+            }
+        }
+        System.out.println("Applied " + applied + " grade(s), " + (results.size() - applied) + " rejected");
+        DatabaseConnection.getInstance().closeConnection();
+        System.exit(applied == results.size() ? 0 : 1);
+    }
+
+    // Usage: --export-transcripts <output-file> [student status, e.g. Active]
+    private static void exportTranscripts(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: --export-transcripts <output-file> [student-status]");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        int count;
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[1]))) {
+            count = new TranscriptService().writeTranscripts(args.length > 2 ? args[2] : null, out);
+        }
+        System.out.printf("Wrote %d transcript(s) to %s in %.1fs%n", count, args[1], (System.nanoTime() - start) / 1e9);
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    // Usage: --outbox-relay <sink-name> file:<path> | socket:<host>:<port>
+    // Runs until the process is stopped; the sink name keys the delivery offset.
+    private static void runOutboxRelay(String[] args) throws Exception {
+        if (args.length < 3 || !(args[2].startsWith("file:") || args[2].startsWith("socket:"))) {
+            System.err.println("Usage: --outbox-relay <sink-name> file:<path> | socket:<host>:<port>");
+            System.exit(2);
+        }
+
+        ChangeSink sink;
+        if (args[2].startsWith("file:")) {
+            sink = ChangeSink.toFile(Paths.get(args[2].substring("file:".length())));
+        } else {
+            String address = args[2].substring("socket:".length());
+            int colon = address.lastIndexOf(':');
+            sink = ChangeSink.toSocket(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        }
+
+        OutboxRelay relay = new OutboxRelay(args[1], sink);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                relay.close();
+            } catch (Exception e) {
+                logger.warn("Error closing outbox relay: " + e.getMessage());
+            }
+            logger.info("Outbox relay '" + relay.getName() + "' stopped after " + relay.getDeliveredCount() + " events");
+            DatabaseConnection.getInstance().closeConnection();
+            stopped.countDown();
+        }));
+
+        // Other instances' commits arrive through the change feed and wake the relay early.
+        DatabaseConnection.getInstance().startChangeFeed();
+        relay.start();
+        logger.info("Outbox relay '" + relay.getName() + "' started at sequence " + relay.getSequence());
+        stopped.await();
+    }
+
+    // Usage: --purge-deleted
+    // Runs one throttled purge pass now, outside the quiet window, e.g. after a bulk delete.
+    private static void purgeDeleted() throws Exception {
+        SoftDeletePurger purger = SoftDeletePurger.fromEnvironment();
+        System.out.println("Waiting to be purged: " + purger.describeBacklog());
+        long purged = purger.purgeNow();
+        System.out.println("Purged " + purged + " row(s) in " + purger.getBatchCount() + " batch(es); "
+                + "waiting: " + purger.describeBacklog());
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    // Usage: --transition <students|enrollments> <new-status> <criterion>...
+    // Criteria: year=<enrollment year>, status=<current status>, course=<course code>,
+    // semester=<semester>, student-status=<student status> (enrollments only).
+    private static void transition(String[] args) throws Exception {
+        if (args.length < 4 || !Arrays.asList("students", "enrollments").contains(args[1])) {
+            System.err.println("Usage: --transition <students|enrollments> <new-status> <criterion>... " +
+                    "(year=, status=, course=, semester=, student-status=)");
+            System.exit(2);
+        }
+        StatusFilter filter = new StatusFilter();
+        for (int i = 3; i < args.length; i++) {
+            String[] criterion = args[i].split("=", 2);
+            if (criterion.length != 2) {
+                System.err.println("Expected name=value, got: " + args[i]);
+                System.exit(2);
+            }
+            switch (criterion[0]) {
+                case "year":
+                    filter.setEnrollmentYear(Integer.parseInt(criterion[1]));
+                    break;
+                case "status":
+                    filter.setStatus(criterion[1]);
+                    break;
+                case "course":
+                    filter.setCourseId(new CourseService().getCourseByCourseCode(criterion[1]).getId());
+                    break;
+                case "semester":
+                    filter.setSemester(criterion[1]);
+                    break;
+                case "student-status":
+                    filter.setStudentStatus(criterion[1]);
+                    break;
+                default:
+                    System.err.println("Unknown criterion: " + criterion[0]);
+                    System.exit(2);
+            }
+        }
+
+        BulkTransitionResult result = args[1].equals("students")
+                ? new StudentService().transitionStudents(filter, args[2])
+                : new EnrollmentService().transitionEnrollments(filter, args[2]);
+        System.out.println("Moved " + result.getRowsAffected() + " " + args[1] + " to " + args[2]
+                + " (audit batch " + result.getBatchId() + ")");
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    // Usage: --archive-attendance <archive-dir> [cutoff yyyy-MM-dd, defaults to 6 months ago]
+    private static void archiveAttendance(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: --archive-attendance <archive-dir> [cutoff yyyy-MM-dd]");
+            System.exit(2);
+        }
+        LocalDate cutoff = args.length > 2 ? LocalDate.parse(args[2]) : LocalDate.now().minusMonths(6);
+
+        AttendanceArchiveService archiveService = new AttendanceArchiveService();
+        archiveService.ensureUpcomingPartitions(3);
+        List<Path> archived = archiveService.archiveClosedTerms(cutoff, Paths.get(args[1]));
+        System.out.println("Archived " + archived.size() + " attendance partition(s) ending on or before " + cutoff);
+    }
+
+    // Usage: --sync <students|courses|enrollments> [token] [limit]
+    // Prints one page of changes as "changed <id> <updated-at> <row>" and "deleted <id>" lines,
+    // then "next <token>"; "more" follows when the next page is already waiting.
+    private static void sync(String[] args) throws Exception {
+        if (args.length < 2 || !Arrays.asList("students", "courses", "enrollments").contains(args[1])) {
+            System.err.println("Usage: --sync <students|courses|enrollments> [token] [limit]");
+            System.exit(2);
+        }
+        SyncToken token = SyncToken.parse(args.length > 2 ? args[2] : null);
+        int limit = args.length > 3 ? Integer.parseInt(args[3]) : SyncService.DEFAULT_PAGE_SIZE;
+
+        SyncService syncService = new SyncService();
+        switch (args[1]) {
+            case "students":
+                printPage(syncService.syncStudents(token, limit), Student::getId, Student::getUpdatedAt);
+                break;
+            case "courses":
+                printPage(syncService.syncCourses(token, limit), Course::getId, Course::getUpdatedAt);
+                break;
+            default:
+                printPage(syncService.syncEnrollments(token, limit), Enrollment::getId, Enrollment::getUpdatedAt);
+        }
+    }
+
+    private static <T> void printPage(DeltaPage<T> page, Function<T, UUID> idOf, Function<T, Instant> timeOf) {
+        if (page.isResyncRequired()) {
+            System.out.println("resync");
+            return;
+        }
+        for (T row : page.getChanged()) {
+            System.out.println("changed " + idOf.apply(row) + " " + timeOf.apply(row) + " " + row);
+        }
+        for (UUID id : page.getDeleted()) {
+            System.out.println("deleted " + id);
+        }
+        System.out.println("next " + page.getNext().encode());
+        if (page.hasMore()) {
+            System.out.println("more");
+        }
+    }
 }
@@ -5,11 +5,15 @@ import com.sms.exceptions.RecordNotFoundException;
 import com.sms.exceptions.ValidationException;
 import com.sms.models.*;
 import com.sms.services.*;
+import com.sms.utils.StatementTracer;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.UUID;
 
@@ -18,6 +22,7 @@ public class ConsoleController {
     private final CourseService courseService;
     private final EnrollmentService enrollmentService;
     private final AttendanceService attendanceService;
+    private final ReportService reportService;
     private final Scanner scanner;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
@@ -26,6 +31,7 @@ public class ConsoleController {
         this.courseService = new CourseService();
         this.enrollmentService = new EnrollmentService();
         this.attendanceService = new AttendanceService();
+        this.reportService = new ReportService();
         this.scanner = new Scanner(System.in);
     }
 
@@ -943,6 +949,8 @@ public class ConsoleController {
             System.out.println("2. Course Enrollment Statistics");
             System.out.println("3. Attendance Summary Report");
             System.out.println("4. Active Students List");
+            System.out.println("5. At-Risk Students");
+            System.out.println("6. Slow Queries");
             System.out.println("0. Back to Main Menu");
             System.out.print("Enter your choice: ");
 
@@ -962,6 +970,12 @@ public class ConsoleController {
                     case "4":
                         activeStudentsList();
                         break;
+                    case "5":
+                        atRiskStudentsList();
+                        break;
+                    case "6":
+                        slowQueryList();
+                        break;
                     case "0":
                         return;
                     default:
@@ -978,105 +992,75 @@ public class ConsoleController {
         System.out.print("Enter Student ID: ");
         String studentId = scanner.nextLine().trim();
 
-        Student student = studentService.getStudentByStudentId(studentId);
-        List<Enrollment> enrollments = enrollmentService.getStudentEnrollments(student.getId());
-
-        System.out.println("\n===== PERFORMANCE REPORT =====");
-        System.out.println("Student: " + student.getFirstName() + " " + student.getLastName());
-        System.out.println("Student ID: " + student.getStudentId());
-        System.out.println("Email: " + student.getEmail());
-        System.out.println("Status: " + student.getStatus());
-        System.out.println("\nCourse Performance:");
-        System.out.printf("%-10s %-30s %-10s %-15s %-15s%n",
-                "Code", "Course Name", "Grade", "Status", "Attendance %");
-        System.out.println("---------------------------------------------------------------------------------");
-
-        for (Enrollment enrollment : enrollments) {
-            double attendance = attendanceService.getAttendancePercentage(enrollment.getId());
-            System.out.printf("%-10s %-30s %-10s %-15s %-15.2f%%%n",
-                    enrollment.getCourse().getCourseCode(),
-                    enrollment.getCourse().getCourseName(),
-                    enrollment.getGrade() != null ? enrollment.getGrade() : "N/A",
-                    enrollment.getStatus(),
-                    attendance);
-        }
+        System.out.print(reportService.studentPerformanceReport(studentId));
     }
 
-    private void courseEnrollmentStatistics() throws DatabaseException {
+    private void courseEnrollmentStatistics() throws DatabaseException, RecordNotFoundException {
         System.out.println("\n----- Course Enrollment Statistics -----");
-        List<Course> courses = courseService.getAllCourses();
-
-        System.out.printf("%-10s %-30s %-12s %-12s %-15s%n",
-                "Code", "Name", "Enrolled", "Capacity", "Availability");
-        System.out.println("---------------------------------------------------------------------------------");
-
-        for (Course course : courses) {
-            int enrolled = enrollmentService.getCourseEnrollmentCount(course.getId());
-            int available = course.getMaxCapacity() - enrolled;
-            String availability = available > 0 ? "Available" : "Full";
-
-            System.out.printf("%-10s %-30s %-12d %-12d %-15s%n",
-                    course.getCourseCode(),
-                    course.getCourseName(),
-                    enrolled,
-                    course.getMaxCapacity(),
-                    availability);
-        }
+        System.out.print(reportService.courseEnrollmentStatistics());
     }
 
-    private void attendanceSummaryReport() throws DatabaseException {
+    private void attendanceSummaryReport() throws DatabaseException, RecordNotFoundException {
         System.out.println("\n----- Attendance Summary Report -----");
-        List<Student> students = studentService.getActiveStudents();
+        System.out.print(reportService.attendanceSummaryReport());
+    }
 
-        System.out.printf("%-12s %-25s %-20s%n",
-                "Student ID", "Name", "Avg Attendance %");
-        System.out.println("--------------------------------------------------------");
+    private void atRiskStudentsList() throws DatabaseException {
+        System.out.println("\n----- At-Risk Students -----");
+        List<AttendanceStats> atRisk = attendanceService.getAtRiskEnrollments();
 
-        for (Student student : students) {
-            List<Enrollment> enrollments = enrollmentService.getStudentEnrollments(student.getId());
-            if (enrollments.isEmpty()) continue;
+        if (atRisk.isEmpty()) {
+            System.out.println("No students are below the attendance threshold.");
+            return;
+        }
 
-            double totalAttendance = 0;
-            int courseCount = 0;
+        List<UUID> enrollmentIds = new ArrayList<>();
+        for (AttendanceStats stats : atRisk) {
+            enrollmentIds.add(stats.getEnrollmentId());
+        }
+        Map<UUID, Enrollment> enrollments = new HashMap<>();
+        for (Enrollment enrollment : enrollmentService.getEnrollments(enrollmentIds)) {
+            enrollments.put(enrollment.getId(), enrollment);
+        }
 
-            for (Enrollment enrollment : enrollments) {
-                if (enrollment.getStatus().equals("Enrolled") || enrollment.getStatus().equals("Completed")) {
-                    totalAttendance += attendanceService.getAttendancePercentage(enrollment.getId());
-                    courseCount++;
-                }
-            }
+        System.out.printf("%-12s %-25s %-10s %-10s %-15s%n",
+                "Student ID", "Name", "Course", "Sessions", "Attendance %");
+        System.out.println("------------------------------------------------------------------------");
 
-            double avgAttendance = courseCount > 0 ? totalAttendance / courseCount : 0;
+        for (AttendanceStats stats : atRisk) {
+            Enrollment enrollment = enrollments.get(stats.getEnrollmentId());
+            if (enrollment == null || enrollment.getStudent() == null || enrollment.getCourse() == null) continue;
 
-            System.out.printf("%-12s %-25s %-20.2f%%%n",
-                    student.getStudentId(),
-                    student.getFirstName() + " " + student.getLastName(),
-                    avgAttendance);
+            System.out.printf("%-12s %-25s %-10s %-10d %-15.2f%n",
+                    enrollment.getStudent().getStudentId(),
+                    enrollment.getStudent().getFirstName() + " " + enrollment.getStudent().getLastName(),
+                    enrollment.getCourse().getCourseCode(),
+                    stats.getTotal(),
+                    stats.getPercentage());
         }
+
+        System.out.printf("%nTotal at risk: %d (attendance below %.0f%%)%n", atRisk.size(), AttendanceStats.AT_RISK_THRESHOLD);
     }
 
-    private void activeStudentsList() throws DatabaseException {
-        System.out.println("\n----- Active Students List -----");
-        List<Student> students = studentService.getActiveStudents();
+    private void slowQueryList() {
+        System.out.println("\n----- Slow Queries -----");
+        List<StatementTracer.SlowQuery> queries = StatementTracer.getInstance().getSlowQueries();
 
-        if (students.isEmpty()) {
-            System.out.println("No active students found.");
+        if (queries.isEmpty()) {
+            System.out.println("No statements over " + StatementTracer.getInstance().getSlowQueryMillis() + " ms recorded.");
             return;
         }
 
-        System.out.printf("%-12s %-25s %-30s %-15s %-15s%n",
-                "Student ID", "Name", "Email", "Phone", "Enrollment Date");
-        System.out.println("------------------------------------------------------------------------------------------------");
-
-        for (Student student : students) {
-            System.out.printf("%-12s %-25s %-30s %-15s %-15s%n",
-                    student.getStudentId(),
-                    student.getFirstName() + " " + student.getLastName(),
-                    student.getEmail(),
-                    student.getPhone(),
-                    student.getEnrollmentDate());
+        for (StatementTracer.SlowQuery query : queries) {
+            System.out.printf("%6d ms %8d rows  %s  %s%n", query.getElapsedMillis(), query.getRows(),
+                    query.getFinishedAt(), query.getThread());
+            System.out.println("    " + query.getSql());
+            System.out.println("    params " + query.getParameters());
         }
+    }
 
-        System.out.println("\nTotal Active Students: " + students.size());
+    private void activeStudentsList() throws DatabaseException, RecordNotFoundException {
+        System.out.println("\n----- Active Students List -----");
+        System.out.print(reportService.activeStudentsList());
     }
 }
@@ -0,0 +1,432 @@
+package com.sms.controllers;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.*;
+import com.sms.services.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Runs a command file non-interactively. One command per line; blank lines and lines starting
+ * with '#' are ignored:
+ *
+ *   set-status STU001 Graduated
+ *   enroll STU001 CS101
+ *   mark-attendance CS101 2026-10-17 STU001:Present STU002:Absent
+ *   grade STU001 CS101 A-
+ *   complete STU001 CS101 B+
+ *   drop STU001 CS101
+ *
+ * Commands are grouped by type and each group runs as one batched service call in its own
+ * transaction, in the order listed above regardless of their order in the file. Lines of one
+ * group that touch the same record run in successive batches, in file order, so each one
+ * updates the version the previous one left. Results are printed per line, followed by a
+ * summary.
+ */
+public class ScriptController {
+    private static final List<String> EXECUTION_ORDER =
+            Arrays.asList("set-status", "enroll", "mark-attendance", "grade", "complete", "drop");
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final AttendanceService attendanceService;
+    private final PrintStream out;
+
+    private final Map<String, Student> students = new HashMap<>();
+    private final Map<String, Course> courses = new HashMap<>();
+    private Map<String, Enrollment> enrollments;
+
+    private static class Command {
+        final int line;
+        final String text;
+        final String type;
+        final String[] args;
+        OperationResult result;
+
+        Command(int line, String text, String[] tokens) {
+            this.line = line;
+            this.text = text;
+            this.type = tokens[0].toLowerCase();
+            this.args = Arrays.copyOfRange(tokens, 1, tokens.length);
+        }
+    }
+
+    public ScriptController(PrintStream out) {
+        this.studentService = new StudentService();
+        this.courseService = new CourseService();
+        this.enrollmentService = new EnrollmentService();
+        this.attendanceService = new AttendanceService();
+        this.out = out;
+    }
+
+    public int run(Path script) throws IOException {
+        long start = System.nanoTime();
+        List<Command> commands = parse(Files.readAllLines(script));
+
+        Map<String, List<Command>> groups = new LinkedHashMap<>();
+        for (String type : EXECUTION_ORDER) {
+            groups.put(type, new ArrayList<>());
+        }
+        for (Command command : commands) {
+            if (command.result == null) {
+                groups.get(command.type).add(command);
+            }
+        }
+
+        try {
+            resolveReferences(commands);
+        } catch (DatabaseException e) {
+            failPending(commands, "Lookup failed: " + e.getMessage());
+        }
+
+        for (Map.Entry<String, List<Command>> group : groups.entrySet()) {
+            List<Command> pending = new ArrayList<>();
+            for (Command command : group.getValue()) {
+                if (command.result == null) pending.add(command);
+            }
+            if (pending.isEmpty()) continue;
+
+            for (List<Command> round : rounds(group.getKey(), pending)) {
+                try {
+                    execute(group.getKey(), round);
+                } catch (DatabaseException e) {
+                    failPending(round, "Batch rolled back: " + e.getMessage());
+                }
+            }
+        }
+
+        return report(commands, System.nanoTime() - start);
+    }
+
+    private List<Command> parse(List<String> lines) {
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String text = lines.get(i).trim();
+            if (text.isEmpty() || text.startsWith("#")) continue;
+
+            Command command = new Command(i + 1, text, text.split("\\s+"));
+            if (!EXECUTION_ORDER.contains(command.type)) {
+                command.result = OperationResult.failure("Unknown command: " + command.type);
+            } else if (command.args.length < minimumArgs(command.type)) {
+                command.result = OperationResult.failure("Too few arguments for " + command.type);
+            }
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    private int minimumArgs(String type) {
+        switch (type) {
+            case "mark-attendance":
+            case "grade":
+            case "complete":
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    private void resolveReferences(List<Command> commands) throws DatabaseException {
+        Set<String> studentCodes = new HashSet<>();
+        Set<String> courseCodes = new HashSet<>();
+
+        for (Command command : commands) {
+            if (command.result != null) continue;
+            if (command.type.equals("mark-attendance")) {
+                courseCodes.add(command.args[0]);
+                for (int i = 2; i < command.args.length; i++) {
+                    studentCodes.add(command.args[i].split(":")[0]);
+                }
+            } else {
+                studentCodes.add(command.args[0]);
+                if (!command.type.equals("set-status")) {
+                    courseCodes.add(command.args[1]);
+                }
+            }
+        }
+
+        if (!studentCodes.isEmpty()) {
+            for (Student student : studentService.getStudentsByStudentIds(studentCodes)) {
+                students.put(student.getStudentId(), student);
+            }
+        }
+        if (!courseCodes.isEmpty()) {
+            for (Course course : courseService.getCoursesByCourseCodes(courseCodes)) {
+                courses.put(course.getCourseCode(), course);
+            }
+        }
+    }
+
+    // Splits a group so that no batch holds two lines for the same record: the n-th line for a
+    // record goes into the n-th round.
+    private List<List<Command>> rounds(String type, List<Command> pending) {
+        List<List<Command>> rounds = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (Command command : pending) {
+            String key = recordKey(type, command);
+            int round = key == null ? 0 : seen.merge(key, 1, Integer::sum) - 1;
+            while (rounds.size() <= round) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(command);
+        }
+        return rounds;
+    }
+
+    // Attendance marks are upserts without a version, so they never need a later round.
+    private String recordKey(String type, Command command) {
+        switch (type) {
+            case "mark-attendance":
+                return null;
+            case "set-status":
+                return command.args[0];
+            default:
+                return command.args[0] + " " + command.args[1];
+        }
+    }
+
+    private void execute(String type, List<Command> pending) throws DatabaseException {
+        switch (type) {
+            case "set-status":
+                executeStatusChanges(pending);
+                break;
+            case "enroll":
+                executeEnrollments(pending);
+                break;
+            case "mark-attendance":
+                executeAttendance(pending);
+                break;
+            default:
+                executeEnrollmentUpdates(type, pending);
+        }
+    }
+
+    private void executeStatusChanges(List<Command> pending) throws DatabaseException {
+        List<Command> batch = new ArrayList<>();
+        List<Student> updates = new ArrayList<>();
+        Map<Student, String> previous = new HashMap<>();
+
+        for (Command command : pending) {
+            Student student = student(command, command.args[0]);
+            if (student == null) continue;
+            previous.put(student, student.getStatus());
+            student.setStatus(command.args[1]);
+            batch.add(command);
+            updates.add(student);
+        }
+        if (batch.isEmpty()) return;
+
+        List<OperationResult> results;
+        try {
+            results = studentService.changeStudentStatuses(updates);
+        } catch (DatabaseException e) {
+            previous.forEach(Student::setStatus);
+            throw e;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result = results.get(i);
+            if (!results.get(i).isSuccess()) {
+                updates.get(i).setStatus(previous.get(updates.get(i)));
+            }
+        }
+    }
+
+    private void executeEnrollments(List<Command> pending) throws DatabaseException {
+        List<Command> batch = new ArrayList<>();
+        List<Enrollment> requests = new ArrayList<>();
+
+        for (Command command : pending) {
+            Student student = student(command, command.args[0]);
+            Course course = student == null ? null : course(command, command.args[1]);
+            if (course == null) continue;
+
+            Enrollment request = new Enrollment(student.getId(), course.getId());
+            request.setStudent(student);
+            request.setCourse(course);
+            batch.add(command);
+            requests.add(request);
+        }
+        if (batch.isEmpty()) return;
+
+        List<OperationResult> results = enrollmentService.enrollStudents(requests);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result = results.get(i);
+        }
+        enrollments = null;
+    }
+
+    private void executeAttendance(List<Command> pending) throws DatabaseException {
+        List<Attendance> records = new ArrayList<>();
+        Map<Command, int[]> ranges = new LinkedHashMap<>();
+        Map<Command, List<String>> failures = new HashMap<>();
+
+        for (Command command : pending) {
+            Course course = course(command, command.args[0]);
+            if (course == null) continue;
+
+            LocalDate date;
+            try {
+                date = LocalDate.parse(command.args[1]);
+            } catch (DateTimeParseException e) {
+                command.result = OperationResult.failure("Invalid date: " + command.args[1]);
+                continue;
+            }
+
+            List<String> failed = new ArrayList<>();
+            int first = records.size();
+            for (int i = 2; i < command.args.length; i++) {
+                String[] mark = command.args[i].split(":");
+                Student student = students.get(mark[0]);
+                Enrollment enrollment = student == null ? null : enrollment(student, course);
+                if (mark.length != 2) {
+                    failed.add(command.args[i] + " (expected STUDENT:Status)");
+                } else if (enrollment == null) {
+                    failed.add(mark[0] + " (not enrolled in " + course.getCourseCode() + ")");
+                } else {
+                    Attendance attendance = new Attendance(enrollment.getId(), date, mark[1]);
+                    records.add(attendance);
+                    failed.add(null);
+                }
+            }
+            ranges.put(command, new int[]{first, records.size()});
+            failures.put(command, failed);
+        }
+        if (records.isEmpty() && ranges.isEmpty()) return;
+
+        List<OperationResult> results = records.isEmpty()
+                ? Collections.emptyList()
+                : attendanceService.markAttendanceBatch(records);
+
+        for (Map.Entry<Command, int[]> entry : ranges.entrySet()) {
+            Command command = entry.getKey();
+            List<String> problems = new ArrayList<>();
+            int next = entry.getValue()[0];
+            int marked = 0;
+            int position = 2;
+            for (String failure : failures.get(command)) {
+                if (failure != null) {
+                    problems.add(failure);
+                } else {
+                    OperationResult result = results.get(next++);
+                    if (result.isSuccess()) {
+                        marked++;
+                    } else {
+                        problems.add(command.args[position].split(":")[0] + " (" + result.getMessage() + ")");
+                    }
+                }
+                position++;
+            }
+            command.result = problems.isEmpty()
+                    ? OperationResult.success(marked + " marked")
+                    : OperationResult.failure(marked + " marked, failed: " + String.join(", ", problems));
+        }
+    }
+
+    private void executeEnrollmentUpdates(String type, List<Command> pending) throws DatabaseException {
+        List<Command> batch = new ArrayList<>();
+        List<Enrollment> updates = new ArrayList<>();
+
+        for (Command command : pending) {
+            Student student = student(command, command.args[0]);
+            Course course = student == null ? null : course(command, command.args[1]);
+            if (course == null) continue;
+
+            Enrollment enrollment = enrollment(student, course);
+            if (enrollment == null) {
+                command.result = OperationResult.failure("Student is not enrolled in " + course.getCourseCode());
+                continue;
+            }
+
+            switch (type) {
+                case "grade":
+                    enrollment.setGrade(command.args[2].toUpperCase());
+                    break;
+                case "complete":
+                    enrollment.setGrade(command.args[2].toUpperCase());
+                    enrollment.setStatus("Completed");
+                    break;
+                case "drop":
+                    enrollment.setStatus("Dropped");
+                    break;
+            }
+            batch.add(command);
+            updates.add(enrollment);
+        }
+        if (batch.isEmpty()) return;
+
+        // The cached rows now hold this group's values whether or not they were written; reload
+        // them for later rounds and groups, also after a rollback.
+        try {
+            List<OperationResult> results = enrollmentService.applyEnrollmentUpdates(updates);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result = results.get(i);
+            }
+        } finally {
+            enrollments = null;
+        }
+    }
+
+    private Student student(Command command, String studentCode) {
+        Student student = students.get(studentCode);
+        if (student == null) {
+            command.result = OperationResult.failure("Student not found: " + studentCode);
+        }
+        return student;
+    }
+
+    private Course course(Command command, String courseCode) {
+        Course course = courses.get(courseCode);
+        if (course == null) {
+            command.result = OperationResult.failure("Course not found: " + courseCode);
+        }
+        return course;
+    }
+
+    // Enrollments are loaded once for every student in the script and reloaded after a group
+    // that writes enrollments, so later groups see the rows it created or changed.
+    private Enrollment enrollment(Student student, Course course) throws DatabaseException {
+        if (enrollments == null) {
+            enrollments = new HashMap<>();
+            Set<UUID> studentIds = new HashSet<>();
+            for (Student s : students.values()) {
+                studentIds.add(s.getId());
+            }
+            if (!studentIds.isEmpty()) {
+                for (Enrollment e : enrollmentService.getEnrollmentsForStudents(studentIds)) {
+                    enrollments.put(e.getStudentId() + ":" + e.getCourseId(), e);
+                }
+            }
+        }
+        return enrollments.get(student.getId() + ":" + course.getId());
+    }
+
+    private void failPending(List<Command> commands, String message) {
+        for (Command command : commands) {
+            if (command.result == null || command.result.isSuccess()) {
+                command.result = OperationResult.failure(message);
+            }
+        }
+    }
+
+    private int report(List<Command> commands, long elapsedNanos) {
+        int succeeded = 0;
+        for (Command command : commands) {
+            OperationResult result = command.result != null ? command.result : OperationResult.failure("Not executed");
+            if (result.isSuccess()) succeeded++;
+            out.printf("[line %d] %s -> %s%n", command.line, command.text, result);
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        out.println("----------------------------------------------");
+        out.printf("Commands: %d, succeeded: %d, failed: %d%n", commands.size(), succeeded, commands.size() - succeeded);
+        out.printf("Elapsed: %.2fs (%.1f ops/sec)%n", seconds, seconds > 0 ? commands.size() / seconds : 0.0);
+        return succeeded == commands.size() ? 0 : 1;
+    }
+}
@@ -3,18 +3,37 @@ package com.sms.dao;
 import com.sms.exceptions.DatabaseException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.models.Attendance;
+import com.sms.models.AttendanceStats;
+import com.sms.utils.ChangeNotifier;
 import com.sms.utils.DatabaseConnection;
+import com.sms.utils.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class AttendanceDAO {
     private static final Logger logger = LoggerFactory.getLogger(AttendanceDAO.class);
+    private static final int STATS_FETCH_SIZE = 1000;
+
+    static final String FIND_BY_ENROLLMENT = "SELECT * FROM attendance WHERE enrollment_id = ? ORDER BY attendance_date DESC";
+    static final String FIND_BY_DATE = "SELECT a.* FROM attendance a JOIN enrollments e ON e.id = a.enrollment_id " +
+            "WHERE a.attendance_date = ? AND e.deleted_at IS NULL";
+
+    private static final String STATS_SELECT =
+            "SELECT e.id AS enrollment_id, e.student_id, e.course_id, " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'Present') AS present, " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'Late') AS late, " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'Absent') AS absent " +
+            "FROM enrollments e LEFT JOIN attendance a ON a.enrollment_id = e.id " +
+            "WHERE e.status <> 'Dropped' AND e.deleted_at IS NULL ";
+    private static final String STATS_GROUP = "GROUP BY e.id, e.student_id, e.course_id ORDER BY e.course_id";
 
     public void create(Attendance attendance) throws DatabaseException {
         String sql = "INSERT INTO attendance (enrollment_id, attendance_date, status, remarks) VALUES (?, ?, ?, ?)";
@@ -38,6 +57,7 @@ public class AttendanceDAO {
                 }
             }
 
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
             logger.info("Attendance record created successfully");
         } catch (SQLException e) {
             logger.error("Error creating attendance: " + e.getMessage());
@@ -66,7 +86,7 @@ public class AttendanceDAO {
     }
 
     public List<Attendance> findByEnrollmentId(UUID enrollmentId) throws DatabaseException {
-        String sql = "SELECT * FROM attendance WHERE enrollment_id = ? ORDER BY attendance_date DESC";
+        String sql = FIND_BY_ENROLLMENT;
         List<Attendance> attendanceList = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -87,10 +107,10 @@ public class AttendanceDAO {
     }
 
     public List<Attendance> findByDate(LocalDate date) throws DatabaseException {
-        String sql = "SELECT * FROM attendance WHERE attendance_date = ?";
+        String sql = FIND_BY_DATE;
         List<Attendance> attendanceList = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setDate(1, Date.valueOf(date));
@@ -108,20 +128,33 @@ public class AttendanceDAO {
     }
 
     public void update(Attendance attendance) throws DatabaseException {
-        String sql = "UPDATE attendance SET status = ?, remarks = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = "UPDATE attendance SET status = ?, remarks = ? WHERE id = ? AND attendance_date = ?";
 
+        UnitOfWork.StatementBinder binder = stmt -> {
             stmt.setString(1, attendance.getStatus());
             stmt.setString(2, attendance.getRemarks());
             stmt.setObject(3, attendance.getId());
+            stmt.setDate(4, Date.valueOf(attendance.getAttendanceDate()));
+        };
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.registerDirty("attendance:" + attendance.getId(), sql, binder, null,
+                    () -> new DatabaseException("Updating attendance failed, no rows affected"));
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            binder.bind(stmt);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
                 throw new DatabaseException("Updating attendance failed, no rows affected");
             }
 
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
             logger.info("Attendance updated successfully");
         } catch (SQLException e) {
             logger.error("Error updating attendance: " + e.getMessage());
@@ -129,20 +162,23 @@ public class AttendanceDAO {
         }
     }
 
-    public void delete(UUID id) throws DatabaseException {
-        String sql = "DELETE FROM attendance WHERE id = ?";
+    // Returns the removed mark so callers can adjust anything derived from it.
+    public Attendance delete(UUID id) throws DatabaseException {
+        String sql = "DELETE FROM attendance WHERE id = ? RETURNING *";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setObject(1, id);
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
 
-            if (affectedRows == 0) {
+            if (!rs.next()) {
                 throw new DatabaseException("Deleting attendance failed, no rows affected");
             }
 
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
             logger.info("Attendance deleted successfully with id: " + id);
+            return mapResultSetToAttendance(rs);
         } catch (SQLException e) {
             logger.error("Error deleting attendance: " + e.getMessage());
             throw new DatabaseException("Failed to delete attendance", e);
@@ -155,7 +191,7 @@ public class AttendanceDAO {
                     "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END) as present " +
                     "FROM attendance WHERE enrollment_id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setObject(1, enrollmentId);
@@ -174,6 +210,153 @@ public class AttendanceDAO {
         }
     }
 
+    // Per-enrollment Present/Late/Absent counts for the active (non-dropped) enrollments of a
+    // course, in one grouped query.
+    public List<AttendanceStats> findStatsByCourseId(UUID courseId) throws DatabaseException {
+        String sql = STATS_SELECT + "AND e.course_id = ? " + STATS_GROUP;
+        List<AttendanceStats> stats = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, courseId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                stats.add(mapResultSetToStats(rs));
+            }
+
+            return stats;
+        } catch (SQLException e) {
+            logger.error("Error finding attendance stats: " + e.getMessage());
+            throw new DatabaseException("Failed to find attendance stats", e);
+        }
+    }
+
+    // Only enrollments that are still open ("Enrolled") are returned.
+    public List<AttendanceStats> findOpenStatsByEnrollmentIds(Collection<UUID> enrollmentIds) throws DatabaseException {
+        String sql = STATS_SELECT + "AND e.status = 'Enrolled' AND e.id = ANY(?) " + STATS_GROUP;
+        List<AttendanceStats> stats = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("uuid", enrollmentIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                stats.add(mapResultSetToStats(rs));
+            }
+
+            return stats;
+        } catch (SQLException e) {
+            logger.error("Error finding attendance stats: " + e.getMessage());
+            throw new DatabaseException("Failed to find attendance stats", e);
+        }
+    }
+
+    // Streams the same counts for every course (optionally only enrollments with the given
+    // status), grouped by course_id, through a server-side cursor so callers can fold them
+    // without holding the whole table. Returns the row count.
+    public int streamStats(String enrollmentStatus, Consumer<AttendanceStats> handler) throws DatabaseException {
+        String sql = STATS_SELECT + (enrollmentStatus != null ? "AND e.status = ? " : "") + STATS_GROUP;
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(STATS_FETCH_SIZE);
+                if (enrollmentStatus != null) {
+                    stmt.setString(1, enrollmentStatus);
+                }
+                ResultSet rs = stmt.executeQuery();
+                int count = 0;
+                while (rs.next()) {
+                    handler.accept(mapResultSetToStats(rs));
+                    count++;
+                }
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming attendance stats: " + e.getMessage());
+            throw new DatabaseException("Failed to read attendance stats", e);
+        }
+    }
+
+    // Marks attendance for the enrollment and date, replacing any earlier mark for the same
+    // session, so retries never create duplicates. Returns the status the mark replaced, or
+    // null when the mark is new. The subquery reads the statement's snapshot, so it sees the
+    // row as it was before this upsert; it is keyed like the conflict target, which includes
+    // the partition key, so it probes one partition.
+    public String upsert(Attendance attendance) throws DatabaseException {
+        String sql = "INSERT INTO attendance (enrollment_id, attendance_date, status, remarks) " +
+                    "VALUES (?, ?, ?, ?) ON CONFLICT (enrollment_id, attendance_date) " +
+                    "DO UPDATE SET status = EXCLUDED.status, remarks = EXCLUDED.remarks " +
+                    "RETURNING id, (SELECT p.status FROM attendance p WHERE p.enrollment_id = attendance.enrollment_id " +
+                    "AND p.attendance_date = attendance.attendance_date) AS previous_status";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindUpsert(stmt, attendance);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                throw new DatabaseException("Marking attendance failed, no rows affected");
+            }
+
+            attendance.setId((UUID) rs.getObject("id"));
+            String previousStatus = rs.getString("previous_status");
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
+            logger.info(previousStatus == null ? "Attendance record created successfully" : "Attendance record re-marked");
+            return previousStatus;
+        } catch (SQLException e) {
+            logger.error("Error marking attendance: " + e.getMessage());
+            throw new DatabaseException("Failed to mark attendance", e);
+        }
+    }
+
+    public void upsertBatch(List<Attendance> attendanceList) throws DatabaseException {
+        String sql = "INSERT INTO attendance (enrollment_id, attendance_date, status, remarks) " +
+                    "VALUES (?, ?, ?, ?) ON CONFLICT (enrollment_id, attendance_date) " +
+                    "DO UPDATE SET status = EXCLUDED.status, remarks = EXCLUDED.remarks";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Attendance attendance : attendanceList) {
+                    bindUpsert(stmt, attendance);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
+            logger.info("Marked " + attendanceList.size() + " attendance records");
+        } catch (SQLException e) {
+            logger.error("Error marking attendance records: " + e.getMessage());
+            throw new DatabaseException("Failed to mark attendance records", e);
+        }
+    }
+
+    private static void bindUpsert(PreparedStatement stmt, Attendance attendance) throws SQLException {
+        stmt.setObject(1, attendance.getEnrollmentId());
+        stmt.setDate(2, Date.valueOf(attendance.getAttendanceDate()));
+        stmt.setString(3, attendance.getStatus());
+        stmt.setString(4, attendance.getRemarks());
+    }
+
+    private AttendanceStats mapResultSetToStats(ResultSet rs) throws SQLException {
+        return new AttendanceStats((UUID) rs.getObject("enrollment_id"), (UUID) rs.getObject("student_id"),
+                (UUID) rs.getObject("course_id"), rs.getInt("present"), rs.getInt("late"), rs.getInt("absent"));
+    }
+
     private Attendance mapResultSetToAttendance(ResultSet rs) throws SQLException {
         Attendance attendance = new Attendance();
         attendance.setId((UUID) rs.getObject("id"));
@@ -0,0 +1,134 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.utils.ChangeNotifier;
+import com.sms.utils.DatabaseConnection;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class AttendancePartitionDAO {
+    private static final Logger logger = LoggerFactory.getLogger(AttendancePartitionDAO.class);
+    private static final Pattern PARTITION_NAME = Pattern.compile("^attendance_([0-9]{4})_([0-9]{2})$");
+
+    public String ensurePartition(LocalDate month) throws DatabaseException {
+        String sql = "SELECT create_attendance_partition(?)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(month));
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getString(1);
+        } catch (SQLException e) {
+            logger.error("Error creating attendance partition: " + e.getMessage());
+            throw new DatabaseException("Failed to create attendance partition", e);
+        }
+    }
+
+    public List<String> findMonthlyPartitions() throws DatabaseException {
+        String sql = "SELECT c.relname FROM pg_inherits i " +
+                    "JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "JOIN pg_class p ON p.oid = i.inhparent " +
+                    "WHERE p.relname = 'attendance' ORDER BY c.relname";
+        List<String> partitions = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (PARTITION_NAME.matcher(name).matches()) {
+                    partitions.add(name);
+                }
+            }
+
+            return partitions;
+        } catch (SQLException e) {
+            logger.error("Error listing attendance partitions: " + e.getMessage());
+            throw new DatabaseException("Failed to list attendance partitions", e);
+        }
+    }
+
+    public boolean hasOpenEnrollments(String partition) throws DatabaseException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM " + quote(partition) + " a " +
+                    "JOIN enrollments e ON e.id = a.enrollment_id WHERE e.status = 'Enrolled' AND e.deleted_at IS NULL)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            rs.next();
+            return rs.getBoolean(1);
+        } catch (SQLException e) {
+            logger.error("Error checking open enrollments in " + partition + ": " + e.getMessage());
+            throw new DatabaseException("Failed to check partition " + partition, e);
+        }
+    }
+
+    public void detach(String partition) throws DatabaseException {
+        execute("ALTER TABLE attendance DETACH PARTITION " + quote(partition), "detach " + partition);
+        ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
+        logger.info("Detached attendance partition " + partition);
+    }
+
+    public void attach(String partition) throws DatabaseException {
+        LocalDate month = monthOf(partition);
+        execute("ALTER TABLE attendance ATTACH PARTITION " + quote(partition) +
+                " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')", "attach " + partition);
+        ChangeNotifier.changed(ChangeNotifier.ATTENDANCE);
+        logger.info("Re-attached attendance partition " + partition);
+    }
+
+    public void drop(String partition) throws DatabaseException {
+        execute("DROP TABLE " + quote(partition), "drop " + partition);
+        logger.info("Dropped attendance partition " + partition);
+    }
+
+    public long export(String partition, OutputStream out) throws DatabaseException {
+        String sql = "COPY " + quote(partition) + " TO STDOUT WITH (FORMAT csv, HEADER)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } catch (SQLException | IOException e) {
+            logger.error("Error exporting attendance partition " + partition + ": " + e.getMessage());
+            throw new DatabaseException("Failed to export attendance partition " + partition, e);
+        }
+    }
+
+    public LocalDate monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a monthly attendance partition: " + partition);
+        }
+        return LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+    }
+
+    private void execute(String sql, String action) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Attaching validates every row of the partition; DDL is not bound by the query timeouts.
+            stmt.setQueryTimeout(0);
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            logger.error("Error during partition " + action + ": " + e.getMessage());
+            throw new DatabaseException("Failed to " + action, e);
+        }
+    }
+
+    private String quote(String partition) {
+        monthOf(partition);
+        return "\"" + partition + "\"";
+    }
+}
@@ -1,20 +1,28 @@
 package com.sms.dao;
 
 import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.OptimisticLockException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.models.Course;
+import com.sms.utils.ChangeNotifier;
 import com.sms.utils.DatabaseConnection;
+import com.sms.utils.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public class CourseDAO {
     private static final Logger logger = LoggerFactory.getLogger(CourseDAO.class);
 
+    static final String FIND_BY_SEMESTER =
+            "SELECT * FROM courses WHERE semester = ? AND deleted_at IS NULL ORDER BY course_code";
+
     public void create(Course course) throws DatabaseException {
         String sql = "INSERT INTO courses (course_code, course_name, description, credits, " +
                     "instructor, semester, max_capacity) VALUES (?, ?, ?, ?, ?, ?, ?)";
@@ -41,6 +49,7 @@ public class CourseDAO {
                 }
             }
 
+            ChangeNotifier.changed(ChangeNotifier.COURSES);
             logger.info("Course created successfully: " + course.getCourseCode());
         } catch (SQLException e) {
             logger.error("Error creating course: " + e.getMessage());
@@ -49,7 +58,7 @@ public class CourseDAO {
     }
 
     public Course findById(UUID id) throws DatabaseException, RecordNotFoundException {
-        String sql = "SELECT * FROM courses WHERE id = ?";
+        String sql = "SELECT * FROM courses WHERE id = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -68,8 +77,30 @@ public class CourseDAO {
         }
     }
 
+    // Locks the course row until the surrounding UnitOfWork ends, so capacity checks made against
+    // it cannot race with another transaction enrolling into the same course.
+    public Course findByIdForUpdate(UUID id) throws DatabaseException, RecordNotFoundException {
+        String sql = "SELECT * FROM courses WHERE id = ? AND deleted_at IS NULL FOR UPDATE";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, id);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return mapResultSetToCourse(rs);
+            } else {
+                throw new RecordNotFoundException("Course not found with id: " + id);
+            }
+        } catch (SQLException e) {
+            logger.error("Error locking course by id: " + e.getMessage());
+            throw new DatabaseException("Failed to find course", e);
+        }
+    }
+
     public Course findByCourseCode(String courseCode) throws DatabaseException, RecordNotFoundException {
-        String sql = "SELECT * FROM courses WHERE course_code = ?";
+        String sql = "SELECT * FROM courses WHERE course_code = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -89,10 +120,10 @@ public class CourseDAO {
     }
 
     public List<Course> findAll() throws DatabaseException {
-        String sql = "SELECT * FROM courses ORDER BY course_code";
+        String sql = "SELECT * FROM courses WHERE deleted_at IS NULL ORDER BY course_code";
         List<Course> courses = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -108,13 +139,38 @@ public class CourseDAO {
         }
     }
 
-    public void update(Course course) throws DatabaseException {
-        String sql = "UPDATE courses SET course_name = ?, description = ?, credits = ?, " +
-                    "instructor = ?, semester = ?, max_capacity = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    // Courses created or updated after the watermark, oldest first.
+    public List<Course> findChangedSince(Instant watermark, int limit) throws DatabaseException {
+        return findChangedSince(watermark, DeltaQueries.MAX_ID, limit);
+    }
+
+    // Continues after the (updated_at, id) position of the last course returned by a previous
+    // call. Reads the primary: a lagging replica would let the watermark pass rows it has not
+    // replayed yet.
+    public List<Course> findChangedSince(Instant watermark, UUID afterId, int limit) throws DatabaseException {
+        List<Course> courses = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DeltaQueries.changedSince("courses"))) {
+
+            DeltaQueries.bindPosition(stmt, watermark, afterId, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                courses.add(mapResultSetToCourse(rs));
+            }
+            return courses;
+        } catch (SQLException e) {
+            logger.error("Error finding changed courses: " + e.getMessage());
+            throw new DatabaseException("Failed to find changed courses", e);
+        }
+    }
 
+    public void update(Course course) throws DatabaseException {
+        String sql = "UPDATE courses SET course_name = ?, description = ?, credits = ?, " +
+                    "instructor = ?, semester = ?, max_capacity = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ? AND version = ? AND deleted_at IS NULL";
+
+        UnitOfWork.StatementBinder binder = stmt -> {
             stmt.setString(1, course.getCourseName());
             stmt.setString(2, course.getDescription());
             stmt.setInt(3, course.getCredits());
@@ -122,12 +178,28 @@ public class CourseDAO {
             stmt.setString(5, course.getSemester());
             stmt.setInt(6, course.getMaxCapacity());
             stmt.setObject(7, course.getId());
+            stmt.setInt(8, course.getVersion());
+        };
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.registerDirty("courses:" + course.getId(), sql, binder,
+                    () -> bumpVersion(course), () -> staleVersion(course));
+            ChangeNotifier.changed(ChangeNotifier.COURSES);
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            binder.bind(stmt);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new DatabaseException("Updating course failed, no rows affected");
+                throw staleVersion(course);
             }
+            bumpVersion(course);
 
+            ChangeNotifier.changed(ChangeNotifier.COURSES);
             logger.info("Course updated successfully: " + course.getCourseCode());
         } catch (SQLException e) {
             logger.error("Error updating course: " + e.getMessage());
@@ -135,19 +207,28 @@ public class CourseDAO {
         }
     }
 
+    // Soft delete: marks the course and its enrollments deleted in one statement instead of
+    // cascading through every attendance row while holding locks. SoftDeletePurger removes the
+    // rows later, in small batches.
     public void delete(UUID id) throws DatabaseException {
-        String sql = "DELETE FROM courses WHERE id = ?";
+        String sql = "WITH deleted AS (UPDATE courses SET deleted_at = now(), version = version + 1 " +
+                    "WHERE id = ? AND deleted_at IS NULL RETURNING id), " +
+                    "enrollments_deleted AS (UPDATE enrollments SET deleted_at = now(), version = version + 1 " +
+                    "WHERE course_id IN (SELECT id FROM deleted) AND deleted_at IS NULL) " +
+                    "SELECT COUNT(*) FROM deleted";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setObject(1, id);
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
 
-            if (affectedRows == 0) {
+            if (!rs.next() || rs.getInt(1) == 0) {
                 throw new DatabaseException("Deleting course failed, no rows affected");
             }
 
+            // Its attendance is hidden with the enrollments.
+            ChangeNotifier.changed(ChangeNotifier.COURSES, ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
             logger.info("Course deleted successfully with id: " + id);
         } catch (SQLException e) {
             logger.error("Error deleting course: " + e.getMessage());
@@ -156,10 +237,10 @@ public class CourseDAO {
     }
 
     public List<Course> findBySemester(String semester) throws DatabaseException {
-        String sql = "SELECT * FROM courses WHERE semester = ? ORDER BY course_code";
+        String sql = FIND_BY_SEMESTER;
         List<Course> courses = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, semester);
@@ -176,6 +257,43 @@ public class CourseDAO {
         }
     }
 
+    public List<Course> findByCourseCodes(Collection<String> courseCodes) throws DatabaseException {
+        String sql = "SELECT * FROM courses WHERE course_code = ANY(?) AND deleted_at IS NULL";
+        List<Course> courses = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("text", courseCodes.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                courses.add(mapResultSetToCourse(rs));
+            }
+
+            return courses;
+        } catch (SQLException e) {
+            logger.error("Error finding courses by codes: " + e.getMessage());
+            throw new DatabaseException("Failed to find courses", e);
+        }
+    }
+
+    // The row's version moved with the write; inside a unit of work it is put back if the
+    // transaction rolls back, so a retry is not rejected as stale.
+    private static void bumpVersion(Course course) {
+        int version = course.getVersion();
+        course.setVersion(version + 1);
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.onRollback(() -> course.setVersion(version));
+        }
+    }
+
+    private static OptimisticLockException staleVersion(Course course) {
+        return new OptimisticLockException("Course " + course.getCourseCode() + " was changed or removed by another user " +
+                "(version " + course.getVersion() + "); reload it and try again");
+    }
+
     private Course mapResultSetToCourse(ResultSet rs) throws SQLException {
         Course course = new Course();
         course.setId((UUID) rs.getObject("id"));
@@ -186,6 +304,8 @@ public class CourseDAO {
         course.setInstructor(rs.getString("instructor"));
         course.setSemester(rs.getString("semester"));
         course.setMaxCapacity(rs.getInt("max_capacity"));
+        course.setVersion(rs.getInt("version"));
+        course.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
         return course;
     }
 }
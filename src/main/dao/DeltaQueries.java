@@ -0,0 +1,37 @@
+package com.sms.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+// SQL shared by the findChangedSince reads and TombstoneDAO.
+final class DeltaQueries {
+
+    // Positions read with only a watermark start after every id at that instant.
+    static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    // updated_at and deleted_at hold the writing transaction's start time, so a row stamped
+    // before the oldest transaction still in progress can no longer be joined by another row
+    // at or before its position. Reads stop at that horizon; a caller that resumes from the
+    // last position returned therefore never skips a row. Sessions of other roles show a null
+    // xact_start unless the application role has pg_read_all_stats.
+    static final String HORIZON =
+            "WITH horizon AS (SELECT LEAST(now(), COALESCE((SELECT min(xact_start) FROM pg_stat_activity " +
+            "WHERE datname = current_database() AND xact_start IS NOT NULL AND pid <> pg_backend_pid()), now())) AS t) ";
+
+    private DeltaQueries() {}
+
+    static String changedSince(String table) {
+        return HORIZON + "SELECT * FROM " + table + ", horizon " +
+                "WHERE (updated_at, id) > (?, ?) AND updated_at < horizon.t AND deleted_at IS NULL " +
+                "ORDER BY updated_at, id LIMIT ?";
+    }
+
+    static void bindPosition(PreparedStatement stmt, Instant watermark, UUID afterId, int limit) throws SQLException {
+        stmt.setTimestamp(1, Timestamp.from(watermark));
+        stmt.setObject(2, afterId);
+        stmt.setInt(3, limit);
+    }
+}
@@ -1,19 +1,38 @@
 package com.sms.dao;
 
 import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.OptimisticLockException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.models.Enrollment;
+import com.sms.models.StatusFilter;
+import com.sms.utils.ChangeNotifier;
 import com.sms.utils.DatabaseConnection;
+import com.sms.utils.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class EnrollmentDAO {
     private static final Logger logger = LoggerFactory.getLogger(EnrollmentDAO.class);
+    private static final int GRADE_CHUNK_SIZE = 1000;
+
+    static final String FIND_BY_STUDENT =
+            "SELECT * FROM enrollments WHERE student_id = ? AND deleted_at IS NULL ORDER BY enrollment_date DESC";
+    static final String FIND_BY_COURSE =
+            "SELECT * FROM enrollments WHERE course_id = ? AND deleted_at IS NULL ORDER BY enrollment_date DESC";
+    static final String ENROLLED_COUNT =
+            "SELECT COUNT(*) as count FROM enrollments WHERE course_id = ? AND status = 'Enrolled' AND deleted_at IS NULL";
 
     public void create(Enrollment enrollment) throws DatabaseException {
         String sql = "INSERT INTO enrollments (student_id, course_id, enrollment_date, status) VALUES (?, ?, ?, ?)";
@@ -37,6 +56,7 @@ public class EnrollmentDAO {
                 }
             }
 
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
             logger.info("Enrollment created successfully");
         } catch (SQLException e) {
             logger.error("Error creating enrollment: " + e.getMessage());
@@ -45,7 +65,7 @@ public class EnrollmentDAO {
     }
 
     public Enrollment findById(UUID id) throws DatabaseException, RecordNotFoundException {
-        String sql = "SELECT * FROM enrollments WHERE id = ?";
+        String sql = "SELECT * FROM enrollments WHERE id = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -65,7 +85,7 @@ public class EnrollmentDAO {
     }
 
     public List<Enrollment> findByStudentId(UUID studentId) throws DatabaseException {
-        String sql = "SELECT * FROM enrollments WHERE student_id = ? ORDER BY enrollment_date DESC";
+        String sql = FIND_BY_STUDENT;
         List<Enrollment> enrollments = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -86,7 +106,7 @@ public class EnrollmentDAO {
     }
 
     public List<Enrollment> findByCourseId(UUID courseId) throws DatabaseException {
-        String sql = "SELECT * FROM enrollments WHERE course_id = ? ORDER BY enrollment_date DESC";
+        String sql = FIND_BY_COURSE;
         List<Enrollment> enrollments = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
@@ -107,10 +127,10 @@ public class EnrollmentDAO {
     }
 
     public List<Enrollment> findAll() throws DatabaseException {
-        String sql = "SELECT * FROM enrollments ORDER BY enrollment_date DESC";
+        String sql = "SELECT * FROM enrollments WHERE deleted_at IS NULL ORDER BY enrollment_date DESC";
         List<Enrollment> enrollments = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -126,21 +146,62 @@ public class EnrollmentDAO {
         }
     }
 
-    public void update(Enrollment enrollment) throws DatabaseException {
-        String sql = "UPDATE enrollments SET grade = ?, status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    // Enrollments created or updated after the watermark, oldest first.
+    public List<Enrollment> findChangedSince(Instant watermark, int limit) throws DatabaseException {
+        return findChangedSince(watermark, DeltaQueries.MAX_ID, limit);
+    }
+
+    // Continues after the (updated_at, id) position of the last enrollment returned by a previous
+    // call. Reads the primary: a lagging replica would let the watermark pass rows it has not
+    // replayed yet.
+    public List<Enrollment> findChangedSince(Instant watermark, UUID afterId, int limit) throws DatabaseException {
+        List<Enrollment> enrollments = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DeltaQueries.changedSince("enrollments"))) {
+
+            DeltaQueries.bindPosition(stmt, watermark, afterId, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                enrollments.add(mapResultSetToEnrollment(rs));
+            }
+            return enrollments;
+        } catch (SQLException e) {
+            logger.error("Error finding changed enrollments: " + e.getMessage());
+            throw new DatabaseException("Failed to find changed enrollments", e);
+        }
+    }
+
+    public void update(Enrollment enrollment) throws DatabaseException {
+        String sql = "UPDATE enrollments SET grade = ?, status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ? AND version = ? AND deleted_at IS NULL";
 
+        UnitOfWork.StatementBinder binder = stmt -> {
             stmt.setString(1, enrollment.getGrade());
             stmt.setString(2, enrollment.getStatus());
             stmt.setObject(3, enrollment.getId());
+            stmt.setInt(4, enrollment.getVersion());
+        };
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.registerDirty("enrollments:" + enrollment.getId(), sql, binder,
+                    () -> bumpVersion(enrollment), () -> staleVersion(enrollment));
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            binder.bind(stmt);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new DatabaseException("Updating enrollment failed, no rows affected");
+                throw staleVersion(enrollment);
             }
+            bumpVersion(enrollment);
 
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
             logger.info("Enrollment updated successfully");
         } catch (SQLException e) {
             logger.error("Error updating enrollment: " + e.getMessage());
@@ -148,8 +209,9 @@ public class EnrollmentDAO {
         }
     }
 
+    // Soft delete; SoftDeletePurger removes the row and its attendance later.
     public void delete(UUID id) throws DatabaseException {
-        String sql = "DELETE FROM enrollments WHERE id = ?";
+        String sql = "UPDATE enrollments SET deleted_at = now(), version = version + 1 WHERE id = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -161,6 +223,8 @@ public class EnrollmentDAO {
                 throw new DatabaseException("Deleting enrollment failed, no rows affected");
             }
 
+            // Its attendance is hidden with it.
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
             logger.info("Enrollment deleted successfully with id: " + id);
         } catch (SQLException e) {
             logger.error("Error deleting enrollment: " + e.getMessage());
@@ -169,7 +233,7 @@ public class EnrollmentDAO {
     }
 
     public int getEnrollmentCount(UUID courseId) throws DatabaseException {
-        String sql = "SELECT COUNT(*) as count FROM enrollments WHERE course_id = ? AND status = 'Enrolled'";
+        String sql = ENROLLED_COUNT;
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -187,6 +251,296 @@ public class EnrollmentDAO {
         }
     }
 
+    public List<Enrollment> findByIds(Collection<UUID> ids) throws DatabaseException {
+        String sql = "SELECT * FROM enrollments WHERE id = ANY(?) AND deleted_at IS NULL";
+        List<Enrollment> enrollments = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("uuid", ids.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                enrollments.add(mapResultSetToEnrollment(rs));
+            }
+
+            return enrollments;
+        } catch (SQLException e) {
+            logger.error("Error finding enrollments by ids: " + e.getMessage());
+            throw new DatabaseException("Failed to find enrollments", e);
+        }
+    }
+
+    public List<Enrollment> findByStudentIds(Collection<UUID> studentIds) throws DatabaseException {
+        String sql = "SELECT * FROM enrollments WHERE student_id = ANY(?) AND deleted_at IS NULL";
+        List<Enrollment> enrollments = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("uuid", studentIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                enrollments.add(mapResultSetToEnrollment(rs));
+            }
+
+            return enrollments;
+        } catch (SQLException e) {
+            logger.error("Error finding enrollments by students: " + e.getMessage());
+            throw new DatabaseException("Failed to find enrollments by students", e);
+        }
+    }
+
+    public Map<UUID, Integer> getEnrollmentCounts(Collection<UUID> courseIds) throws DatabaseException {
+        String sql = "SELECT course_id, COUNT(*) as count FROM enrollments " +
+                    "WHERE course_id = ANY(?) AND status = 'Enrolled' AND deleted_at IS NULL GROUP BY course_id";
+        Map<UUID, Integer> counts = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("uuid", courseIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                counts.put((UUID) rs.getObject("course_id"), rs.getInt("count"));
+            }
+
+            return counts;
+        } catch (SQLException e) {
+            logger.error("Error getting enrollment counts: " + e.getMessage());
+            throw new DatabaseException("Failed to get enrollment counts", e);
+        }
+    }
+
+    public void createBatch(List<Enrollment> enrollments) throws DatabaseException {
+        String sql = "INSERT INTO enrollments (student_id, course_id, enrollment_date, status) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Enrollment enrollment : enrollments) {
+                    stmt.setObject(1, enrollment.getStudentId());
+                    stmt.setObject(2, enrollment.getCourseId());
+                    stmt.setDate(3, Date.valueOf(enrollment.getEnrollmentDate()));
+                    stmt.setString(4, enrollment.getStatus());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            logger.info("Created " + enrollments.size() + " enrollments");
+        } catch (SQLException e) {
+            logger.error("Error creating enrollments: " + e.getMessage());
+            throw new DatabaseException("Failed to create enrollments", e);
+        }
+    }
+
+    // Applies the grade and status already set on each enrollment with one
+    // UPDATE ... FROM (VALUES ...) per chunk, all chunks in one transaction. Like every other
+    // update, a row only matches at the version it was read at; rows changed or removed since
+    // are left alone and missing from the returned ids, and only the updated models get their
+    // version bumped.
+    public Set<UUID> applyGrades(List<Enrollment> enrollments) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            Set<UUID> updated = new HashSet<>();
+            try {
+                for (int from = 0; from < enrollments.size(); from += GRADE_CHUNK_SIZE) {
+                    List<Enrollment> chunk = enrollments.subList(from, Math.min(enrollments.size(), from + GRADE_CHUNK_SIZE));
+                    try (PreparedStatement stmt = conn.prepareStatement(gradeUpdateSql(chunk.size()))) {
+                        int index = 1;
+                        for (Enrollment enrollment : chunk) {
+                            stmt.setObject(index++, enrollment.getId());
+                            stmt.setString(index++, enrollment.getGrade());
+                            stmt.setString(index++, enrollment.getStatus());
+                            stmt.setInt(index++, enrollment.getVersion());
+                        }
+                        ResultSet rs = stmt.executeQuery();
+                        while (rs.next()) {
+                            updated.add((UUID) rs.getObject("id"));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            for (Enrollment enrollment : enrollments) {
+                if (updated.contains(enrollment.getId())) {
+                    bumpVersion(enrollment);
+                }
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            logger.info("Applied grades to " + updated.size() + " of " + enrollments.size() + " enrollments");
+            return updated;
+        } catch (SQLException e) {
+            logger.error("Error applying grades: " + e.getMessage());
+            throw new DatabaseException("Failed to apply grades", e);
+        }
+    }
+
+    // Enrols the students into the course with a single multi-row insert. Students that already
+    // have an enrollment row for the course are skipped; the ids actually inserted are returned.
+    public Set<UUID> createForCourse(UUID courseId, List<UUID> studentIds) throws DatabaseException {
+        String sql = "INSERT INTO enrollments (student_id, course_id, enrollment_date, status) " +
+                    "SELECT student_id, ?, ?, 'Enrolled' FROM unnest(?::uuid[]) WITH ORDINALITY AS s(student_id, ord) " +
+                    "ORDER BY ord ON CONFLICT (student_id, course_id) WHERE deleted_at IS NULL DO NOTHING RETURNING student_id";
+        Set<UUID> inserted = new HashSet<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, courseId);
+            stmt.setDate(2, Date.valueOf(LocalDate.now()));
+            stmt.setArray(3, conn.createArrayOf("uuid", studentIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                inserted.add((UUID) rs.getObject("student_id"));
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            logger.info("Enrolled " + inserted.size() + " of " + studentIds.size() + " students into course " + courseId);
+            return inserted;
+        } catch (SQLException e) {
+            logger.error("Error enrolling students into course: " + e.getMessage());
+            throw new DatabaseException("Failed to enroll students", e);
+        }
+    }
+
+    public void updateBatch(List<Enrollment> enrollments) throws DatabaseException {
+        String sql = "UPDATE enrollments SET grade = ?, status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ? AND version = ? AND deleted_at IS NULL";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Enrollment enrollment : enrollments) {
+                    stmt.setString(1, enrollment.getGrade());
+                    stmt.setString(2, enrollment.getStatus());
+                    stmt.setObject(3, enrollment.getId());
+                    stmt.setInt(4, enrollment.getVersion());
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        conn.rollback();
+                        throw staleVersion(enrollments.get(i));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            for (Enrollment enrollment : enrollments) {
+                bumpVersion(enrollment);
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            logger.info("Updated " + enrollments.size() + " enrollments");
+        } catch (SQLException e) {
+            logger.error("Error updating enrollments: " + e.getMessage());
+            throw new DatabaseException("Failed to update enrollments", e);
+        }
+    }
+
+    // Moves every enrollment matching the filter to newStatus with one UPDATE, recording the old
+    // and new status of each changed row in status_audit under batchId. Returns the number of
+    // enrollments changed.
+    public int transitionStatus(StatusFilter filter, String newStatus, UUID batchId) throws DatabaseException {
+        StringBuilder where = new StringBuilder("e.deleted_at IS NULL AND e.status IS DISTINCT FROM ?");
+        List<Object> params = new ArrayList<>();
+        params.add(newStatus);
+        if (filter.getEnrollmentYear() != null) {
+            where.append(" AND e.enrollment_date >= ? AND e.enrollment_date < ?");
+            params.add(Date.valueOf(LocalDate.of(filter.getEnrollmentYear(), 1, 1)));
+            params.add(Date.valueOf(LocalDate.of(filter.getEnrollmentYear() + 1, 1, 1)));
+        }
+        if (filter.getStatus() != null) {
+            where.append(" AND e.status = ?");
+            params.add(filter.getStatus());
+        }
+        if (filter.getCourseId() != null) {
+            where.append(" AND e.course_id = ?");
+            params.add(filter.getCourseId());
+        }
+        if (filter.getSemester() != null) {
+            where.append(" AND e.course_id IN (SELECT id FROM courses WHERE semester = ?)");
+            params.add(filter.getSemester());
+        }
+        if (filter.getStudentStatus() != null) {
+            where.append(" AND e.student_id IN (SELECT id FROM students WHERE status = ?)");
+            params.add(filter.getStudentStatus());
+        }
+
+        String sql = "WITH changed AS (" +
+                    "UPDATE enrollments e SET status = ?, version = e.version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "FROM enrollments old WHERE old.id = e.id AND " + where +
+                    " RETURNING e.id, old.status AS old_status), " +
+                    "audit AS (INSERT INTO status_audit (entity, entity_id, old_status, new_status, batch_id) " +
+                    "SELECT 'enrollment', id, old_status, ?, ? FROM changed) " +
+                    "SELECT COUNT(*) AS count FROM changed";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setString(index++, newStatus);
+            for (Object param : params) {
+                stmt.setObject(index++, param);
+            }
+            stmt.setString(index++, newStatus);
+            stmt.setObject(index, batchId);
+            ResultSet rs = stmt.executeQuery();
+
+            int count = rs.next() ? rs.getInt("count") : 0;
+            ChangeNotifier.changed(ChangeNotifier.ENROLLMENTS);
+            logger.info("Moved " + count + " enrollments to " + newStatus + " (batch " + batchId + ", " + filter + ")");
+            return count;
+        } catch (SQLException e) {
+            logger.error("Error transitioning enrollment statuses: " + e.getMessage());
+            throw new DatabaseException("Failed to update enrollment statuses", e);
+        }
+    }
+
+    private static String gradeUpdateSql(int rows) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            values.append(i == 0 ? "(?::uuid, ?, ?, ?::int)" : ", (?::uuid, ?, ?, ?::int)");
+        }
+        return "UPDATE enrollments e SET grade = v.grade, status = v.status, version = e.version + 1, " +
+                "updated_at = CURRENT_TIMESTAMP FROM (VALUES " + values + ") AS v(id, grade, status, version) " +
+                "WHERE e.id = v.id AND e.version = v.version AND e.deleted_at IS NULL RETURNING e.id";
+    }
+
+    // The row's version moved with the write; inside a unit of work it is put back if the
+    // transaction rolls back, so a retry is not rejected as stale.
+    private static void bumpVersion(Enrollment enrollment) {
+        int version = enrollment.getVersion();
+        enrollment.setVersion(version + 1);
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.onRollback(() -> enrollment.setVersion(version));
+        }
+    }
+
+    private static OptimisticLockException staleVersion(Enrollment enrollment) {
+        return new OptimisticLockException("Enrollment " + enrollment.getId() + " was changed or removed by another user " +
+                "(version " + enrollment.getVersion() + "); reload it and try again");
+    }
+
     private Enrollment mapResultSetToEnrollment(ResultSet rs) throws SQLException {
         Enrollment enrollment = new Enrollment();
         enrollment.setId((UUID) rs.getObject("id"));
@@ -195,6 +549,8 @@ public class EnrollmentDAO {
         enrollment.setEnrollmentDate(rs.getDate("enrollment_date").toLocalDate());
         enrollment.setGrade(rs.getString("grade"));
         enrollment.setStatus(rs.getString("status"));
+        enrollment.setVersion(rs.getInt("version"));
+        enrollment.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
         return enrollment;
     }
 }
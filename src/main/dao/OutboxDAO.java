@@ -0,0 +1,145 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.ChangeEvent;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Reads the outbox written by the write_outbox_event triggers and keeps one delivery offset per
+// sink in outbox_offsets.
+public class OutboxDAO {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDAO.class);
+
+    @FunctionalInterface
+    public interface BatchHandler {
+        void deliver(List<ChangeEvent> events) throws IOException;
+    }
+
+    // Events past the sink's offset whose transaction is older than every transaction still in
+    // progress: anything that commits later sorts after them, so the offset never skips an event.
+    private static final String EVENTS_SQL =
+            "SELECT id, tx_id::text AS tx_id, entity, entity_id, operation, payload::text AS payload, created_at " +
+            "FROM outbox WHERE (tx_id, id) > (?::xid8, ?) AND tx_id < pg_snapshot_xmin(pg_current_snapshot()) " +
+            "ORDER BY tx_id, id LIMIT ?";
+
+    // Reads the next batch for the sink, hands it to the handler and advances the offset in one
+    // transaction; a handler failure leaves the offset where it was, so delivery is at least
+    // once. Returns the number of events delivered, 0 if none are ready or another relay is
+    // serving the same sink.
+    public int deliverBatch(String sink, int limit, BatchHandler handler) throws DatabaseException, IOException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!tryLock(conn, sink)) {
+                    conn.rollback();
+                    return 0;
+                }
+
+                String lastTxId = "0";
+                long lastId = 0;
+                long sequence = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT last_tx_id::text, last_id, sequence FROM outbox_offsets WHERE sink = ?")) {
+                    stmt.setString(1, sink);
+                    ResultSet rs = stmt.executeQuery();
+                    if (rs.next()) {
+                        lastTxId = rs.getString(1);
+                        lastId = rs.getLong(2);
+                        sequence = rs.getLong(3);
+                    }
+                }
+
+                List<ChangeEvent> events = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(EVENTS_SQL)) {
+                    stmt.setString(1, lastTxId);
+                    stmt.setLong(2, lastId);
+                    stmt.setInt(3, limit);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        lastTxId = rs.getString("tx_id");
+                        lastId = rs.getLong("id");
+                        events.add(new ChangeEvent(++sequence, lastId, rs.getString("entity"),
+                                (UUID) rs.getObject("entity_id"), rs.getString("operation"), rs.getString("payload"),
+                                rs.getTimestamp("created_at").toInstant()));
+                    }
+                }
+                if (events.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+
+                handler.deliver(events);
+
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO outbox_offsets (sink, last_tx_id, last_id, sequence, updated_at) " +
+                        "VALUES (?, ?::xid8, ?, ?, now()) ON CONFLICT (sink) DO UPDATE SET last_tx_id = EXCLUDED.last_tx_id, " +
+                        "last_id = EXCLUDED.last_id, sequence = EXCLUDED.sequence, updated_at = now()")) {
+                    stmt.setString(1, sink);
+                    stmt.setString(2, lastTxId);
+                    stmt.setLong(3, lastId);
+                    stmt.setLong(4, sequence);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                return events.size();
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error delivering outbox events: " + e.getMessage());
+            throw new DatabaseException("Failed to deliver outbox events", e);
+        }
+    }
+
+    // Sequence number of the last event delivered to the sink, 0 if none.
+    public long findSequence(String sink) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT sequence FROM outbox_offsets WHERE sink = ?")) {
+
+            stmt.setString(1, sink);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            logger.error("Error finding outbox offset: " + e.getMessage());
+            throw new DatabaseException("Failed to find outbox offset", e);
+        }
+    }
+
+    // Deletes up to limit events that every sink has received and that are older than the
+    // retention period. Returns the number deleted.
+    public int purgeDelivered(int retentionDays, int limit) throws DatabaseException {
+        String sql = "DELETE FROM outbox WHERE id IN (SELECT id FROM outbox " +
+                "WHERE created_at < now() - make_interval(days => ?) " +
+                "AND (tx_id, id) <= (SELECT last_tx_id, last_id FROM outbox_offsets ORDER BY last_tx_id, last_id LIMIT 1) " +
+                "ORDER BY tx_id, id LIMIT ?)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, retentionDays);
+            stmt.setInt(2, limit);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error purging outbox: " + e.getMessage());
+            throw new DatabaseException("Failed to purge outbox", e);
+        }
+    }
+
+    private boolean tryLock(Connection conn, String sink) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT pg_try_advisory_xact_lock(hashtext('sms_outbox'), hashtext(?))")) {
+            stmt.setString(1, sink);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+}
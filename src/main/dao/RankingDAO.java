@@ -0,0 +1,137 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.RankEntry;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Class rankings computed by the database with RANK() window functions, so bulk runs never
+// pull per-student rows into memory to sort them. Ties share a rank (1, 1, 3, ...).
+public class RankingDAO {
+    private static final Logger logger = LoggerFactory.getLogger(RankingDAO.class);
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String ATTENDANCE_RANKED =
+            "WITH stats AS (" +
+            "SELECT e.student_id, e.course_id, COUNT(a.id) AS total, " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'Present') AS present " +
+            "FROM enrollments e LEFT JOIN attendance a ON a.enrollment_id = e.id " +
+            "WHERE e.status <> 'Dropped' AND e.deleted_at IS NULL %s" +
+            "GROUP BY e.id, e.student_id, e.course_id), " +
+            "ranked AS (" +
+            "SELECT student_id, course_id, " +
+            "CASE WHEN total = 0 THEN 0 ELSE present * 100.0 / total END AS value FROM stats) " +
+            "SELECT r.student_id, r.course_id, r.value, " +
+            "RANK() OVER (PARTITION BY r.course_id ORDER BY r.value DESC) AS rank FROM ranked r";
+
+    private static final String GRADE_RANKED =
+            "SELECT e.student_id, e.course_id, grade_points(e.grade) AS value, " +
+            "RANK() OVER (PARTITION BY e.course_id ORDER BY grade_points(e.grade) DESC) AS rank " +
+            "FROM enrollments e WHERE e.status <> 'Dropped' AND e.deleted_at IS NULL AND grade_points(e.grade) IS NOT NULL %s";
+
+    private static final String GPA_RANKED =
+            "SELECT a.student_id, NULL::uuid AS course_id, a.semester, " +
+            "ROUND(a.quality_points / a.graded_credits, 2) AS value, " +
+            "RANK() OVER (PARTITION BY a.semester ORDER BY a.quality_points / a.graded_credits DESC) AS rank " +
+            "FROM student_term_aggregates a WHERE a.graded_credits > 0 %s";
+
+    public List<RankEntry> rankCourseByAttendance(UUID courseId, Integer topK) throws DatabaseException {
+        String sql = courseRanking(String.format(ATTENDANCE_RANKED, "AND e.course_id = ? "), topK);
+        return query(sql, courseId, topK);
+    }
+
+    public List<RankEntry> rankCourseByGrade(UUID courseId, Integer topK) throws DatabaseException {
+        String sql = courseRanking(String.format(GRADE_RANKED, "AND e.course_id = ?"), topK);
+        return query(sql, courseId, topK);
+    }
+
+    public List<RankEntry> rankSemesterByGpa(String semester, Integer topK) throws DatabaseException {
+        String sql = "SELECT r.*, s.student_id AS student_code, s.first_name, s.last_name, " +
+                "NULL AS course_code FROM (" + String.format(GPA_RANKED, "AND a.semester = ?") + ") r " +
+                "JOIN students s ON s.id = r.student_id AND s.deleted_at IS NULL " +
+                (topK != null ? "WHERE r.rank <= ? " : "") +
+                "ORDER BY r.rank, s.student_id";
+        return query(sql, semester, topK);
+    }
+
+    // Attendance ranks for every course in one pass (only the top K of each course when topK is
+    // set), streamed by course code and rank. Returns the number of entries handed out.
+    public int streamAttendanceRanks(Integer topK, Consumer<RankEntry> handler) throws DatabaseException {
+        String sql = courseRanking(String.format(ATTENDANCE_RANKED, ""), topK);
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                if (topK != null) {
+                    stmt.setInt(1, topK);
+                }
+                int count = read(stmt.executeQuery(), handler);
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming attendance ranks: " + e.getMessage());
+            throw new DatabaseException("Failed to read attendance ranks", e);
+        }
+    }
+
+    private static String courseRanking(String ranked, Integer topK) {
+        return "SELECT r.*, s.student_id AS student_code, s.first_name, s.last_name, " +
+                "c.course_code, c.semester FROM (" + ranked + ") r " +
+                "JOIN students s ON s.id = r.student_id " +
+                "JOIN courses c ON c.id = r.course_id " +
+                (topK != null ? "WHERE r.rank <= ? " : "") +
+                "ORDER BY c.course_code, r.rank, s.student_id";
+    }
+
+    private List<RankEntry> query(String sql, Object partition, Integer topK) throws DatabaseException {
+        List<RankEntry> entries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, partition);
+            if (topK != null) {
+                stmt.setInt(2, topK);
+            }
+            read(stmt.executeQuery(), entries::add);
+            return entries;
+        } catch (SQLException e) {
+            logger.error("Error ranking students: " + e.getMessage());
+            throw new DatabaseException("Failed to rank students", e);
+        }
+    }
+
+    private int read(ResultSet rs, Consumer<RankEntry> handler) throws SQLException {
+        int count = 0;
+        while (rs.next()) {
+            handler.accept(mapResultSetToRankEntry(rs));
+            count++;
+        }
+        return count;
+    }
+
+    private RankEntry mapResultSetToRankEntry(ResultSet rs) throws SQLException {
+        return new RankEntry(
+                rs.getInt("rank"),
+                rs.getDouble("value"),
+                (UUID) rs.getObject("student_id"),
+                rs.getString("student_code"),
+                rs.getString("first_name") + " " + rs.getString("last_name"),
+                (UUID) rs.getObject("course_id"),
+                rs.getString("course_code"),
+                rs.getString("semester")
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.Instant;
+
+// Hard-deletes soft-deleted rows in small batches, children first, so that no single statement
+// cascades through a course's whole attendance history. Rows locked by other transactions are
+// skipped, and a batch that cannot get its locks quickly gives up instead of queueing behind
+// them; either way the rows are picked up by a later batch.
+public class SoftDeleteDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeleteDAO.class);
+    private static final String LOCK_TIMEOUT = "1s";
+
+    // Attendance of enrollments deleted before the cutoff.
+    public int purgeAttendance(Instant cutoff, int limit) throws DatabaseException {
+        return purge("attendance", "DELETE FROM attendance WHERE (id, attendance_date) IN (" +
+                "SELECT a.id, a.attendance_date FROM attendance a JOIN enrollments e ON e.id = a.enrollment_id " +
+                "WHERE e.deleted_at < ? LIMIT ? FOR UPDATE OF a SKIP LOCKED)", cutoff, limit);
+    }
+
+    // Enrollments deleted before the cutoff whose attendance is already gone.
+    public int purgeEnrollments(Instant cutoff, int limit) throws DatabaseException {
+        return purge("enrollments", "DELETE FROM enrollments WHERE id IN (" +
+                "SELECT e.id FROM enrollments e WHERE e.deleted_at < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM attendance a WHERE a.enrollment_id = e.id) " +
+                "LIMIT ? FOR UPDATE SKIP LOCKED)", cutoff, limit);
+    }
+
+    // Students deleted before the cutoff that no enrollment refers to any more.
+    public int purgeStudents(Instant cutoff, int limit) throws DatabaseException {
+        return purge("students", "DELETE FROM students WHERE id IN (" +
+                "SELECT s.id FROM students s WHERE s.deleted_at < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM enrollments e WHERE e.student_id = s.id) " +
+                "LIMIT ? FOR UPDATE SKIP LOCKED)", cutoff, limit);
+    }
+
+    // Courses deleted before the cutoff that no enrollment refers to any more.
+    public int purgeCourses(Instant cutoff, int limit) throws DatabaseException {
+        return purge("courses", "DELETE FROM courses WHERE id IN (" +
+                "SELECT c.id FROM courses c WHERE c.deleted_at < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM enrollments e WHERE e.course_id = c.id) " +
+                "LIMIT ? FOR UPDATE SKIP LOCKED)", cutoff, limit);
+    }
+
+    // Number of soft-deleted rows per table still waiting to be purged.
+    public String describeBacklog() throws DatabaseException {
+        String sql = "SELECT (SELECT COUNT(*) FROM students WHERE deleted_at IS NOT NULL), " +
+                "(SELECT COUNT(*) FROM courses WHERE deleted_at IS NOT NULL), " +
+                "(SELECT COUNT(*) FROM enrollments WHERE deleted_at IS NOT NULL)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            rs.next();
+            return "students=" + rs.getLong(1) + " courses=" + rs.getLong(2) + " enrollments=" + rs.getLong(3);
+        } catch (SQLException e) {
+            logger.error("Error counting soft-deleted rows: " + e.getMessage());
+            throw new DatabaseException("Failed to count soft-deleted rows", e);
+        }
+    }
+
+    private int purge(String table, String sql, Instant cutoff, int limit) throws DatabaseException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement timeout = conn.createStatement();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                timeout.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+                stmt.setTimestamp(1, Timestamp.from(cutoff));
+                stmt.setInt(2, limit);
+                int deleted = stmt.executeUpdate();
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                if ("55P03".equals(e.getSQLState())) {
+                    logger.info("Purge of " + table + " skipped a batch: lock not available");
+                    return 0;
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error purging deleted " + table + ": " + e.getMessage());
+            throw new DatabaseException("Failed to purge deleted " + table, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.AttendanceStats;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.UUID;
+
+// Streams one row per non-dropped enrollment (status, grade and attendance counts) for the
+// catalog-wide statistics. Enrollments are split into shards by a hash of their id so several
+// readers can scan the table in parallel without overlapping.
+public class StatisticsDAO {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsDAO.class);
+    private static final int FETCH_SIZE = 1000;
+
+    @FunctionalInterface
+    public interface EnrollmentStatsHandler {
+        void accept(String enrollmentStatus, String grade, AttendanceStats stats);
+    }
+
+    public long streamShard(int shard, int shards, EnrollmentStatsHandler handler) throws DatabaseException {
+        String sql = "SELECT e.id AS enrollment_id, e.student_id, e.course_id, e.status, e.grade, " +
+                "COUNT(a.id) FILTER (WHERE a.status = 'Present') AS present, " +
+                "COUNT(a.id) FILTER (WHERE a.status = 'Late') AS late, " +
+                "COUNT(a.id) FILTER (WHERE a.status = 'Absent') AS absent " +
+                "FROM enrollments e LEFT JOIN attendance a ON a.enrollment_id = e.id " +
+                "WHERE e.status <> 'Dropped' AND e.deleted_at IS NULL AND (hashtext(e.id::text) & 2147483647) % ? = ? " +
+                "GROUP BY e.id";
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                stmt.setInt(1, shards);
+                stmt.setInt(2, shard);
+                ResultSet rs = stmt.executeQuery();
+
+                long count = 0;
+                while (rs.next()) {
+                    AttendanceStats stats = new AttendanceStats((UUID) rs.getObject("enrollment_id"),
+                            (UUID) rs.getObject("student_id"), (UUID) rs.getObject("course_id"),
+                            rs.getInt("present"), rs.getInt("late"), rs.getInt("absent"));
+                    handler.accept(rs.getString("status"), rs.getString("grade"), stats);
+                    count++;
+                }
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming enrollment statistics: " + e.getMessage());
+            throw new DatabaseException("Failed to read enrollment statistics", e);
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package com.sms.dao;
 
 import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.OptimisticLockException;
 import com.sms.exceptions.RecordNotFoundException;
+import com.sms.models.StatusFilter;
 import com.sms.models.Student;
+import com.sms.utils.ChangeNotifier;
 import com.sms.utils.DatabaseConnection;
+import com.sms.utils.UnitOfWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public class StudentDAO {
     private static final Logger logger = LoggerFactory.getLogger(StudentDAO.class);
 
+    static final String FIND_BY_STATUS =
+            "SELECT * FROM students WHERE status = ? AND deleted_at IS NULL ORDER BY enrollment_date DESC";
+
     public void create(Student student) throws DatabaseException {
         String sql = "INSERT INTO students (student_id, first_name, last_name, email, phone, " +
                     "date_of_birth, address, enrollment_date, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
@@ -43,6 +53,7 @@ public class StudentDAO {
                 }
             }
 
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS);
             logger.info("Student created successfully: " + student.getStudentId());
         } catch (SQLException e) {
             logger.error("Error creating student: " + e.getMessage());
@@ -51,7 +62,7 @@ public class StudentDAO {
     }
 
     public Student findById(UUID id) throws DatabaseException, RecordNotFoundException {
-        String sql = "SELECT * FROM students WHERE id = ?";
+        String sql = "SELECT * FROM students WHERE id = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -71,7 +82,7 @@ public class StudentDAO {
     }
 
     public Student findByStudentId(String studentId) throws DatabaseException, RecordNotFoundException {
-        String sql = "SELECT * FROM students WHERE student_id = ?";
+        String sql = "SELECT * FROM students WHERE student_id = ? AND deleted_at IS NULL";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -91,10 +102,10 @@ public class StudentDAO {
     }
 
     public List<Student> findAll() throws DatabaseException {
-        String sql = "SELECT * FROM students ORDER BY enrollment_date DESC";
+        String sql = "SELECT * FROM students WHERE deleted_at IS NULL ORDER BY enrollment_date DESC";
         List<Student> students = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -110,13 +121,38 @@ public class StudentDAO {
         }
     }
 
-    public void update(Student student) throws DatabaseException {
-        String sql = "UPDATE students SET first_name = ?, last_name = ?, email = ?, phone = ?, " +
-                    "date_of_birth = ?, address = ?, status = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    // Students created or updated after the watermark, oldest first.
+    public List<Student> findChangedSince(Instant watermark, int limit) throws DatabaseException {
+        return findChangedSince(watermark, DeltaQueries.MAX_ID, limit);
+    }
+
+    // Continues after the (updated_at, id) position of the last student returned by a previous
+    // call. Reads the primary: a lagging replica would let the watermark pass rows it has not
+    // replayed yet.
+    public List<Student> findChangedSince(Instant watermark, UUID afterId, int limit) throws DatabaseException {
+        List<Student> students = new ArrayList<>();
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(DeltaQueries.changedSince("students"))) {
 
+            DeltaQueries.bindPosition(stmt, watermark, afterId, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                students.add(mapResultSetToStudent(rs));
+            }
+            return students;
+        } catch (SQLException e) {
+            logger.error("Error finding changed students: " + e.getMessage());
+            throw new DatabaseException("Failed to find changed students", e);
+        }
+    }
+
+    public void update(Student student) throws DatabaseException {
+        String sql = "UPDATE students SET first_name = ?, last_name = ?, email = ?, phone = ?, " +
+                    "date_of_birth = ?, address = ?, status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ? AND version = ? AND deleted_at IS NULL";
+
+        UnitOfWork.StatementBinder binder = stmt -> {
             stmt.setString(1, student.getFirstName());
             stmt.setString(2, student.getLastName());
             stmt.setString(3, student.getEmail());
@@ -125,12 +161,28 @@ public class StudentDAO {
             stmt.setString(6, student.getAddress());
             stmt.setString(7, student.getStatus());
             stmt.setObject(8, student.getId());
+            stmt.setInt(9, student.getVersion());
+        };
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.registerDirty("students:" + student.getId(), sql, binder,
+                    () -> bumpVersion(student), () -> staleVersion(student));
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS);
+            return;
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            binder.bind(stmt);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new DatabaseException("Updating student failed, no rows affected");
+                throw staleVersion(student);
             }
+            bumpVersion(student);
 
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS);
             logger.info("Student updated successfully: " + student.getStudentId());
         } catch (SQLException e) {
             logger.error("Error updating student: " + e.getMessage());
@@ -138,19 +190,27 @@ public class StudentDAO {
         }
     }
 
+    // Soft delete: marks the student and their enrollments deleted in one statement. Attendance
+    // and the rows themselves are removed later, in small batches, by SoftDeletePurger.
     public void delete(UUID id) throws DatabaseException {
-        String sql = "DELETE FROM students WHERE id = ?";
+        String sql = "WITH deleted AS (UPDATE students SET deleted_at = now(), version = version + 1 " +
+                    "WHERE id = ? AND deleted_at IS NULL RETURNING id), " +
+                    "enrollments_deleted AS (UPDATE enrollments SET deleted_at = now(), version = version + 1 " +
+                    "WHERE student_id IN (SELECT id FROM deleted) AND deleted_at IS NULL) " +
+                    "SELECT COUNT(*) FROM deleted";
 
         try (Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setObject(1, id);
-            int affectedRows = stmt.executeUpdate();
+            ResultSet rs = stmt.executeQuery();
 
-            if (affectedRows == 0) {
+            if (!rs.next() || rs.getInt(1) == 0) {
                 throw new DatabaseException("Deleting student failed, no rows affected");
             }
 
+            // Their attendance is hidden with the enrollments.
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS, ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
             logger.info("Student deleted successfully with id: " + id);
         } catch (SQLException e) {
             logger.error("Error deleting student: " + e.getMessage());
@@ -159,10 +219,10 @@ public class StudentDAO {
     }
 
     public List<Student> findByStatus(String status) throws DatabaseException {
-        String sql = "SELECT * FROM students WHERE status = ? ORDER BY enrollment_date DESC";
+        String sql = FIND_BY_STATUS;
         List<Student> students = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, status);
@@ -179,6 +239,157 @@ public class StudentDAO {
         }
     }
 
+    public List<Student> findByStudentIds(Collection<String> studentIds) throws DatabaseException {
+        String sql = "SELECT * FROM students WHERE student_id = ANY(?) AND deleted_at IS NULL";
+        List<Student> students = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("text", studentIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                students.add(mapResultSetToStudent(rs));
+            }
+
+            return students;
+        } catch (SQLException e) {
+            logger.error("Error finding students by student_ids: " + e.getMessage());
+            throw new DatabaseException("Failed to find students", e);
+        }
+    }
+
+    public List<Student> findByIds(Collection<UUID> ids) throws DatabaseException {
+        String sql = "SELECT * FROM students WHERE id = ANY(?) AND deleted_at IS NULL";
+        List<Student> students = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setArray(1, conn.createArrayOf("uuid", ids.toArray()));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                students.add(mapResultSetToStudent(rs));
+            }
+
+            return students;
+        } catch (SQLException e) {
+            logger.error("Error finding students by ids: " + e.getMessage());
+            throw new DatabaseException("Failed to find students", e);
+        }
+    }
+
+    public void updateStatusBatch(List<Student> students) throws DatabaseException {
+        String sql = "UPDATE students SET status = ?, version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ? AND version = ? AND deleted_at IS NULL";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Student student : students) {
+                    stmt.setString(1, student.getStatus());
+                    stmt.setObject(2, student.getId());
+                    stmt.setInt(3, student.getVersion());
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        conn.rollback();
+                        throw staleVersion(students.get(i));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+            for (Student student : students) {
+                bumpVersion(student);
+            }
+
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS);
+            logger.info("Updated status for " + students.size() + " students");
+        } catch (SQLException e) {
+            logger.error("Error updating student statuses: " + e.getMessage());
+            throw new DatabaseException("Failed to update student statuses", e);
+        }
+    }
+
+    // Moves every student matching the filter to newStatus with one UPDATE, recording the old
+    // and new status of each changed row in status_audit under batchId. The self-join exposes
+    // the pre-update status to RETURNING. Returns the number of students changed.
+    public int transitionStatus(StatusFilter filter, String newStatus, UUID batchId) throws DatabaseException {
+        StringBuilder where = new StringBuilder("s.deleted_at IS NULL AND s.status IS DISTINCT FROM ?");
+        List<Object> params = new ArrayList<>();
+        params.add(newStatus);
+        if (filter.getEnrollmentYear() != null) {
+            where.append(" AND s.enrollment_date >= ? AND s.enrollment_date < ?");
+            params.add(Date.valueOf(LocalDate.of(filter.getEnrollmentYear(), 1, 1)));
+            params.add(Date.valueOf(LocalDate.of(filter.getEnrollmentYear() + 1, 1, 1)));
+        }
+        if (filter.getStatus() != null) {
+            where.append(" AND s.status = ?");
+            params.add(filter.getStatus());
+        }
+        if (filter.getCourseId() != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM enrollments e WHERE e.student_id = s.id AND e.course_id = ? AND e.deleted_at IS NULL)");
+            params.add(filter.getCourseId());
+        }
+        if (filter.getSemester() != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM enrollments e JOIN courses c ON c.id = e.course_id " +
+                    "WHERE e.student_id = s.id AND c.semester = ? AND e.deleted_at IS NULL)");
+            params.add(filter.getSemester());
+        }
+
+        String sql = "WITH changed AS (" +
+                    "UPDATE students s SET status = ?, version = s.version + 1, updated_at = CURRENT_TIMESTAMP " +
+                    "FROM students old WHERE old.id = s.id AND " + where +
+                    " RETURNING s.id, old.status AS old_status), " +
+                    "audit AS (INSERT INTO status_audit (entity, entity_id, old_status, new_status, batch_id) " +
+                    "SELECT 'student', id, old_status, ?, ? FROM changed) " +
+                    "SELECT COUNT(*) AS count FROM changed";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            stmt.setString(index++, newStatus);
+            for (Object param : params) {
+                stmt.setObject(index++, param);
+            }
+            stmt.setString(index++, newStatus);
+            stmt.setObject(index, batchId);
+            ResultSet rs = stmt.executeQuery();
+
+            int count = rs.next() ? rs.getInt("count") : 0;
+            ChangeNotifier.changed(ChangeNotifier.STUDENTS);
+            logger.info("Moved " + count + " students to " + newStatus + " (batch " + batchId + ", " + filter + ")");
+            return count;
+        } catch (SQLException e) {
+            logger.error("Error transitioning student statuses: " + e.getMessage());
+            throw new DatabaseException("Failed to update student statuses", e);
+        }
+    }
+
+    // The row's version moved with the write; inside a unit of work it is put back if the
+    // transaction rolls back, so a retry is not rejected as stale.
+    private static void bumpVersion(Student student) {
+        int version = student.getVersion();
+        student.setVersion(version + 1);
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.onRollback(() -> student.setVersion(version));
+        }
+    }
+
+    private static OptimisticLockException staleVersion(Student student) {
+        return new OptimisticLockException("Student " + student.getStudentId() + " was changed or removed by another user " +
+                "(version " + student.getVersion() + "); reload it and try again");
+    }
+
     private Student mapResultSetToStudent(ResultSet rs) throws SQLException {
         Student student = new Student();
         student.setId((UUID) rs.getObject("id"));
@@ -191,6 +402,8 @@ public class StudentDAO {
         student.setAddress(rs.getString("address"));
         student.setEnrollmentDate(rs.getDate("enrollment_date").toLocalDate());
         student.setStatus(rs.getString("status"));
+        student.setVersion(rs.getInt("version"));
+        student.setUpdatedAt(rs.getTimestamp("updated_at").toInstant());
         return student;
     }
 }
@@ -0,0 +1,62 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.Tombstone;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Reads the tombstones written by the record_tombstone triggers.
+public class TombstoneDAO {
+    private static final Logger logger = LoggerFactory.getLogger(TombstoneDAO.class);
+
+    // Deletes of the entity after the (deleted_at, entity_id) position, oldest first, bounded by
+    // the same horizon as findChangedSince.
+    public List<Tombstone> findSince(String entity, Instant watermark, UUID afterId, int limit) throws DatabaseException {
+        String sql = DeltaQueries.HORIZON + "SELECT entity_id, deleted_at FROM tombstones, horizon " +
+                "WHERE entity = ? AND (deleted_at, entity_id) > (?, ?) AND deleted_at < horizon.t " +
+                "ORDER BY deleted_at, entity_id LIMIT ?";
+        List<Tombstone> tombstones = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, entity);
+            stmt.setTimestamp(2, Timestamp.from(watermark));
+            stmt.setObject(3, afterId);
+            stmt.setInt(4, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                tombstones.add(new Tombstone(entity, (UUID) rs.getObject("entity_id"),
+                        rs.getTimestamp("deleted_at").toInstant()));
+            }
+            return tombstones;
+        } catch (SQLException e) {
+            logger.error("Error finding tombstones: " + e.getMessage());
+            throw new DatabaseException("Failed to find tombstones", e);
+        }
+    }
+
+    // Deletes up to limit tombstones older than the cutoff. Returns the number deleted.
+    public int purgeBefore(Instant cutoff, int limit) throws DatabaseException {
+        String sql = "DELETE FROM tombstones WHERE (entity, entity_id) IN " +
+                "(SELECT entity, entity_id FROM tombstones WHERE deleted_at < ? LIMIT ?)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.from(cutoff));
+            stmt.setInt(2, limit);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Error purging tombstones: " + e.getMessage());
+            throw new DatabaseException("Failed to purge tombstones", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.sms.dao;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.RecordNotFoundException;
+import com.sms.models.*;
+import com.sms.utils.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Reads transcripts from enrollments joined with the per-term aggregates maintained by the
+// student_term_aggregates triggers, so GPA and credit totals are never recomputed here.
+public class TranscriptDAO {
+    private static final Logger logger = LoggerFactory.getLogger(TranscriptDAO.class);
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String TRANSCRIPT_SELECT =
+            "SELECT s.id AS student_uuid, s.student_id, s.first_name, s.last_name, s.email, s.status AS student_status, " +
+            "e.id AS enrollment_id, e.course_id, e.enrollment_date, e.grade, e.status AS enrollment_status, " +
+            "c.course_code, c.course_name, c.credits, COALESCE(c.semester, '') AS semester, " +
+            "a.graded_credits, a.quality_points, a.earned_credits " +
+            "FROM students s " +
+            "LEFT JOIN enrollments e ON e.student_id = s.id AND e.deleted_at IS NULL " +
+            "LEFT JOIN courses c ON c.id = e.course_id " +
+            "LEFT JOIN student_term_aggregates a ON a.student_id = s.id AND a.semester = COALESCE(c.semester, '') ";
+
+    public Transcript findByStudentId(UUID studentId) throws DatabaseException, RecordNotFoundException {
+        String sql = TRANSCRIPT_SELECT + "WHERE s.id = ? AND s.deleted_at IS NULL ORDER BY semester, c.course_code";
+        List<Transcript> transcripts = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, studentId);
+            readTranscripts(stmt.executeQuery(), transcripts::add);
+        } catch (SQLException e) {
+            logger.error("Error finding transcript: " + e.getMessage());
+            throw new DatabaseException("Failed to find transcript", e);
+        }
+
+        if (transcripts.isEmpty()) {
+            throw new RecordNotFoundException("Student not found with id: " + studentId);
+        }
+        return transcripts.get(0);
+    }
+
+    // Streams every transcript (optionally only students with the given status) to the handler
+    // in student_id order, one student at a time, using a server-side cursor. Returns the count.
+    public int streamAll(String studentStatus, Consumer<Transcript> handler) throws DatabaseException {
+        String sql = TRANSCRIPT_SELECT + "WHERE s.deleted_at IS NULL " + (studentStatus != null ? "AND s.status = ? " : "") +
+                "ORDER BY s.student_id, semester, c.course_code";
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection()) {
+            // The driver only honours fetchSize (and so only streams) inside a transaction.
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                if (studentStatus != null) {
+                    stmt.setString(1, studentStatus);
+                }
+                int count = readTranscripts(stmt.executeQuery(), handler);
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Error streaming transcripts: " + e.getMessage());
+            throw new DatabaseException("Failed to read transcripts", e);
+        }
+    }
+
+    public List<TermSummary> findTermSummaries(UUID studentId) throws DatabaseException {
+        String sql = "SELECT * FROM student_term_aggregates WHERE student_id = ? ORDER BY semester";
+        List<TermSummary> terms = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setObject(1, studentId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                terms.add(new TermSummary(rs.getString("semester"), rs.getInt("graded_credits"),
+                        rs.getDouble("quality_points"), rs.getInt("earned_credits")));
+            }
+
+            return terms;
+        } catch (SQLException e) {
+            logger.error("Error finding term summaries: " + e.getMessage());
+            throw new DatabaseException("Failed to find term summaries", e);
+        }
+    }
+
+    private int readTranscripts(ResultSet rs, Consumer<Transcript> handler) throws SQLException {
+        int count = 0;
+        Transcript current = null;
+        TermSummary term = null;
+
+        while (rs.next()) {
+            UUID studentId = (UUID) rs.getObject("student_uuid");
+            if (current == null || !current.getStudent().getId().equals(studentId)) {
+                if (current != null) {
+                    handler.accept(current);
+                    count++;
+                }
+                current = new Transcript(mapStudent(rs));
+                term = null;
+            }
+
+            UUID enrollmentId = (UUID) rs.getObject("enrollment_id");
+            if (enrollmentId == null) {
+                continue;
+            }
+            String semester = rs.getString("semester");
+            if (term == null || !term.getSemester().equals(semester)) {
+                term = new TermSummary(semester, rs.getInt("graded_credits"),
+                        rs.getDouble("quality_points"), rs.getInt("earned_credits"));
+                current.getTerms().add(term);
+            }
+            term.getEnrollments().add(mapEnrollment(rs, current.getStudent()));
+        }
+
+        if (current != null) {
+            handler.accept(current);
+            count++;
+        }
+        return count;
+    }
+
+    private Student mapStudent(ResultSet rs) throws SQLException {
+        Student student = new Student();
+        student.setId((UUID) rs.getObject("student_uuid"));
+        student.setStudentId(rs.getString("student_id"));
+        student.setFirstName(rs.getString("first_name"));
+        student.setLastName(rs.getString("last_name"));
+        student.setEmail(rs.getString("email"));
+        student.setStatus(rs.getString("student_status"));
+        return student;
+    }
+
+    private Enrollment mapEnrollment(ResultSet rs, Student student) throws SQLException {
+        Course course = new Course();
+        course.setId((UUID) rs.getObject("course_id"));
+        course.setCourseCode(rs.getString("course_code"));
+        course.setCourseName(rs.getString("course_name"));
+        course.setCredits(rs.getInt("credits"));
+        course.setSemester(rs.getString("semester"));
+
+        Enrollment enrollment = new Enrollment();
+        enrollment.setId((UUID) rs.getObject("enrollment_id"));
+        enrollment.setStudentId(student.getId());
+        enrollment.setCourseId(course.getId());
+        enrollment.setEnrollmentDate(rs.getDate("enrollment_date").toLocalDate());
+        enrollment.setGrade(rs.getString("grade"));
+        enrollment.setStatus(rs.getString("enrollment_status"));
+        enrollment.setStudent(student);
+        enrollment.setCourse(course);
+        return enrollment;
+    }
+}
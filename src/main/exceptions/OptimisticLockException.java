@@ -0,0 +1,7 @@
+package com.sms.exceptions;
+
+public class OptimisticLockException extends DatabaseException {
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+}
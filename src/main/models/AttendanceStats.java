@@ -0,0 +1,88 @@
+package com.sms.models;
+
+import java.util.UUID;
+
+public class AttendanceStats {
+    // Below this percentage (with at least one recorded session) a student is at risk.
+    public static final double AT_RISK_THRESHOLD = 75.0;
+
+    private final UUID enrollmentId;
+    private final UUID studentId;
+    private final UUID courseId;
+    private final int present;
+    private final int late;
+    private final int absent;
+
+    public AttendanceStats(UUID enrollmentId, UUID studentId, UUID courseId, int present, int late, int absent) {
+        this.enrollmentId = enrollmentId;
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.present = present;
+        this.late = late;
+        this.absent = absent;
+    }
+
+    public UUID getEnrollmentId() {
+        return enrollmentId;
+    }
+
+    public UUID getStudentId() {
+        return studentId;
+    }
+
+    public UUID getCourseId() {
+        return courseId;
+    }
+
+    public int getPresent() {
+        return present;
+    }
+
+    public int getLate() {
+        return late;
+    }
+
+    public int getAbsent() {
+        return absent;
+    }
+
+    public int getTotal() {
+        return present + late + absent;
+    }
+
+    // Same definition as AttendanceDAO.getAttendancePercentage: only Present counts.
+    public double getPercentage() {
+        int total = getTotal();
+        return total == 0 ? 0.0 : (present * 100.0) / total;
+    }
+
+    // Counts after one mark changes from previousStatus to newStatus; either may be null for a
+    // mark that is being added or removed.
+    public AttendanceStats adjust(String previousStatus, String newStatus) {
+        int[] counts = {present, late, absent};
+        shift(counts, previousStatus, -1);
+        shift(counts, newStatus, 1);
+        return new AttendanceStats(enrollmentId, studentId, courseId,
+                Math.max(0, counts[0]), Math.max(0, counts[1]), Math.max(0, counts[2]));
+    }
+
+    private static void shift(int[] counts, String status, int delta) {
+        if ("Present".equals(status)) {
+            counts[0] += delta;
+        } else if ("Late".equals(status)) {
+            counts[1] += delta;
+        } else if ("Absent".equals(status)) {
+            counts[2] += delta;
+        }
+    }
+
+    public boolean isAtRisk() {
+        return getTotal() > 0 && getPercentage() < AT_RISK_THRESHOLD;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AttendanceStats[Enrollment=%s, Present=%d, Late=%d, Absent=%d, %.2f%%]",
+                enrollmentId, present, late, absent, getPercentage());
+    }
+}
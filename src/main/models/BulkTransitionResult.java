@@ -0,0 +1,26 @@
+package com.sms.models;
+
+import java.util.UUID;
+
+public class BulkTransitionResult {
+    private final UUID batchId;
+    private final int rowsAffected;
+
+    public BulkTransitionResult(UUID batchId, int rowsAffected) {
+        this.batchId = batchId;
+        this.rowsAffected = rowsAffected;
+    }
+
+    public UUID getBatchId() {
+        return batchId;
+    }
+
+    public int getRowsAffected() {
+        return rowsAffected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkTransition[Batch=%s, Rows=%d]", batchId, rowsAffected);
+    }
+}
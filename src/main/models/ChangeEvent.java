@@ -0,0 +1,68 @@
+package com.sms.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One committed insert, update or delete read from the outbox. The sequence number is assigned
+// per sink by the relay and increases by one per event delivered to that sink.
+public class ChangeEvent {
+    private final long sequence;
+    private final long outboxId;
+    private final String entity;
+    private final UUID entityId;
+    private final String operation;
+    private final String payload;
+    private final Instant occurredAt;
+
+    public ChangeEvent(long sequence, long outboxId, String entity, UUID entityId, String operation, String payload,
+                       Instant occurredAt) {
+        this.sequence = sequence;
+        this.outboxId = outboxId;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.payload = payload;
+        this.occurredAt = occurredAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getOutboxId() {
+        return outboxId;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public UUID getEntityId() {
+        return entityId;
+    }
+
+    // "create", "update" or "delete"
+    public String getOperation() {
+        return operation;
+    }
+
+    // The row as JSON after the change, or before it for a delete.
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    // One line of JSON; the payload is embedded as-is.
+    public String toJson() {
+        return "{\"sequence\":" + sequence + ",\"entity\":\"" + entity + "\",\"entityId\":\"" + entityId
+                + "\",\"operation\":\"" + operation + "\",\"occurredAt\":\"" + occurredAt + "\",\"payload\":" + payload + "}";
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + operation + " " + entity + " " + entityId;
+    }
+}
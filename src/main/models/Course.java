@@ -1,5 +1,6 @@
 package com.sms.models;
 
+import java.time.Instant;
 import java.util.UUID;
 
 public class Course {
@@ -11,6 +12,8 @@ public class Course {
     private String instructor;
     private String semester;
     private int maxCapacity;
+    private int version;
+    private Instant updatedAt;
 
     public Course() {}
 
@@ -89,6 +92,22 @@ public class Course {
         this.maxCapacity = maxCapacity;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     @Override
     public String toString() {
         return String.format("Course[Code=%s, Name=%s, Credits=%d, Instructor=%s]",
@@ -0,0 +1,118 @@
+package com.sms.models;
+
+import com.sms.utils.QuantileSketch;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Per-course grade distribution, attendance percentiles and at-risk count. Memory per course
+// is fixed (a quantile sketch plus one counter per grade); partial results for the same
+// course from different shards are combined with merge().
+public class CourseStatistics {
+    public static final List<String> GRADES = Collections.unmodifiableList(
+            Arrays.asList("A+", "A", "A-", "B+", "B", "B-", "C+", "C", "C-", "D", "F"));
+
+    private final UUID courseId;
+    private String courseCode;
+    private String courseName;
+    private int maxCapacity;
+    private long enrolled;
+    private long completed;
+    private long atRisk;
+    private long ungraded;
+    private final Map<String, Long> gradeCounts = new LinkedHashMap<>();
+    private final QuantileSketch attendance = new QuantileSketch();
+
+    public CourseStatistics(UUID courseId) {
+        this.courseId = courseId;
+        for (String grade : GRADES) {
+            gradeCounts.put(grade, 0L);
+        }
+    }
+
+    public void record(String enrollmentStatus, String grade, AttendanceStats stats) {
+        if ("Completed".equals(enrollmentStatus)) {
+            completed++;
+        } else {
+            enrolled++;
+        }
+        if (grade != null && gradeCounts.containsKey(grade)) {
+            gradeCounts.merge(grade, 1L, Long::sum);
+        } else {
+            ungraded++;
+        }
+        // Enrollments with no sessions yet say nothing about attendance.
+        if (stats.getTotal() > 0) {
+            attendance.update(stats.getPercentage());
+        }
+        if (stats.isAtRisk()) {
+            atRisk++;
+        }
+    }
+
+    public void merge(CourseStatistics other) {
+        enrolled += other.enrolled;
+        completed += other.completed;
+        atRisk += other.atRisk;
+        ungraded += other.ungraded;
+        for (Map.Entry<String, Long> entry : other.gradeCounts.entrySet()) {
+            gradeCounts.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+        attendance.merge(other.attendance);
+    }
+
+    public void describe(Course course) {
+        this.courseCode = course.getCourseCode();
+        this.courseName = course.getCourseName();
+        this.maxCapacity = course.getMaxCapacity();
+    }
+
+    // NaN when no attendance has been recorded for the course.
+    public double getAttendancePercentile(double q) {
+        return attendance.quantile(q);
+    }
+
+    public UUID getCourseId() {
+        return courseId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public long getEnrolled() {
+        return enrolled;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getAtRisk() {
+        return atRisk;
+    }
+
+    public long getUngraded() {
+        return ungraded;
+    }
+
+    public Map<String, Long> getGradeCounts() {
+        return Collections.unmodifiableMap(gradeCounts);
+    }
+
+    public long getStudentsWithAttendance() {
+        return attendance.getCount();
+    }
+}
@@ -0,0 +1,43 @@
+package com.sms.models;
+
+import java.util.List;
+import java.util.UUID;
+
+// One page of a delta sync: rows to upsert, ids to delete and the token for the next page.
+// When resyncRequired is set the token is too old to resume from (tombstones have been
+// purged) and the client must reload from SyncToken.INITIAL instead.
+public class DeltaPage<T> {
+    private final List<T> changed;
+    private final List<UUID> deleted;
+    private final SyncToken next;
+    private final boolean hasMore;
+    private final boolean resyncRequired;
+
+    public DeltaPage(List<T> changed, List<UUID> deleted, SyncToken next, boolean hasMore, boolean resyncRequired) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.next = next;
+        this.hasMore = hasMore;
+        this.resyncRequired = resyncRequired;
+    }
+
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    public List<UUID> getDeleted() {
+        return deleted;
+    }
+
+    public SyncToken getNext() {
+        return next;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+}
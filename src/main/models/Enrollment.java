@@ -1,5 +1,6 @@
 package com.sms.models;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -10,6 +11,8 @@ public class Enrollment {
     private LocalDate enrollmentDate;
     private String grade;
     private String status;
+    private int version;
+    private Instant updatedAt;
     private Student student;
     private Course course;
 
@@ -70,6 +73,22 @@ public class Enrollment {
         this.status = status;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public Student getStudent() {
         return student;
     }
@@ -0,0 +1,37 @@
+package com.sms.models;
+
+public class GradeEntry {
+    private final String studentId;
+    private final String courseCode;
+    private final String grade;
+    private final boolean complete;
+
+    public GradeEntry(String studentId, String courseCode, String grade, boolean complete) {
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.grade = grade;
+        this.complete = complete;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public String getGrade() {
+        return grade;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GradeEntry[Student=%s, Course=%s, Grade=%s%s]",
+                studentId, courseCode, grade, complete ? ", Completed" : "");
+    }
+}
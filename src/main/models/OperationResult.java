@@ -0,0 +1,36 @@
+package com.sms.models;
+
+public class OperationResult {
+    private final boolean success;
+    private final String message;
+
+    private OperationResult(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    public static OperationResult success() {
+        return new OperationResult(true, "OK");
+    }
+
+    public static OperationResult success(String message) {
+        return new OperationResult(true, message);
+    }
+
+    public static OperationResult failure(String message) {
+        return new OperationResult(false, message);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return (success ? "OK" : "FAILED") + (message != null && !message.equals("OK") ? ": " + message : "");
+    }
+}
@@ -0,0 +1,65 @@
+package com.sms.models;
+
+import java.util.UUID;
+
+public class RankEntry {
+    private final int rank;
+    private final double value;
+    private final UUID studentId;
+    private final String studentCode;
+    private final String studentName;
+    private final UUID courseId;
+    private final String courseCode;
+    private final String semester;
+
+    public RankEntry(int rank, double value, UUID studentId, String studentCode, String studentName,
+                     UUID courseId, String courseCode, String semester) {
+        this.rank = rank;
+        this.value = value;
+        this.studentId = studentId;
+        this.studentCode = studentCode;
+        this.studentName = studentName;
+        this.courseId = courseId;
+        this.courseCode = courseCode;
+        this.semester = semester;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public UUID getStudentId() {
+        return studentId;
+    }
+
+    public String getStudentCode() {
+        return studentCode;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    // Null for semester-wide rankings.
+    public UUID getCourseId() {
+        return courseId;
+    }
+
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    public String getSemester() {
+        return semester;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s (%.2f)%s", rank, studentCode, studentName, value,
+                courseCode != null ? " in " + courseCode : semester != null ? " in " + semester : "");
+    }
+}
@@ -0,0 +1,63 @@
+package com.sms.models;
+
+import java.util.UUID;
+
+// Selects the rows a bulk status transition applies to. Unset criteria are ignored; set
+// criteria are combined with AND. studentStatus only applies to enrollment transitions.
+public class StatusFilter {
+    private Integer enrollmentYear;
+    private String status;
+    private UUID courseId;
+    private String semester;
+    private String studentStatus;
+
+    public Integer getEnrollmentYear() {
+        return enrollmentYear;
+    }
+
+    public void setEnrollmentYear(Integer enrollmentYear) {
+        this.enrollmentYear = enrollmentYear;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public UUID getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(UUID courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getSemester() {
+        return semester;
+    }
+
+    public void setSemester(String semester) {
+        this.semester = semester;
+    }
+
+    public String getStudentStatus() {
+        return studentStatus;
+    }
+
+    public void setStudentStatus(String studentStatus) {
+        this.studentStatus = studentStatus;
+    }
+
+    public boolean isEmpty() {
+        return enrollmentYear == null && status == null && courseId == null && semester == null && studentStatus == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StatusFilter[Year=%s, Status=%s, Course=%s, Semester=%s, StudentStatus=%s]",
+                enrollmentYear, status, courseId, semester, studentStatus);
+    }
+}
@@ -1,5 +1,6 @@
 package com.sms.models;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -14,6 +15,8 @@ public class Student {
     private String address;
     private LocalDate enrollmentDate;
     private String status;
+    private int version;
+    private Instant updatedAt;
 
     public Student() {}
 
@@ -110,6 +113,22 @@ public class Student {
         this.status = status;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     @Override
     public String toString() {
         return String.format("Student[ID=%s, Name=%s %s, Email=%s, Status=%s]",
@@ -0,0 +1,42 @@
+package com.sms.models;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// A student with their enrollments, per-enrollment attendance percentage and cumulative GPA,
+// as assembled by AsyncServices.getStudentSummary.
+public class StudentSummary {
+    private final Student student;
+    private final List<Enrollment> enrollments;
+    private final Map<UUID, Double> attendanceByEnrollment;
+    private final double cumulativeGpa;
+
+    public StudentSummary(Student student, List<Enrollment> enrollments, Map<UUID, Double> attendanceByEnrollment,
+                          double cumulativeGpa) {
+        this.student = student;
+        this.enrollments = enrollments;
+        this.attendanceByEnrollment = attendanceByEnrollment;
+        this.cumulativeGpa = cumulativeGpa;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public List<Enrollment> getEnrollments() {
+        return enrollments;
+    }
+
+    public double getAttendancePercentage(UUID enrollmentId) {
+        return attendanceByEnrollment.getOrDefault(enrollmentId, 0.0);
+    }
+
+    public Map<UUID, Double> getAttendanceByEnrollment() {
+        return attendanceByEnrollment;
+    }
+
+    public double getCumulativeGpa() {
+        return cumulativeGpa;
+    }
+}
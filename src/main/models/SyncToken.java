@@ -0,0 +1,57 @@
+package com.sms.models;
+
+import com.sms.exceptions.ValidationException;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+// Position in a delta sync: the timestamp and id of the last change the client has applied.
+// Clients treat the encoded form as opaque and hand it back to get the next page.
+public class SyncToken {
+    public static final SyncToken INITIAL = new SyncToken(Instant.EPOCH, new UUID(0L, 0L));
+
+    private final Instant watermark;
+    private final UUID afterId;
+
+    public SyncToken(Instant watermark, UUID afterId) {
+        this.watermark = watermark;
+        this.afterId = afterId;
+    }
+
+    public static SyncToken parse(String token) throws ValidationException {
+        if (token == null || token.isEmpty()) {
+            return INITIAL;
+        }
+        int slash = token.indexOf('/');
+        try {
+            if (slash < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new SyncToken(Instant.parse(token.substring(0, slash)), UUID.fromString(token.substring(slash + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new ValidationException("Invalid sync token: " + token);
+        }
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    public UUID getAfterId() {
+        return afterId;
+    }
+
+    public boolean isInitial() {
+        return watermark.equals(INITIAL.watermark) && afterId.equals(INITIAL.afterId);
+    }
+
+    public String encode() {
+        return watermark + "/" + afterId;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,48 @@
+package com.sms.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TermSummary {
+    private final String semester;
+    private final int gradedCredits;
+    private final double qualityPoints;
+    private final int earnedCredits;
+    private final List<Enrollment> enrollments = new ArrayList<>();
+
+    public TermSummary(String semester, int gradedCredits, double qualityPoints, int earnedCredits) {
+        this.semester = semester;
+        this.gradedCredits = gradedCredits;
+        this.qualityPoints = qualityPoints;
+        this.earnedCredits = earnedCredits;
+    }
+
+    public String getSemester() {
+        return semester;
+    }
+
+    public int getGradedCredits() {
+        return gradedCredits;
+    }
+
+    public double getQualityPoints() {
+        return qualityPoints;
+    }
+
+    public int getEarnedCredits() {
+        return earnedCredits;
+    }
+
+    public double getGpa() {
+        return gradedCredits == 0 ? 0.0 : qualityPoints / gradedCredits;
+    }
+
+    public List<Enrollment> getEnrollments() {
+        return enrollments;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Term[%s, GPA=%.2f, Credits=%d/%d]", semester, getGpa(), earnedCredits, gradedCredits);
+    }
+}
@@ -0,0 +1,34 @@
+package com.sms.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Marks a deleted student, course or enrollment so that delta sync can remove it from mirrors.
+public class Tombstone {
+    private final String entity;
+    private final UUID entityId;
+    private final Instant deletedAt;
+
+    public Tombstone(String entity, UUID entityId, Instant deletedAt) {
+        this.entity = entity;
+        this.entityId = entityId;
+        this.deletedAt = deletedAt;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public UUID getEntityId() {
+        return entityId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "deleted " + entity + " " + entityId + " at " + deletedAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.sms.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Transcript {
+    private final Student student;
+    private final List<TermSummary> terms = new ArrayList<>();
+
+    public Transcript(Student student) {
+        this.student = student;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public List<TermSummary> getTerms() {
+        return terms;
+    }
+
+    public int getGradedCredits() {
+        int credits = 0;
+        for (TermSummary term : terms) credits += term.getGradedCredits();
+        return credits;
+    }
+
+    public int getEarnedCredits() {
+        int credits = 0;
+        for (TermSummary term : terms) credits += term.getEarnedCredits();
+        return credits;
+    }
+
+    public double getCumulativeGpa() {
+        double points = 0;
+        for (TermSummary term : terms) points += term.getQualityPoints();
+        int graded = getGradedCredits();
+        return graded == 0 ? 0.0 : points / graded;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Transcript[Student=%s, GPA=%.2f, Credits=%d]",
+                student.getStudentId(), getCumulativeGpa(), getEarnedCredits());
+    }
+}
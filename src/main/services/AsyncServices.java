@@ -0,0 +1,271 @@
+package com.sms.services;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.*;
+import com.sms.utils.DatabaseConnection;
+import com.sms.utils.ReplicaRouter;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over StudentService, EnrollmentService and AttendanceService. Each call
+ * runs on the facade's executor and returns a CompletableFuture, so independent lookups can be
+ * started together and joined, e.g. {@link #getStudentSummary(UUID)}.
+ *
+ * Futures fail with the service's own exception (DatabaseException, ValidationException, ...)
+ * and, when a timeout is configured, with TimeoutException once it elapses. Cancelling a future,
+ * or letting it time out, interrupts the task: a call still waiting for a pooled connection
+ * gives up at once, while a statement already on the wire finishes or hits its query timeout.
+ *
+ * The facade is one session for replica routing: a read started after one of its writes
+ * completed is not served by a replica that has yet to replay that write.
+ */
+public class AsyncServices implements AutoCloseable {
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface VoidCall {
+        void call() throws Exception;
+    }
+
+    private final StudentService studentService = new StudentService();
+    private final EnrollmentService enrollmentService = new EnrollmentService();
+    private final AttendanceService attendanceService = new AttendanceService();
+    private final TranscriptService transcriptService = new TranscriptService();
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Duration timeout;
+    private final AtomicLong lastWrite = new AtomicLong();
+
+    // Runs on a private pool with one thread per pooled connection (more would only wait in
+    // borrow()), with no timeout. The project targets Java 11, so there are no virtual threads.
+    public AsyncServices() throws DatabaseException {
+        this(defaultExecutor(), true, null);
+    }
+
+    // Uses the caller's executor, which the caller shuts down. A null timeout means none.
+    public AsyncServices(ExecutorService executor, Duration timeout) {
+        this(executor, false, timeout);
+    }
+
+    private AsyncServices(ExecutorService executor, boolean ownsExecutor, Duration timeout) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.timeout = timeout;
+    }
+
+    public <T> CompletableFuture<T> supply(Call<T> call) {
+        return supply(call, timeout);
+    }
+
+    public <T> CompletableFuture<T> supply(Call<T> call, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long session = Math.max(ReplicaRouter.currentSession(), lastWrite.get());
+        Future<?> task = executor.submit(() -> {
+            long previous = ReplicaRouter.joinSession(session);
+            try {
+                T value = call.call();
+                lastWrite.accumulateAndGet(ReplicaRouter.currentSession(), Math::max);
+                result.complete(value);
+            } catch (Throwable e) {
+                lastWrite.accumulateAndGet(ReplicaRouter.currentSession(), Math::max);
+                result.completeExceptionally(e);
+            } finally {
+                ReplicaRouter.restoreSession(previous);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled() || error instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return timeout != null ? result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS) : result;
+    }
+
+    public CompletableFuture<Void> run(VoidCall call) {
+        return supply(() -> {
+            call.call();
+            return null;
+        });
+    }
+
+    // Student, enrollments and GPA are fetched concurrently; attendance for each enrollment is
+    // then fetched concurrently as well.
+    public CompletableFuture<StudentSummary> getStudentSummary(UUID studentId) {
+        return summarize(() -> studentService.getStudent(studentId),
+                () -> transcriptService.getCumulativeGpa(studentId),
+                () -> enrollmentService.getStudentEnrollments(studentId),
+                enrollmentId -> () -> attendanceService.getAttendancePercentage(enrollmentId));
+    }
+
+    // The composition behind getStudentSummary, with the lookups passed in.
+    CompletableFuture<StudentSummary> summarize(Call<Student> studentCall, Call<Double> gpaCall,
+                                                Call<List<Enrollment>> enrollmentsCall,
+                                                Function<UUID, Call<Double>> attendanceCall) {
+        CompletableFuture<Student> student = supply(studentCall);
+        CompletableFuture<Double> gpa = supply(gpaCall);
+        CompletableFuture<List<Enrollment>> enrollments = supply(enrollmentsCall);
+        List<CompletableFuture<?>> parts = new CopyOnWriteArrayList<>(Arrays.asList(student, gpa, enrollments));
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<Map<UUID, Double>> attendance = enrollments.thenCompose(list -> {
+            Map<UUID, CompletableFuture<Double>> pending = new LinkedHashMap<>();
+            for (Enrollment enrollment : list) {
+                CompletableFuture<Double> percentage = supply(attendanceCall.apply(enrollment.getId()));
+                pending.put(enrollment.getId(), percentage);
+                parts.add(percentage);
+            }
+            // The summary may have given up while these were being started.
+            if (abandoned.get()) {
+                pending.values().forEach(future -> future.cancel(true));
+            }
+            return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+                Map<UUID, Double> percentages = new LinkedHashMap<>();
+                pending.forEach((id, future) -> percentages.put(id, future.join()));
+                return percentages;
+            });
+        });
+        parts.add(attendance);
+
+        CompletableFuture<StudentSummary> summary = CompletableFuture.allOf(student, gpa, attendance, enrollments)
+                .thenApply(done -> new StudentSummary(student.join(), enrollments.join(), attendance.join(), gpa.join()));
+        // Cancelling the summary, or its timeout, cancels the lookups still running, including
+        // the per-enrollment attendance lookups.
+        summary.whenComplete((value, error) -> {
+            if (summary.isCancelled() || error instanceof TimeoutException) {
+                abandoned.set(true);
+                for (CompletableFuture<?> part : parts) {
+                    part.cancel(true);
+                }
+            }
+        });
+        return timeout != null ? summary.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS) : summary;
+    }
+
+    public CompletableFuture<Void> addStudent(Student student) {
+        return run(() -> studentService.addStudent(student));
+    }
+
+    public CompletableFuture<Student> getStudent(UUID id) {
+        return supply(() -> studentService.getStudent(id));
+    }
+
+    public CompletableFuture<Student> getStudentByStudentId(String studentId) {
+        return supply(() -> studentService.getStudentByStudentId(studentId));
+    }
+
+    public CompletableFuture<List<Student>> getAllStudents() {
+        return supply(studentService::getAllStudents);
+    }
+
+    public CompletableFuture<List<Student>> getActiveStudents() {
+        return supply(studentService::getActiveStudents);
+    }
+
+    public CompletableFuture<Void> updateStudent(Student student) {
+        return run(() -> studentService.updateStudent(student));
+    }
+
+    public CompletableFuture<Void> changeStudentStatus(UUID id, String status) {
+        return run(() -> studentService.changeStudentStatus(id, status));
+    }
+
+    public CompletableFuture<Void> deleteStudent(UUID id) {
+        return run(() -> studentService.deleteStudent(id));
+    }
+
+    public CompletableFuture<Void> enrollStudent(UUID studentId, UUID courseId) {
+        return run(() -> enrollmentService.enrollStudent(studentId, courseId));
+    }
+
+    public CompletableFuture<Enrollment> getEnrollment(UUID id) {
+        return supply(() -> enrollmentService.getEnrollment(id));
+    }
+
+    public CompletableFuture<List<Enrollment>> getStudentEnrollments(UUID studentId) {
+        return supply(() -> enrollmentService.getStudentEnrollments(studentId));
+    }
+
+    public CompletableFuture<List<Enrollment>> getCourseEnrollments(UUID courseId) {
+        return supply(() -> enrollmentService.getCourseEnrollments(courseId));
+    }
+
+    public CompletableFuture<Integer> getCourseEnrollmentCount(UUID courseId) {
+        return supply(() -> enrollmentService.getCourseEnrollmentCount(courseId));
+    }
+
+    public CompletableFuture<Void> updateGrade(UUID enrollmentId, String grade) {
+        return run(() -> enrollmentService.updateGrade(enrollmentId, grade));
+    }
+
+    public CompletableFuture<Void> dropEnrollment(UUID enrollmentId) {
+        return run(() -> enrollmentService.dropEnrollment(enrollmentId));
+    }
+
+    public CompletableFuture<Void> completeEnrollment(UUID enrollmentId, String grade) {
+        return run(() -> enrollmentService.completeEnrollment(enrollmentId, grade));
+    }
+
+    public CompletableFuture<Map<UUID, OperationResult>> enrollCohort(UUID courseId, List<UUID> studentIds) {
+        return supply(() -> enrollmentService.enrollCohort(courseId, studentIds));
+    }
+
+    public CompletableFuture<Void> markAttendance(UUID enrollmentId, LocalDate date, String status) {
+        return run(() -> attendanceService.markAttendance(enrollmentId, date, status));
+    }
+
+    public CompletableFuture<List<OperationResult>> markAttendanceBatch(List<Attendance> records) {
+        return supply(() -> attendanceService.markAttendanceBatch(records));
+    }
+
+    public CompletableFuture<Void> updateAttendance(UUID attendanceId, String status, String remarks) {
+        return run(() -> attendanceService.updateAttendance(attendanceId, status, remarks));
+    }
+
+    public CompletableFuture<List<Attendance>> getEnrollmentAttendance(UUID enrollmentId) {
+        return supply(() -> attendanceService.getEnrollmentAttendance(enrollmentId));
+    }
+
+    public CompletableFuture<Double> getAttendancePercentage(UUID enrollmentId) {
+        return supply(() -> attendanceService.getAttendancePercentage(enrollmentId));
+    }
+
+    public CompletableFuture<List<AttendanceStats>> getAtRiskEnrollments() {
+        return supply(attendanceService::getAtRiskEnrollments);
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService defaultExecutor() throws DatabaseException {
+        int threads;
+        try {
+            threads = DatabaseConnection.getInstance().getPool().getMaxSize();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to start async services", e);
+        }
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int next;
+
+            @Override
+            public synchronized Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "async-" + next++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
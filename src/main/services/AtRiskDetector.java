@@ -0,0 +1,210 @@
+package com.sms.services;
+
+import com.sms.dao.AttendanceDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.AttendanceStats;
+import com.sms.models.Enrollment;
+import com.sms.utils.ChangeNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps running Present/Late/Absent counters for every open ("Enrolled") enrollment and the set of
+ * enrollments currently below {@link AttendanceStats#AT_RISK_THRESHOLD}. Counters are seeded
+ * from the database once, then adjusted by AttendanceService after each committed write, so
+ * "who is at risk right now" is a map lookup instead of the full attendance report.
+ *
+ * Listeners are told whenever an enrollment crosses the threshold in either direction.
+ * Shared by every AttendanceService in the process. Attendance or enrollment writes made by
+ * another instance re-read the enrollments their change notice names; a notice that names none
+ * (too many rows, or a reconnect of the change feed) resets the counters.
+ */
+public class AtRiskDetector {
+    private static final Logger logger = LoggerFactory.getLogger(AtRiskDetector.class);
+    private static final AtRiskDetector INSTANCE = new AtRiskDetector(new AttendanceDAO());
+
+    @FunctionalInterface
+    public interface Listener {
+        void onThresholdCrossed(AttendanceStats stats, boolean atRisk);
+    }
+
+    private final AttendanceDAO attendanceDAO;
+    private final Map<UUID, AttendanceStats> counters = new ConcurrentHashMap<>();
+    private final Map<UUID, AttendanceStats> atRisk = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<UUID> touchedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+    private volatile boolean loading;
+
+    AtRiskDetector(AttendanceDAO attendanceDAO) {
+        this.attendanceDAO = attendanceDAO;
+        listeners.add((stats, nowAtRisk) -> logger.info(String.format("Enrollment %s %s at-risk threshold (%.2f%%)",
+                stats.getEnrollmentId(), nowAtRisk ? "fell below" : "recovered above", stats.getPercentage())));
+        ChangeNotifier.addRemoteListener((tables, enrollmentIds) -> {
+            if (tables.contains(ChangeNotifier.ATTENDANCE) || tables.contains(ChangeNotifier.ENROLLMENTS)) {
+                if (enrollmentIds == null) {
+                    reset();
+                } else {
+                    refreshOrReset(enrollmentIds);
+                }
+            }
+        });
+    }
+
+    public static AtRiskDetector getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Seeds the counters with one streaming pass over attendance; later calls are no-ops until
+    // reset(). Writes that commit during the pass are re-read from the database afterwards.
+    public synchronized void load() throws DatabaseException {
+        if (loaded) {
+            return;
+        }
+        loading = true;
+        try {
+            counters.clear();
+            atRisk.clear();
+            attendanceDAO.streamStats("Enrolled", stats -> {
+                counters.put(stats.getEnrollmentId(), stats);
+                if (stats.isAtRisk()) {
+                    atRisk.put(stats.getEnrollmentId(), stats);
+                }
+            });
+            loaded = true;
+        } finally {
+            loading = false;
+        }
+
+        if (!touchedWhileLoading.isEmpty()) {
+            List<UUID> touched = new ArrayList<>(touchedWhileLoading);
+            touchedWhileLoading.removeAll(touched);
+            refresh(touched);
+        }
+        logger.info("At-risk detector loaded " + counters.size() + " enrollments, " + atRisk.size() + " at risk");
+    }
+
+    // Applies one committed mark change; previousStatus is null for a new mark and newStatus is
+    // null for a deleted one.
+    public void recordChange(Enrollment enrollment, String previousStatus, String newStatus) {
+        if (!loaded) {
+            if (loading) {
+                touchedWhileLoading.add(enrollment.getId());
+            }
+            return;
+        }
+        AttendanceStats updated = counters.compute(enrollment.getId(), (id, current) -> {
+            AttendanceStats base = current != null ? current
+                    : new AttendanceStats(id, enrollment.getStudentId(), enrollment.getCourseId(), 0, 0, 0);
+            return base.adjust(previousStatus, newStatus);
+        });
+        track(updated);
+    }
+
+    // For enrollments already tracked; marks on unknown (closed) enrollments are ignored.
+    public void recordChange(UUID enrollmentId, String previousStatus, String newStatus) {
+        if (!loaded) {
+            if (loading) {
+                touchedWhileLoading.add(enrollmentId);
+            }
+            return;
+        }
+        AttendanceStats updated = counters.computeIfPresent(enrollmentId,
+                (id, current) -> current.adjust(previousStatus, newStatus));
+        if (updated != null) {
+            track(updated);
+        }
+    }
+
+    // Re-reads the counters of the given open enrollments, e.g. after a batch write.
+    public void refresh(Collection<UUID> enrollmentIds) throws DatabaseException {
+        if (enrollmentIds.isEmpty()) {
+            return;
+        }
+        if (!loaded) {
+            if (loading) {
+                touchedWhileLoading.addAll(enrollmentIds);
+            }
+            return;
+        }
+        Set<UUID> missing = new HashSet<>(enrollmentIds);
+        for (AttendanceStats stats : attendanceDAO.findOpenStatsByEnrollmentIds(enrollmentIds)) {
+            counters.put(stats.getEnrollmentId(), stats);
+            missing.remove(stats.getEnrollmentId());
+            track(stats);
+        }
+        for (UUID enrollmentId : missing) {
+            forget(enrollmentId);
+        }
+    }
+
+    // For after-commit hooks, which cannot fail: if the re-read fails, fall back to a full reload.
+    public void refreshOrReset(Collection<UUID> enrollmentIds) {
+        try {
+            refresh(enrollmentIds);
+        } catch (DatabaseException e) {
+            logger.warn("At-risk refresh failed, counters will be reloaded: " + e.getMessage());
+            reset();
+        }
+    }
+
+    // Stops tracking an enrollment that was dropped or completed.
+    public void forget(UUID enrollmentId) {
+        counters.remove(enrollmentId);
+        atRisk.remove(enrollmentId);
+    }
+
+    // Discards all counters; the next load() rebuilds them. Used after bulk changes the
+    // detector cannot follow row by row, such as archiving or bulk status transitions.
+    public synchronized void reset() {
+        loaded = false;
+        counters.clear();
+        atRisk.clear();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isAtRisk(UUID enrollmentId) {
+        return atRisk.containsKey(enrollmentId);
+    }
+
+    public int getAtRiskCount() {
+        return atRisk.size();
+    }
+
+    public List<AttendanceStats> getAtRisk() {
+        List<AttendanceStats> result = new ArrayList<>(atRisk.values());
+        result.sort(Comparator.comparingDouble(AttendanceStats::getPercentage));
+        return result;
+    }
+
+    public AttendanceStats getStats(UUID enrollmentId) {
+        return counters.get(enrollmentId);
+    }
+
+    private void track(AttendanceStats stats) {
+        boolean nowAtRisk = stats.isAtRisk();
+        boolean wasAtRisk = nowAtRisk
+                ? atRisk.put(stats.getEnrollmentId(), stats) != null
+                : atRisk.remove(stats.getEnrollmentId()) != null;
+        if (wasAtRisk != nowAtRisk) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.onThresholdCrossed(stats, nowAtRisk);
+                } catch (RuntimeException e) {
+                    logger.warn("At-risk listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sms.services;
+
+import com.sms.dao.AttendancePartitionDAO;
+import com.sms.exceptions.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class AttendanceArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceArchiveService.class);
+    private final AttendancePartitionDAO partitionDAO;
+
+    public AttendanceArchiveService() {
+        this.partitionDAO = new AttendancePartitionDAO();
+    }
+
+    public void ensureUpcomingPartitions(int monthsAhead) throws DatabaseException {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            partitionDAO.ensurePartition(month.plusMonths(i));
+        }
+    }
+
+    // A month is archived once it ends on or before the cutoff and none of its attendance rows
+    // belongs to an enrollment that is still open, i.e. every term it covers has been closed.
+    public List<Path> archiveClosedTerms(LocalDate cutoff, Path archiveDir) throws DatabaseException {
+        List<Path> archived = new ArrayList<>();
+
+        try {
+            Files.createDirectories(archiveDir);
+        } catch (IOException e) {
+            throw new DatabaseException("Cannot create archive directory " + archiveDir, e);
+        }
+
+        for (String partition : partitionDAO.findMonthlyPartitions()) {
+            LocalDate monthEnd = partitionDAO.monthOf(partition).plusMonths(1);
+            if (monthEnd.isAfter(cutoff)) {
+                continue;
+            }
+            if (partitionDAO.hasOpenEnrollments(partition)) {
+                logger.info("Skipping " + partition + ": it still has open enrollments");
+                continue;
+            }
+            archived.add(archivePartition(partition, archiveDir));
+        }
+
+        return archived;
+    }
+
+    private Path archivePartition(String partition, Path archiveDir) throws DatabaseException {
+        Path target = archiveDir.resolve(partition + ".csv.gz");
+        partitionDAO.detach(partition);
+
+        long rows;
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(target))) {
+            rows = partitionDAO.export(partition, out);
+        } catch (IOException | DatabaseException e) {
+            logger.error("Archiving " + partition + " failed, re-attaching: " + e.getMessage());
+            partitionDAO.attach(partition);
+            throw new DatabaseException("Failed to archive " + partition, e);
+        }
+
+        partitionDAO.drop(partition);
+        logger.info("Archived " + rows + " attendance rows from " + partition + " to " + target);
+        return target;
+    }
+}
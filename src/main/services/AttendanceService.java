@@ -6,33 +6,41 @@ import com.sms.exceptions.DatabaseException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.exceptions.ValidationException;
 import com.sms.models.Attendance;
+import com.sms.models.AttendanceStats;
 import com.sms.models.Enrollment;
+import com.sms.models.OperationResult;
+import com.sms.utils.UnitOfWork;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 public class AttendanceService {
     private final AttendanceDAO attendanceDAO;
     private final EnrollmentDAO enrollmentDAO;
+    private final AtRiskDetector atRiskDetector;
 
     public AttendanceService() {
         this.attendanceDAO = new AttendanceDAO();
         this.enrollmentDAO = new EnrollmentDAO();
+        this.atRiskDetector = AtRiskDetector.getInstance();
     }
 
     public void markAttendance(UUID enrollmentId, LocalDate date, String status) throws DatabaseException, RecordNotFoundException, ValidationException {
-        Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
-        if (!enrollment.getStatus().equals("Enrolled")) {
-            throw new ValidationException("Can only mark attendance for enrolled students");
-        }
-
         if (!status.equals("Present") && !status.equals("Absent") && !status.equals("Late")) {
             throw new ValidationException("Status must be Present, Absent, or Late");
         }
 
-        Attendance attendance = new Attendance(enrollmentId, date, status);
-        attendanceDAO.create(attendance);
+        UnitOfWork.execute(() -> {
+            Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
+            if (!enrollment.getStatus().equals("Enrolled")) {
+                throw new ValidationException("Can only mark attendance for enrolled students");
+            }
+
+            Attendance attendance = new Attendance(enrollmentId, date, status);
+            String previousStatus = attendanceDAO.upsert(attendance);
+            UnitOfWork.current().afterCommit(() -> atRiskDetector.recordChange(enrollment, previousStatus, status));
+            return null;
+        });
     }
 
     public Attendance getAttendance(UUID id) throws DatabaseException, RecordNotFoundException {
@@ -52,10 +60,16 @@ public class AttendanceService {
             throw new ValidationException("Status must be Present, Absent, or Late");
         }
 
-        Attendance attendance = attendanceDAO.findById(attendanceId);
-        attendance.setStatus(status);
-        attendance.setRemarks(remarks);
-        attendanceDAO.update(attendance);
+        UnitOfWork.execute(() -> {
+            Attendance attendance = attendanceDAO.findById(attendanceId);
+            String previousStatus = attendance.getStatus();
+            attendance.setStatus(status);
+            attendance.setRemarks(remarks);
+            attendanceDAO.update(attendance);
+            UnitOfWork.current().afterCommit(
+                    () -> atRiskDetector.recordChange(attendance.getEnrollmentId(), previousStatus, status));
+            return null;
+        });
     }
 
     public double getAttendancePercentage(UUID enrollmentId) throws DatabaseException {
@@ -63,6 +77,62 @@ public class AttendanceService {
     }
 
     public void deleteAttendance(UUID id) throws DatabaseException {
-        attendanceDAO.delete(id);
+        Attendance removed = attendanceDAO.delete(id);
+        atRiskDetector.recordChange(removed.getEnrollmentId(), removed.getStatus(), null);
+    }
+
+    // Enrollments currently below the attendance threshold, lowest first. Counters are loaded
+    // on first use and kept current by the writes above.
+    public List<AttendanceStats> getAtRiskEnrollments() throws DatabaseException {
+        atRiskDetector.load();
+        return atRiskDetector.getAtRisk();
+    }
+
+    public boolean isAtRisk(UUID enrollmentId) throws DatabaseException {
+        atRiskDetector.load();
+        return atRiskDetector.isAtRisk(enrollmentId);
+    }
+
+    // Marks are upserts, so re-sending a batch (or a record already marked) overwrites the
+    // earlier mark instead of failing or creating a duplicate.
+    public List<OperationResult> markAttendanceBatch(List<Attendance> records) throws DatabaseException {
+        return UnitOfWork.run(() -> markAttendanceInTransaction(records));
+    }
+
+    private List<OperationResult> markAttendanceInTransaction(List<Attendance> records) throws DatabaseException {
+        Map<UUID, Enrollment> enrollments = new HashMap<>();
+        for (Attendance record : records) {
+            enrollments.put(record.getEnrollmentId(), null);
+        }
+        for (Enrollment enrollment : enrollmentDAO.findByIds(enrollments.keySet())) {
+            enrollments.put(enrollment.getId(), enrollment);
+        }
+
+        List<OperationResult> results = new ArrayList<>();
+        Map<String, Attendance> accepted = new LinkedHashMap<>();
+        for (Attendance record : records) {
+            Enrollment enrollment = enrollments.get(record.getEnrollmentId());
+            String status = record.getStatus();
+            if (enrollment == null) {
+                results.add(OperationResult.failure("Enrollment not found with id: " + record.getEnrollmentId()));
+            } else if (!enrollment.getStatus().equals("Enrolled")) {
+                results.add(OperationResult.failure("Can only mark attendance for enrolled students"));
+            } else if (!"Present".equals(status) && !"Absent".equals(status) && !"Late".equals(status)) {
+                results.add(OperationResult.failure("Status must be Present, Absent, or Late"));
+            } else {
+                results.add(OperationResult.success());
+                accepted.put(record.getEnrollmentId() + ":" + record.getAttendanceDate(), record);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            attendanceDAO.upsertBatch(new ArrayList<>(accepted.values()));
+            Set<UUID> touched = new HashSet<>();
+            for (Attendance record : accepted.values()) {
+                touched.add(record.getEnrollmentId());
+            }
+            UnitOfWork.current().afterCommit(() -> atRiskDetector.refreshOrReset(touched));
+        }
+        return results;
     }
 }
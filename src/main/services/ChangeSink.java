@@ -0,0 +1,121 @@
+package com.sms.services;
+
+import com.sms.models.ChangeEvent;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Destination for change events delivered by {@link OutboxRelay}. A batch counts as delivered
+ * once publish() returns; if it throws, the same events (with the same sequence numbers) are
+ * offered again, so consumers should ignore sequence numbers they have already seen.
+ */
+public interface ChangeSink extends Closeable {
+
+    void publish(List<ChangeEvent> events) throws IOException;
+
+    @Override
+    default void close() throws IOException {}
+
+    // Appends one JSON line per event and syncs the file before the batch is acknowledged.
+    static ChangeSink toFile(Path path) {
+        return new FileSink(path);
+    }
+
+    // Writes JSON lines to a TCP listener, reconnecting after a failure.
+    static ChangeSink toSocket(String host, int port) {
+        return new SocketSink(host, port);
+    }
+
+    // Puts events on the queue, waiting for space if it is bounded.
+    static ChangeSink toQueue(BlockingQueue<ChangeEvent> queue) {
+        return events -> {
+            try {
+                for (ChangeEvent event : events) {
+                    queue.put(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while queueing change events");
+            }
+        };
+    }
+
+    class FileSink implements ChangeSink {
+        private final Path path;
+        private FileOutputStream out;
+
+        FileSink(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public synchronized void publish(List<ChangeEvent> events) throws IOException {
+            if (out == null) {
+                out = new FileOutputStream(path.toFile(), true);
+            }
+            StringBuilder lines = new StringBuilder();
+            for (ChangeEvent event : events) {
+                lines.append(event.toJson()).append('\n');
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            out.getChannel().force(false);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+    }
+
+    class SocketSink implements ChangeSink {
+        private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+        private final String host;
+        private final int port;
+        private Socket socket;
+        private Writer writer;
+
+        SocketSink(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        @Override
+        public synchronized void publish(List<ChangeEvent> events) throws IOException {
+            try {
+                if (socket == null) {
+                    socket = new Socket();
+                    socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                    writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                }
+                for (ChangeEvent event : events) {
+                    writer.write(event.toJson());
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (socket != null) {
+                Socket closing = socket;
+                socket = null;
+                writer = null;
+                closing.close();
+            }
+        }
+    }
+}
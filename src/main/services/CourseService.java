@@ -7,6 +7,7 @@ import com.sms.exceptions.ValidationException;
 import com.sms.models.Course;
 import com.sms.utils.Validator;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -48,9 +49,15 @@ public class CourseService {
 
     public void deleteCourse(UUID id) throws DatabaseException {
         courseDAO.delete(id);
+        // The course's enrollments go with it.
+        AtRiskDetector.getInstance().reset();
     }
 
     public List<Course> getCoursesBySemester(String semester) throws DatabaseException {
         return courseDAO.findBySemester(semester);
     }
+
+    public List<Course> getCoursesByCourseCodes(Collection<String> courseCodes) throws DatabaseException {
+        return courseDAO.findByCourseCodes(courseCodes);
+    }
 }
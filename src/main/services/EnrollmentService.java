@@ -6,66 +6,254 @@ import com.sms.dao.StudentDAO;
 import com.sms.exceptions.DatabaseException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.exceptions.ValidationException;
+import com.sms.models.BulkTransitionResult;
 import com.sms.models.Course;
 import com.sms.models.Enrollment;
+import com.sms.models.OperationResult;
+import com.sms.models.StatusFilter;
 import com.sms.models.Student;
+import com.sms.utils.UnitOfWork;
 import com.sms.utils.Validator;
 
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 public class EnrollmentService {
     private final EnrollmentDAO enrollmentDAO;
     private final StudentDAO studentDAO;
     private final CourseDAO courseDAO;
+    private final AtRiskDetector atRiskDetector;
 
     public EnrollmentService() {
         this.enrollmentDAO = new EnrollmentDAO();
         this.studentDAO = new StudentDAO();
         this.courseDAO = new CourseDAO();
+        this.atRiskDetector = AtRiskDetector.getInstance();
     }
 
+    // The checks and the insert share one transaction, and the course row is locked before the
+    // enrollments are counted, so concurrent enrollments into the course take turns and cannot
+    // both take its last seat.
     public void enrollStudent(UUID studentId, UUID courseId) throws DatabaseException, RecordNotFoundException, ValidationException {
-        Student student = studentDAO.findById(studentId);
-        if (!student.getStatus().equals("Active")) {
-            throw new ValidationException("Only active students can be enrolled");
-        }
+        UnitOfWork.execute(() -> {
+            Student student = studentDAO.findById(studentId);
+            if (!student.getStatus().equals("Active")) {
+                throw new ValidationException("Only active students can be enrolled");
+            }
 
-        Course course = courseDAO.findById(courseId);
-        int currentEnrollments = enrollmentDAO.getEnrollmentCount(courseId);
-        if (currentEnrollments >= course.getMaxCapacity()) {
-            throw new ValidationException("Course has reached maximum capacity");
-        }
+            Course course = courseDAO.findByIdForUpdate(courseId);
+            int currentEnrollments = enrollmentDAO.getEnrollmentCount(courseId);
+            if (currentEnrollments >= course.getMaxCapacity()) {
+                throw new ValidationException("Course has reached maximum capacity");
+            }
 
-        Enrollment enrollment = new Enrollment(studentId, courseId);
-        enrollmentDAO.create(enrollment);
+            Enrollment enrollment = new Enrollment(studentId, courseId);
+            enrollmentDAO.create(enrollment);
+            return null;
+        });
     }
 
     public Enrollment getEnrollment(UUID id) throws DatabaseException, RecordNotFoundException {
-        Enrollment enrollment = enrollmentDAO.findById(id);
-        Student student = studentDAO.findById(enrollment.getStudentId());
-        Course course = courseDAO.findById(enrollment.getCourseId());
-        enrollment.setStudent(student);
-        enrollment.setCourse(course);
-        return enrollment;
+        return UnitOfWork.execute(() -> {
+            Enrollment enrollment = enrollmentDAO.findById(id);
+            Student student = studentDAO.findById(enrollment.getStudentId());
+            Course course = courseDAO.findById(enrollment.getCourseId());
+            enrollment.setStudent(student);
+            enrollment.setCourse(course);
+            return enrollment;
+        });
     }
 
     public List<Enrollment> getStudentEnrollments(UUID studentId) throws DatabaseException {
-        List<Enrollment> enrollments = enrollmentDAO.findByStudentId(studentId);
-        for (Enrollment enrollment : enrollments) {
+        return UnitOfWork.run(() -> populate(enrollmentDAO.findByStudentId(studentId)));
+    }
+
+    public List<Enrollment> getCourseEnrollments(UUID courseId) throws DatabaseException {
+        return UnitOfWork.run(() -> populate(enrollmentDAO.findByCourseId(courseId)));
+    }
+
+    public void updateGrade(UUID enrollmentId, String grade) throws DatabaseException, RecordNotFoundException, ValidationException {
+        Validator.validateGrade(grade);
+        UnitOfWork.execute(() -> {
+            Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
+            enrollment.setGrade(grade);
+            enrollmentDAO.update(enrollment);
+            return null;
+        });
+    }
+
+    public void dropEnrollment(UUID enrollmentId) throws DatabaseException, RecordNotFoundException {
+        UnitOfWork.execute(() -> {
+            Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
+            enrollment.setStatus("Dropped");
+            enrollmentDAO.update(enrollment);
+            UnitOfWork.current().afterCommit(() -> atRiskDetector.forget(enrollmentId));
+            return null;
+        });
+    }
+
+    public void completeEnrollment(UUID enrollmentId, String grade) throws DatabaseException, RecordNotFoundException, ValidationException {
+        Validator.validateGrade(grade);
+        UnitOfWork.execute(() -> {
+            Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
+            enrollment.setGrade(grade);
+            enrollment.setStatus("Completed");
+            enrollmentDAO.update(enrollment);
+            UnitOfWork.current().afterCommit(() -> atRiskDetector.forget(enrollmentId));
+            return null;
+        });
+    }
+
+    public int getCourseEnrollmentCount(UUID courseId) throws DatabaseException {
+        return enrollmentDAO.getEnrollmentCount(courseId);
+    }
+
+    public List<Enrollment> getEnrollments(Collection<UUID> ids) throws DatabaseException {
+        return UnitOfWork.run(() -> populate(enrollmentDAO.findByIds(ids)));
+    }
+
+    public List<Enrollment> getEnrollmentsForStudents(Collection<UUID> studentIds) throws DatabaseException {
+        return enrollmentDAO.findByStudentIds(studentIds);
+    }
+
+    // Capacity is checked against the current count plus the requests accepted earlier in the
+    // same batch. Each course row is locked (in id order, so two batches cannot deadlock) before
+    // the counts are read, and student status and capacity come from rows read in the same
+    // transaction, not from the populated request objects, which may be stale.
+    public List<OperationResult> enrollStudents(List<Enrollment> requests) throws DatabaseException {
+        return UnitOfWork.run(() -> enrollStudentsInTransaction(requests));
+    }
+
+    private List<OperationResult> enrollStudentsInTransaction(List<Enrollment> requests) throws DatabaseException {
+        Set<UUID> studentIds = new HashSet<>();
+        Set<UUID> courseIds = new TreeSet<>();
+        for (Enrollment request : requests) {
+            studentIds.add(request.getStudentId());
+            courseIds.add(request.getCourseId());
+        }
+
+        Map<UUID, Course> courses = new HashMap<>();
+        for (UUID courseId : courseIds) {
             try {
-                Student student = studentDAO.findById(enrollment.getStudentId());
-                Course course = courseDAO.findById(enrollment.getCourseId());
-                enrollment.setStudent(student);
-                enrollment.setCourse(course);
+                courses.put(courseId, courseDAO.findByIdForUpdate(courseId));
             } catch (RecordNotFoundException e) {
+                // Deleted since the request was built; its requests fail below.
             }
         }
-        return enrollments;
+        Map<UUID, Student> students = new HashMap<>();
+        for (Student student : studentDAO.findByIds(studentIds)) {
+            students.put(student.getId(), student);
+        }
+
+        Set<String> taken = new HashSet<>();
+        for (Enrollment existing : enrollmentDAO.findByStudentIds(studentIds)) {
+            taken.add(existing.getStudentId() + ":" + existing.getCourseId());
+        }
+        Map<UUID, Integer> counts = new HashMap<>(enrollmentDAO.getEnrollmentCounts(courses.keySet()));
+
+        List<OperationResult> results = new ArrayList<>();
+        List<Enrollment> accepted = new ArrayList<>();
+        for (Enrollment request : requests) {
+            Student student = students.get(request.getStudentId());
+            Course course = courses.get(request.getCourseId());
+            int enrolled = counts.getOrDefault(request.getCourseId(), 0);
+            if (student == null) {
+                results.add(OperationResult.failure("Student not found with id: " + request.getStudentId()));
+            } else if (course == null) {
+                results.add(OperationResult.failure("Course not found with id: " + request.getCourseId()));
+            } else if (!"Active".equals(student.getStatus())) {
+                results.add(OperationResult.failure("Only active students can be enrolled"));
+            } else if (!taken.add(request.getStudentId() + ":" + request.getCourseId())) {
+                results.add(OperationResult.failure("Student is already enrolled in this course"));
+            } else if (enrolled >= course.getMaxCapacity()) {
+                results.add(OperationResult.failure("Course has reached maximum capacity"));
+            } else {
+                counts.put(request.getCourseId(), enrolled + 1);
+                results.add(OperationResult.success());
+                accepted.add(request);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            enrollmentDAO.createBatch(accepted);
+        }
+        return results;
     }
 
-    public List<Enrollment> getCourseEnrollments(UUID courseId) throws DatabaseException {
-        List<Enrollment> enrollments = enrollmentDAO.findByCourseId(courseId);
+    // Enrols a whole section in one transaction: the course row is locked, student statuses and
+    // remaining capacity are checked with set-based reads, and the enrollments are written with
+    // one multi-row insert. Returns an outcome per distinct student, in the order given.
+    public Map<UUID, OperationResult> enrollCohort(UUID courseId, List<UUID> studentIds)
+            throws DatabaseException, RecordNotFoundException {
+        return UnitOfWork.execute(() -> {
+            Course course = courseDAO.findByIdForUpdate(courseId);
+            Map<UUID, Student> students = new HashMap<>();
+            for (Student student : studentDAO.findByIds(studentIds)) {
+                students.put(student.getId(), student);
+            }
+
+            Map<UUID, OperationResult> results = new LinkedHashMap<>();
+            List<UUID> candidates = new ArrayList<>();
+            for (UUID studentId : new LinkedHashSet<>(studentIds)) {
+                Student student = students.get(studentId);
+                if (student == null) {
+                    results.put(studentId, OperationResult.failure("Student not found with id: " + studentId));
+                } else if (!"Active".equals(student.getStatus())) {
+                    results.put(studentId, OperationResult.failure("Only active students can be enrolled"));
+                } else {
+                    results.put(studentId, null);
+                    candidates.add(studentId);
+                }
+            }
+
+            // Students already holding an enrollment row are skipped by the insert and do not use
+            // up capacity, so keep filling from the remaining candidates until the course is full.
+            int remaining = course.getMaxCapacity() - enrollmentDAO.getEnrollmentCount(courseId);
+            int next = 0;
+            while (remaining > 0 && next < candidates.size()) {
+                List<UUID> chunk = candidates.subList(next, Math.min(candidates.size(), next + remaining));
+                next += chunk.size();
+                Set<UUID> inserted = enrollmentDAO.createForCourse(courseId, chunk);
+                for (UUID studentId : chunk) {
+                    results.put(studentId, inserted.contains(studentId)
+                            ? OperationResult.success()
+                            : OperationResult.failure("Student is already enrolled in this course"));
+                }
+                remaining -= inserted.size();
+            }
+            for (UUID studentId : candidates.subList(next, candidates.size())) {
+                results.put(studentId, OperationResult.failure("Course has reached maximum capacity"));
+            }
+            return results;
+        });
+    }
+
+    // Writes grade/status changes already applied to the given enrollments in one batch.
+    public List<OperationResult> applyEnrollmentUpdates(List<Enrollment> enrollments) throws DatabaseException {
+        List<OperationResult> results = new ArrayList<>();
+        List<Enrollment> valid = new ArrayList<>();
+
+        for (Enrollment enrollment : enrollments) {
+            try {
+                Validator.validateGrade(enrollment.getGrade());
+                results.add(OperationResult.success());
+                valid.add(enrollment);
+            } catch (ValidationException e) {
+                results.add(OperationResult.failure(e.getMessage()));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            enrollmentDAO.updateBatch(valid);
+            List<UUID> updated = new ArrayList<>();
+            for (Enrollment enrollment : valid) {
+                updated.add(enrollment.getId());
+            }
+            atRiskDetector.refreshOrReset(updated);
+        }
+        return results;
+    }
+
+    private List<Enrollment> populate(List<Enrollment> enrollments) throws DatabaseException {
         for (Enrollment enrollment : enrollments) {
             try {
                 Student student = studentDAO.findById(enrollment.getStudentId());
@@ -78,28 +266,19 @@ public class EnrollmentService {
         return enrollments;
     }
 
-    public void updateGrade(UUID enrollmentId, String grade) throws DatabaseException, RecordNotFoundException, ValidationException {
-        Validator.validateGrade(grade);
-        Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
-        enrollment.setGrade(grade);
-        enrollmentDAO.update(enrollment);
-    }
-
-    public void dropEnrollment(UUID enrollmentId) throws DatabaseException, RecordNotFoundException {
-        Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
-        enrollment.setStatus("Dropped");
-        enrollmentDAO.update(enrollment);
-    }
-
-    public void completeEnrollment(UUID enrollmentId, String grade) throws DatabaseException, RecordNotFoundException, ValidationException {
-        Validator.validateGrade(grade);
-        Enrollment enrollment = enrollmentDAO.findById(enrollmentId);
-        enrollment.setGrade(grade);
-        enrollment.setStatus("Completed");
-        enrollmentDAO.update(enrollment);
-    }
+    // Moves every enrollment matching the filter to the given status in a single statement, e.g.
+    // dropping the Enrolled rows of graduated students (status=Enrolled, studentStatus=Graduated).
+    public BulkTransitionResult transitionEnrollments(StatusFilter filter, String status) throws ValidationException, DatabaseException {
+        if (!"Enrolled".equals(status) && !"Completed".equals(status) && !"Dropped".equals(status)) {
+            throw new ValidationException("Status must be Enrolled, Completed, or Dropped");
+        }
+        if (filter.isEmpty()) {
+            throw new ValidationException("At least one filter is required for a bulk status change");
+        }
 
-    public int getCourseEnrollmentCount(UUID courseId) throws DatabaseException {
-        return enrollmentDAO.getEnrollmentCount(courseId);
+        UUID batchId = UUID.randomUUID();
+        BulkTransitionResult result = new BulkTransitionResult(batchId, enrollmentDAO.transitionStatus(filter, status, batchId));
+        atRiskDetector.reset();
+        return result;
     }
 }
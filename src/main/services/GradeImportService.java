@@ -0,0 +1,158 @@
+package com.sms.services;
+
+import com.sms.dao.CourseDAO;
+import com.sms.dao.EnrollmentDAO;
+import com.sms.dao.StudentDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.ValidationException;
+import com.sms.models.*;
+import com.sms.utils.UnitOfWork;
+import com.sms.utils.Validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Applies a term-end grade sheet in one transaction. References are resolved with one query
+ * per table, grades are checked with {@link Validator#validateGrade(String)}, and the accepted
+ * rows are written by {@link EnrollmentDAO#applyGrades(List)} in chunked set-based updates.
+ * GPA aggregates follow through the enrollment triggers, touching only the affected students.
+ */
+public class GradeImportService {
+    private final StudentDAO studentDAO;
+    private final CourseDAO courseDAO;
+    private final EnrollmentDAO enrollmentDAO;
+    private final AtRiskDetector atRiskDetector;
+
+    public GradeImportService() {
+        this.studentDAO = new StudentDAO();
+        this.courseDAO = new CourseDAO();
+        this.enrollmentDAO = new EnrollmentDAO();
+        this.atRiskDetector = AtRiskDetector.getInstance();
+    }
+
+    // CSV columns: student_id,course_code,grade[,complete]. A header row starting with
+    // "student_id", blank lines and '#' comments are skipped. complete is true/yes/1 to also
+    // mark the enrollment Completed. Returns one result per data line.
+    public List<OperationResult> importCsv(Path file) throws IOException, DatabaseException {
+        List<OperationResult> results = new ArrayList<>();
+        List<GradeEntry> entries = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        for (String line : Files.readAllLines(file)) {
+            String text = line.trim();
+            if (text.isEmpty() || text.startsWith("#") || text.toLowerCase().startsWith("student_id")) continue;
+
+            String[] fields = text.split("\\s*,\\s*");
+            if (fields.length < 3 || fields.length > 4) {
+                results.add(OperationResult.failure("Expected student_id,course_code,grade[,complete]: " + text));
+                continue;
+            }
+            boolean complete = fields.length == 4 && (fields[3].equalsIgnoreCase("true")
+                    || fields[3].equalsIgnoreCase("yes") || fields[3].equals("1"));
+            positions.add(results.size());
+            results.add(null);
+            entries.add(new GradeEntry(fields[0], fields[1], fields[2].toUpperCase(), complete));
+        }
+
+        List<OperationResult> applied = importGrades(entries);
+        for (int i = 0; i < positions.size(); i++) {
+            results.set(positions.get(i), applied.get(i));
+        }
+        return results;
+    }
+
+    public List<OperationResult> importGrades(List<GradeEntry> entries) throws DatabaseException {
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return UnitOfWork.run(() -> importInTransaction(entries));
+    }
+
+    private List<OperationResult> importInTransaction(List<GradeEntry> entries) throws DatabaseException {
+        Set<String> studentCodes = new HashSet<>();
+        Set<String> courseCodes = new HashSet<>();
+        for (GradeEntry entry : entries) {
+            studentCodes.add(entry.getStudentId());
+            courseCodes.add(entry.getCourseCode());
+        }
+
+        Map<String, Student> students = new HashMap<>();
+        for (Student student : studentDAO.findByStudentIds(studentCodes)) {
+            students.put(student.getStudentId(), student);
+        }
+        Map<String, Course> courses = new HashMap<>();
+        for (Course course : courseDAO.findByCourseCodes(courseCodes)) {
+            courses.put(course.getCourseCode(), course);
+        }
+        Map<String, Enrollment> enrollments = new HashMap<>();
+        Set<UUID> studentIds = new HashSet<>();
+        for (Student student : students.values()) {
+            studentIds.add(student.getId());
+        }
+        if (!studentIds.isEmpty()) {
+            for (Enrollment enrollment : enrollmentDAO.findByStudentIds(studentIds)) {
+                enrollments.put(enrollment.getStudentId() + ":" + enrollment.getCourseId(), enrollment);
+            }
+        }
+
+        List<OperationResult> results = new ArrayList<>();
+        Map<UUID, Enrollment> accepted = new LinkedHashMap<>();
+        Map<Integer, Enrollment> resultFor = new HashMap<>();
+        for (GradeEntry entry : entries) {
+            Student student = students.get(entry.getStudentId());
+            Course course = courses.get(entry.getCourseCode());
+            Enrollment enrollment = student == null || course == null
+                    ? null : enrollments.get(student.getId() + ":" + course.getId());
+
+            try {
+                if (entry.getGrade().isEmpty()) {
+                    throw new ValidationException("Grade is required");
+                }
+                Validator.validateGrade(entry.getGrade());
+            } catch (ValidationException e) {
+                results.add(OperationResult.failure(e.getMessage()));
+                continue;
+            }
+
+            if (student == null) {
+                results.add(OperationResult.failure("Student not found: " + entry.getStudentId()));
+            } else if (course == null) {
+                results.add(OperationResult.failure("Course not found: " + entry.getCourseCode()));
+            } else if (enrollment == null) {
+                results.add(OperationResult.failure("Student is not enrolled in " + course.getCourseCode()));
+            } else if ("Dropped".equals(enrollment.getStatus())) {
+                results.add(OperationResult.failure("Cannot grade a dropped enrollment"));
+            } else {
+                enrollment.setGrade(entry.getGrade());
+                if (entry.isComplete()) {
+                    enrollment.setStatus("Completed");
+                }
+                accepted.put(enrollment.getId(), enrollment);
+                resultFor.put(results.size(), enrollment);
+                results.add(OperationResult.success());
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            Set<UUID> updated = enrollmentDAO.applyGrades(new ArrayList<>(accepted.values()));
+            // Rows changed since they were read (e.g. dropped meanwhile) are reported, not overwritten.
+            resultFor.forEach((position, enrollment) -> {
+                if (!updated.contains(enrollment.getId())) {
+                    results.set(position, OperationResult.failure("Enrollment was changed or removed by another user; "
+                            + "reload and try again"));
+                }
+            });
+            List<UUID> completed = new ArrayList<>();
+            for (Enrollment enrollment : accepted.values()) {
+                if (updated.contains(enrollment.getId()) && "Completed".equals(enrollment.getStatus())) {
+                    completed.add(enrollment.getId());
+                }
+            }
+            UnitOfWork.current().afterCommit(() -> completed.forEach(atRiskDetector::forget));
+        }
+        return results;
+    }
+}
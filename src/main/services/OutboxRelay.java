@@ -0,0 +1,174 @@
+package com.sms.services;
+
+import com.sms.dao.OutboxDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.utils.ChangeNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves committed change events from the outbox to a {@link ChangeSink} in batches, in commit
+ * order, advancing the sink's offset after each delivered batch. The relay wakes up as soon as
+ * this process commits a write (or ChangeFeed reports one from another instance) and otherwise
+ * polls every second. A failing sink is retried with exponential backoff from the same offset.
+ *
+ * Several processes may run a relay for the same sink name; an advisory lock lets only one of
+ * them deliver at a time.
+ */
+public class OutboxRelay implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long POLL_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long PURGE_INTERVAL_MILLIS = 60 * 60_000;
+    private static final int RETENTION_DAYS = 7;
+
+    private final String name;
+    private final ChangeSink sink;
+    private final int batchSize;
+    private final OutboxDAO outboxDAO;
+    private final ChangeNotifier.Listener wakeUp = tables -> signal();
+    private final Object lock = new Object();
+    private boolean signalled;
+    private volatile boolean running;
+    private Thread thread;
+    private long lastPurge;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public OutboxRelay(String name, ChangeSink sink) {
+        this(name, sink, DEFAULT_BATCH_SIZE);
+    }
+
+    public OutboxRelay(String name, ChangeSink sink, int batchSize) {
+        this.name = name;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.outboxDAO = new OutboxDAO();
+    }
+
+    // Delivers everything that is ready on the calling thread. Returns the number of events.
+    public int drain() throws DatabaseException, IOException {
+        int total = 0;
+        int count;
+        do {
+            count = outboxDAO.deliverBatch(name, batchSize, sink::publish);
+            if (count > 0) {
+                total += count;
+                delivered.addAndGet(count);
+                batches.incrementAndGet();
+            }
+        } while (count == batchSize);
+        return total;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        ChangeNotifier.addListener(wakeUp);
+        thread = new Thread(this::run, "outbox-relay-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            ChangeNotifier.removeListener(wakeUp);
+            stopping = thread;
+            thread = null;
+        }
+        if (stopping != null) {
+            stopping.interrupt();
+            try {
+                stopping.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sink.close();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Sequence number of the last event this sink has acknowledged.
+    public long getSequence() throws DatabaseException {
+        return outboxDAO.findSequence(name);
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    private void run() {
+        int consecutiveFailures = 0;
+        while (running) {
+            long wait = POLL_MILLIS;
+            try {
+                drain();
+                purgeIfDue();
+                consecutiveFailures = 0;
+            } catch (DatabaseException | IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                consecutiveFailures++;
+                wait = Math.min(MAX_BACKOFF_MILLIS, POLL_MILLIS << Math.min(consecutiveFailures, 5));
+                logger.warn("Outbox relay '" + name + "' failed (" + e.getMessage() + "); retrying in " + wait + "ms");
+            }
+            if (!await(wait)) {
+                break;
+            }
+        }
+    }
+
+    private void purgeIfDue() throws DatabaseException {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge >= PURGE_INTERVAL_MILLIS) {
+            lastPurge = now;
+            int purged = outboxDAO.purgeDelivered(RETENTION_DAYS, 10_000);
+            if (purged > 0) {
+                logger.info("Purged " + purged + " delivered outbox events");
+            }
+        }
+    }
+
+    private void signal() {
+        synchronized (lock) {
+            signalled = true;
+            lock.notifyAll();
+        }
+    }
+
+    // Returns false if the relay was interrupted.
+    private boolean await(long millis) {
+        synchronized (lock) {
+            try {
+                if (!signalled) {
+                    lock.wait(millis);
+                }
+                signalled = false;
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+}
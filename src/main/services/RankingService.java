@@ -0,0 +1,110 @@
+package com.sms.services;
+
+import com.sms.dao.AttendanceDAO;
+import com.sms.dao.RankingDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.ValidationException;
+import com.sms.models.AttendanceStats;
+import com.sms.models.RankEntry;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Bulk rankings are delegated to the database (RankingDAO). Interactive top-K lookups select
+// from per-course attendance stats cached in memory, keeping only K entries in a min-heap.
+public class RankingService {
+    private static final long STATS_TTL_MILLIS = 60_000;
+
+    // Best first; ties broken by enrollment id so repeated calls return the same order.
+    private static final Comparator<AttendanceStats> BY_ATTENDANCE =
+            Comparator.comparingDouble(AttendanceStats::getPercentage).reversed()
+                    .thenComparing(AttendanceStats::getEnrollmentId);
+
+    private final RankingDAO rankingDAO;
+    private final AttendanceDAO attendanceDAO;
+    private final Map<UUID, CachedStats> statsByCourse = new ConcurrentHashMap<>();
+
+    private static class CachedStats {
+        final List<AttendanceStats> stats;
+        final long loadedAt;
+
+        CachedStats(List<AttendanceStats> stats) {
+            this.stats = stats;
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    public RankingService() {
+        this.rankingDAO = new RankingDAO();
+        this.attendanceDAO = new AttendanceDAO();
+    }
+
+    public List<RankEntry> rankCourseByAttendance(UUID courseId) throws DatabaseException {
+        return rankingDAO.rankCourseByAttendance(courseId, null);
+    }
+
+    public List<RankEntry> rankCourseByGrade(UUID courseId) throws DatabaseException {
+        return rankingDAO.rankCourseByGrade(courseId, null);
+    }
+
+    public List<RankEntry> rankSemesterByGpa(String semester) throws DatabaseException {
+        return rankingDAO.rankSemesterByGpa(semester, null);
+    }
+
+    public List<RankEntry> topAttendanceByRank(UUID courseId, int k) throws DatabaseException, ValidationException {
+        validateK(k);
+        return rankingDAO.rankCourseByAttendance(courseId, k);
+    }
+
+    public List<RankEntry> topGpa(String semester, int k) throws DatabaseException, ValidationException {
+        validateK(k);
+        return rankingDAO.rankSemesterByGpa(semester, k);
+    }
+
+    // Top K attendance of every course in a single query, for leaderboard exports.
+    public int exportTopAttendance(int k, Consumer<RankEntry> handler) throws DatabaseException, ValidationException {
+        validateK(k);
+        return rankingDAO.streamAttendanceRanks(k, handler);
+    }
+
+    // Top K students of a course by attendance, best first, from the cached stats. Costs
+    // O(n log k) per call instead of sorting the whole class.
+    public List<AttendanceStats> topAttendance(UUID courseId, int k) throws DatabaseException, ValidationException {
+        validateK(k);
+        PriorityQueue<AttendanceStats> heap = new PriorityQueue<>(k + 1, BY_ATTENDANCE.reversed());
+        for (AttendanceStats stats : getCourseStats(courseId)) {
+            heap.offer(stats);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        List<AttendanceStats> top = new ArrayList<>(heap);
+        top.sort(BY_ATTENDANCE);
+        return top;
+    }
+
+    public List<AttendanceStats> getCourseStats(UUID courseId) throws DatabaseException {
+        CachedStats cached = statsByCourse.get(courseId);
+        if (cached == null || System.currentTimeMillis() - cached.loadedAt > STATS_TTL_MILLIS) {
+            cached = new CachedStats(Collections.unmodifiableList(attendanceDAO.findStatsByCourseId(courseId)));
+            statsByCourse.put(courseId, cached);
+        }
+        return cached.stats;
+    }
+
+    public void invalidate(UUID courseId) {
+        statsByCourse.remove(courseId);
+    }
+
+    public void invalidateAll() {
+        statsByCourse.clear();
+    }
+
+    private static void validateK(int k) throws ValidationException {
+        if (k < 1) {
+            throw new ValidationException("K must be at least 1");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.sms.services;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.RecordNotFoundException;
+import com.sms.models.*;
+import com.sms.utils.ChangeNotifier;
+import com.sms.utils.ReportCache;
+import com.sms.utils.ReportExecutor;
+import com.sms.utils.UnitOfWork;
+
+import java.util.*;
+
+// Renders the console reports as text through the shared ReportCache. Each report lists the
+// tables it reads so a committed write to any of them discards the cached copy. Per-student
+// and per-enrollment lookups run in parallel on the ReportExecutor.
+public class ReportService {
+    private static final int STUDENT_BATCH_SIZE = 100;
+
+    private static final Set<String> PERFORMANCE_TABLES = tables(ChangeNotifier.STUDENTS,
+            ChangeNotifier.COURSES, ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
+    private static final Set<String> COURSE_STATISTICS_TABLES = tables(ChangeNotifier.COURSES,
+            ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
+    private static final Set<String> ATTENDANCE_SUMMARY_TABLES = tables(ChangeNotifier.STUDENTS,
+            ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE);
+    private static final Set<String> ACTIVE_STUDENTS_TABLES = tables(ChangeNotifier.STUDENTS);
+
+    private final StudentService studentService;
+    private final EnrollmentService enrollmentService;
+    private final AttendanceService attendanceService;
+    private final TranscriptService transcriptService;
+    private final StatisticsService statisticsService;
+    private final ReportCache cache;
+    private ReportExecutor executor;
+
+    public ReportService() {
+        this(null);
+    }
+
+    // A null executor means the shared ReportExecutor.
+    public ReportService(ReportExecutor executor) {
+        this.studentService = new StudentService();
+        this.enrollmentService = new EnrollmentService();
+        this.attendanceService = new AttendanceService();
+        this.transcriptService = new TranscriptService();
+        this.statisticsService = new StatisticsService(executor);
+        this.cache = ReportCache.getInstance();
+        this.executor = executor;
+    }
+
+    public String studentPerformanceReport(String studentId) throws DatabaseException, RecordNotFoundException {
+        return cache.get("student-performance:" + studentId, PERFORMANCE_TABLES, () -> renderStudentPerformance(studentId));
+    }
+
+    public String courseEnrollmentStatistics() throws DatabaseException, RecordNotFoundException {
+        return cache.get("course-statistics", COURSE_STATISTICS_TABLES, this::renderCourseStatistics);
+    }
+
+    public String attendanceSummaryReport() throws DatabaseException, RecordNotFoundException {
+        return cache.get("attendance-summary", ATTENDANCE_SUMMARY_TABLES, this::renderAttendanceSummary);
+    }
+
+    public String activeStudentsList() throws DatabaseException, RecordNotFoundException {
+        return cache.get("active-students", ACTIVE_STUDENTS_TABLES, this::renderActiveStudents);
+    }
+
+    private String renderStudentPerformance(String studentId) throws DatabaseException, RecordNotFoundException {
+        Student student = studentService.getStudentByStudentId(studentId);
+        List<Enrollment> enrollments = enrollmentService.getStudentEnrollments(student.getId());
+        Formatter out = new Formatter();
+
+        out.format("%n===== PERFORMANCE REPORT =====%n");
+        out.format("Student: %s %s%n", student.getFirstName(), student.getLastName());
+        out.format("Student ID: %s%n", student.getStudentId());
+        out.format("Email: %s%n", student.getEmail());
+        out.format("Status: %s%n", student.getStatus());
+        out.format("%nCourse Performance:%n");
+        out.format("%-10s %-30s %-10s %-15s %-15s%n",
+                "Code", "Course Name", "Grade", "Status", "Attendance %");
+        out.format("---------------------------------------------------------------------------------%n");
+
+        List<Double> percentages = executor().map(enrollments,
+                enrollment -> attendanceService.getAttendancePercentage(enrollment.getId()));
+        for (int i = 0; i < enrollments.size(); i++) {
+            Enrollment enrollment = enrollments.get(i);
+            double attendance = percentages.get(i);
+            out.format("%-10s %-30s %-10s %-15s %-15.2f%%%n",
+                    enrollment.getCourse().getCourseCode(),
+                    enrollment.getCourse().getCourseName(),
+                    enrollment.getGrade() != null ? enrollment.getGrade() : "N/A",
+                    enrollment.getStatus(),
+                    attendance);
+        }
+
+        List<TermSummary> terms = transcriptService.getTermSummaries(student.getId());
+        if (!terms.isEmpty()) {
+            out.format("%nTerm Summary:%n");
+            out.format("%-20s %-10s %-15s%n", "Semester", "GPA", "Credits Earned");
+            double points = 0;
+            int graded = 0;
+            int earned = 0;
+            for (TermSummary term : terms) {
+                out.format("%-20s %-10.2f %-15d%n",
+                        term.getSemester().isEmpty() ? "Unscheduled" : term.getSemester(),
+                        term.getGpa(), term.getEarnedCredits());
+                points += term.getQualityPoints();
+                graded += term.getGradedCredits();
+                earned += term.getEarnedCredits();
+            }
+            out.format("Cumulative GPA: %.2f   Credits earned: %d%n", graded == 0 ? 0.0 : points / graded, earned);
+        }
+        return out.toString();
+    }
+
+    private String renderCourseStatistics() throws DatabaseException {
+        List<CourseStatistics> courses = statisticsService.getCourseStatistics();
+        Formatter out = new Formatter();
+
+        out.format("%-10s %-30s %-10s %-10s %-13s %-7s %-7s %-7s %-8s%n",
+                "Code", "Name", "Enrolled", "Capacity", "Availability", "Att p10", "Att p50", "Att p90", "At Risk");
+        out.format("-------------------------------------------------------------------------------------------------------%n");
+
+        for (CourseStatistics course : courses) {
+            long available = course.getMaxCapacity() - course.getEnrolled();
+            String availability = available > 0 ? "Available" : "Full";
+
+            out.format("%-10s %-30s %-10d %-10d %-13s %-7s %-7s %-7s %-8d%n",
+                    course.getCourseCode(),
+                    course.getCourseName(),
+                    course.getEnrolled(),
+                    course.getMaxCapacity(),
+                    availability,
+                    formatPercentile(course.getAttendancePercentile(0.1)),
+                    formatPercentile(course.getAttendancePercentile(0.5)),
+                    formatPercentile(course.getAttendancePercentile(0.9)),
+                    course.getAtRisk());
+
+            StringBuilder grades = new StringBuilder();
+            for (Map.Entry<String, Long> grade : course.getGradeCounts().entrySet()) {
+                if (grade.getValue() > 0) {
+                    grades.append(grade.getKey()).append(": ").append(grade.getValue()).append("  ");
+                }
+            }
+            if (grades.length() > 0) {
+                out.format("           Grades  %s%n", grades.toString().trim());
+            }
+        }
+        out.format("%nAt risk: attendance below %.0f%%.%n", AttendanceStats.AT_RISK_THRESHOLD);
+        return out.toString();
+    }
+
+    private String renderAttendanceSummary() throws DatabaseException {
+        List<Student> students = studentService.getActiveStudents();
+        List<String> rows = executor().mapBatches(students, STUDENT_BATCH_SIZE,
+                batch -> UnitOfWork.read(() -> attendanceSummaryRows(batch)));
+        Formatter out = new Formatter();
+
+        out.format("%-12s %-25s %-20s%n", "Student ID", "Name", "Avg Attendance %");
+        out.format("--------------------------------------------------------%n");
+        for (String row : rows) {
+            if (row != null) {
+                out.format("%s", row);
+            }
+        }
+        return out.toString();
+    }
+
+    // One formatted row per student, or null for a student with no enrollments.
+    private List<String> attendanceSummaryRows(List<Student> students) throws DatabaseException {
+        List<UUID> studentIds = new ArrayList<>();
+        for (Student student : students) {
+            studentIds.add(student.getId());
+        }
+        Map<UUID, List<Enrollment>> enrollmentsByStudent = new HashMap<>();
+        for (Enrollment enrollment : enrollmentService.getEnrollmentsForStudents(studentIds)) {
+            enrollmentsByStudent.computeIfAbsent(enrollment.getStudentId(), id -> new ArrayList<>()).add(enrollment);
+        }
+
+        List<String> rows = new ArrayList<>(students.size());
+        for (Student student : students) {
+            List<Enrollment> enrollments = enrollmentsByStudent.getOrDefault(student.getId(), Collections.emptyList());
+            if (enrollments.isEmpty()) {
+                rows.add(null);
+                continue;
+            }
+
+            double totalAttendance = 0;
+            int courseCount = 0;
+
+            for (Enrollment enrollment : enrollments) {
+                if (enrollment.getStatus().equals("Enrolled") || enrollment.getStatus().equals("Completed")) {
+                    totalAttendance += attendanceService.getAttendancePercentage(enrollment.getId());
+                    courseCount++;
+                }
+            }
+
+            double avgAttendance = courseCount > 0 ? totalAttendance / courseCount : 0;
+
+            rows.add(String.format("%-12s %-25s %-20.2f%%%n",
+                    student.getStudentId(),
+                    student.getFirstName() + " " + student.getLastName(),
+                    avgAttendance));
+        }
+        return rows;
+    }
+
+    private String renderActiveStudents() throws DatabaseException {
+        List<Student> students = studentService.getActiveStudents();
+        Formatter out = new Formatter();
+
+        if (students.isEmpty()) {
+            out.format("No active students found.%n");
+            return out.toString();
+        }
+
+        out.format("%-12s %-25s %-30s %-15s %-15s%n",
+                "Student ID", "Name", "Email", "Phone", "Enrollment Date");
+        out.format("------------------------------------------------------------------------------------------------%n");
+
+        for (Student student : students) {
+            out.format("%-12s %-25s %-30s %-15s %-15s%n",
+                    student.getStudentId(),
+                    student.getFirstName() + " " + student.getLastName(),
+                    student.getEmail(),
+                    student.getPhone(),
+                    student.getEnrollmentDate());
+        }
+
+        out.format("%nTotal Active Students: %d%n", students.size());
+        return out.toString();
+    }
+
+    private ReportExecutor executor() throws DatabaseException {
+        if (executor == null) {
+            executor = ReportExecutor.getInstance();
+        }
+        return executor;
+    }
+
+    private static String formatPercentile(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+
+    private static Set<String> tables(String... names) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(names)));
+    }
+}
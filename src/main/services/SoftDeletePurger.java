@@ -0,0 +1,170 @@
+package com.sms.services;
+
+import com.sms.dao.SoftDeleteDAO;
+import com.sms.exceptions.DatabaseException;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes soft-deleted students, courses and enrollments (and their attendance) for good once
+ * they have been deleted for the retention period. Work is done only inside the quiet window,
+ * in batches of batchSize rows with a pause after each, so the purge never holds locks for long
+ * or competes with daytime load; whatever is left when the window closes waits for the next one.
+ *
+ * Configured from .env: DB_PURGE_WINDOW (HH:mm-HH:mm, default 01:00-05:00, may span midnight),
+ * DB_PURGE_RETENTION_DAYS (7), DB_PURGE_BATCH_SIZE (500) and DB_PURGE_PAUSE_MS (200).
+ */
+public class SoftDeletePurger implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeletePurger.class);
+    private static final long CHECK_INTERVAL_MILLIS = 5 * 60_000;
+
+    @FunctionalInterface
+    private interface BatchStep {
+        int purge(Instant cutoff, int limit) throws DatabaseException;
+    }
+
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final Duration retention;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final SoftDeleteDAO softDeleteDAO;
+    private volatile boolean running;
+    private Thread thread;
+
+    private final AtomicLong purged = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public SoftDeletePurger(LocalTime windowStart, LocalTime windowEnd, Duration retention, int batchSize, long pauseMillis) {
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.softDeleteDAO = new SoftDeleteDAO();
+    }
+
+    public static SoftDeletePurger fromEnvironment() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String window = valueOrDefault(dotenv.get("DB_PURGE_WINDOW"), "01:00-05:00");
+        int dash = window.indexOf('-');
+        return new SoftDeletePurger(
+                LocalTime.parse(window.substring(0, dash).trim()),
+                LocalTime.parse(window.substring(dash + 1).trim()),
+                Duration.ofDays(Long.parseLong(valueOrDefault(dotenv.get("DB_PURGE_RETENTION_DAYS"), "7"))),
+                Integer.parseInt(valueOrDefault(dotenv.get("DB_PURGE_BATCH_SIZE"), "500")),
+                Long.parseLong(valueOrDefault(dotenv.get("DB_PURGE_PAUSE_MS"), "200")));
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "soft-delete-purger");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            stopping = thread;
+            thread = null;
+        }
+        if (stopping != null) {
+            stopping.interrupt();
+            try {
+                stopping.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // One throttled pass on the calling thread, regardless of the window. Returns the rows deleted.
+    public long purgeNow() throws DatabaseException, InterruptedException {
+        return pass(false);
+    }
+
+    public boolean inWindow(LocalTime time) {
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    public String describeBacklog() throws DatabaseException {
+        return softDeleteDAO.describeBacklog();
+    }
+
+    public long getPurgedCount() {
+        return purged.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (inWindow(LocalTime.now())) {
+                    long deleted = pass(true);
+                    if (deleted > 0) {
+                        logger.info("Purged " + deleted + " soft-deleted rows");
+                    }
+                }
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            } catch (DatabaseException | RuntimeException e) {
+                logger.warn("Soft-delete purge failed: " + e.getMessage());
+                try {
+                    Thread.sleep(CHECK_INTERVAL_MILLIS);
+                } catch (InterruptedException stop) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Children before parents, so that no delete cascades into more than one batch of rows.
+    private long pass(boolean windowed) throws DatabaseException, InterruptedException {
+        Instant cutoff = Instant.now().minus(retention);
+        return drain(softDeleteDAO::purgeAttendance, cutoff, windowed)
+                + drain(softDeleteDAO::purgeEnrollments, cutoff, windowed)
+                + drain(softDeleteDAO::purgeStudents, cutoff, windowed)
+                + drain(softDeleteDAO::purgeCourses, cutoff, windowed);
+    }
+
+    private long drain(BatchStep step, Instant cutoff, boolean windowed) throws DatabaseException, InterruptedException {
+        long total = 0;
+        int deleted;
+        do {
+            if (windowed && (!running || !inWindow(LocalTime.now()))) {
+                break;
+            }
+            deleted = step.purge(cutoff, batchSize);
+            total += deleted;
+            purged.addAndGet(deleted);
+            batches.incrementAndGet();
+            if (deleted == batchSize) {
+                Thread.sleep(pauseMillis);
+            }
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private static String valueOrDefault(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
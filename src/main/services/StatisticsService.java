@@ -0,0 +1,87 @@
+package com.sms.services;
+
+import com.sms.dao.CourseDAO;
+import com.sms.dao.StatisticsDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.models.Course;
+import com.sms.models.CourseStatistics;
+import com.sms.utils.ReportExecutor;
+
+import java.util.*;
+
+// Computes per-course statistics for the whole catalog in one pass over the enrollments,
+// split into shards read in parallel on the ReportExecutor. Each shard folds its rows into its
+// own per-course partials; the partials are merged per course on the fork/join pool. Memory
+// depends on the number of courses only.
+public class StatisticsService {
+    private final StatisticsDAO statisticsDAO;
+    private final CourseDAO courseDAO;
+    private ReportExecutor executor;
+
+    public StatisticsService() {
+        this.statisticsDAO = new StatisticsDAO();
+        this.courseDAO = new CourseDAO();
+    }
+
+    public StatisticsService(ReportExecutor executor) {
+        this();
+        this.executor = executor;
+    }
+
+    // One shard per report worker.
+    public List<CourseStatistics> getCourseStatistics() throws DatabaseException {
+        return getCourseStatistics(executor().getParallelism());
+    }
+
+    // One row per course in the catalog ordered by course code, including courses with no
+    // enrollments. Each running shard holds a pooled connection.
+    public List<CourseStatistics> getCourseStatistics(int shards) throws DatabaseException {
+        List<Integer> shardIds = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            shardIds.add(shard);
+        }
+        List<Map<UUID, CourseStatistics>> partials = executor().map(shardIds, shard -> scanShard(shard, shards));
+
+        Map<UUID, List<CourseStatistics>> byCourse = new HashMap<>();
+        for (Map<UUID, CourseStatistics> partial : partials) {
+            for (CourseStatistics stats : partial.values()) {
+                byCourse.computeIfAbsent(stats.getCourseId(), id -> new ArrayList<>()).add(stats);
+            }
+        }
+        // Merging sketches is CPU work with no I/O; run it on the common fork/join pool.
+        Map<UUID, CourseStatistics> merged = new HashMap<>();
+        byCourse.values().parallelStream().map(StatisticsService::mergeAll)
+                .forEachOrdered(stats -> merged.put(stats.getCourseId(), stats));
+
+        List<CourseStatistics> result = new ArrayList<>();
+        for (Course course : courseDAO.findAll()) {
+            CourseStatistics stats = merged.computeIfAbsent(course.getId(), CourseStatistics::new);
+            stats.describe(course);
+            result.add(stats);
+        }
+        result.sort(Comparator.comparing(CourseStatistics::getCourseCode));
+        return result;
+    }
+
+    private Map<UUID, CourseStatistics> scanShard(int shard, int shards) throws DatabaseException {
+        Map<UUID, CourseStatistics> byCourse = new HashMap<>();
+        statisticsDAO.streamShard(shard, shards, (status, grade, stats) ->
+                byCourse.computeIfAbsent(stats.getCourseId(), CourseStatistics::new).record(status, grade, stats));
+        return byCourse;
+    }
+
+    private static CourseStatistics mergeAll(List<CourseStatistics> partials) {
+        CourseStatistics merged = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            merged.merge(partials.get(i));
+        }
+        return merged;
+    }
+
+    private ReportExecutor executor() throws DatabaseException {
+        if (executor == null) {
+            executor = ReportExecutor.getInstance();
+        }
+        return executor;
+    }
+}
@@ -4,9 +4,15 @@ import com.sms.dao.StudentDAO;
 import com.sms.exceptions.DatabaseException;
 import com.sms.exceptions.RecordNotFoundException;
 import com.sms.exceptions.ValidationException;
+import com.sms.models.BulkTransitionResult;
+import com.sms.models.OperationResult;
+import com.sms.models.StatusFilter;
 import com.sms.models.Student;
+import com.sms.utils.UnitOfWork;
 import com.sms.utils.Validator;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -52,6 +58,8 @@ public class StudentService {
 
     public void deleteStudent(UUID id) throws DatabaseException {
         studentDAO.delete(id);
+        // The student's enrollments go with it.
+        AtRiskDetector.getInstance().reset();
     }
 
     public List<Student> getActiveStudents() throws DatabaseException {
@@ -59,11 +67,54 @@ public class StudentService {
     }
 
     public void changeStudentStatus(UUID id, String status) throws DatabaseException, RecordNotFoundException, ValidationException {
-        Student student = studentDAO.findById(id);
-        if (!status.equals("Active") && !status.equals("Inactive") && !status.equals("Graduated")) {
+        UnitOfWork.execute(() -> {
+            Student student = studentDAO.findById(id);
+            if (!status.equals("Active") && !status.equals("Inactive") && !status.equals("Graduated")) {
+                throw new ValidationException("Status must be Active, Inactive, or Graduated");
+            }
+            student.setStatus(status);
+            studentDAO.update(student);
+            return null;
+        });
+    }
+
+    public List<Student> getStudentsByStudentIds(Collection<String> studentIds) throws DatabaseException {
+        return studentDAO.findByStudentIds(studentIds);
+    }
+
+    // Each student carries the status it should move to; invalid ones are reported and skipped,
+    // the rest are written in a single batch.
+    public List<OperationResult> changeStudentStatuses(List<Student> students) throws DatabaseException {
+        List<OperationResult> results = new ArrayList<>();
+        List<Student> valid = new ArrayList<>();
+
+        for (Student student : students) {
+            String status = student.getStatus();
+            if (!"Active".equals(status) && !"Inactive".equals(status) && !"Graduated".equals(status)) {
+                results.add(OperationResult.failure("Status must be Active, Inactive, or Graduated"));
+            } else {
+                results.add(OperationResult.success());
+                valid.add(student);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            studentDAO.updateStatusBatch(valid);
+        }
+        return results;
+    }
+
+    // Moves every student matching the filter to the given status in a single statement, with
+    // an audit row per changed student. An empty filter is rejected rather than updating everyone.
+    public BulkTransitionResult transitionStudents(StatusFilter filter, String status) throws ValidationException, DatabaseException {
+        if (!"Active".equals(status) && !"Inactive".equals(status) && !"Graduated".equals(status)) {
             throw new ValidationException("Status must be Active, Inactive, or Graduated");
         }
-        student.setStatus(status);
-        studentDAO.update(student);
+        if (filter.isEmpty()) {
+            throw new ValidationException("At least one filter is required for a bulk status change");
+        }
+
+        UUID batchId = UUID.randomUUID();
+        return new BulkTransitionResult(batchId, studentDAO.transitionStatus(filter, status, batchId));
     }
 }
@@ -0,0 +1,128 @@
+package com.sms.services;
+
+import com.sms.dao.CourseDAO;
+import com.sms.dao.EnrollmentDAO;
+import com.sms.dao.StudentDAO;
+import com.sms.dao.TombstoneDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.ValidationException;
+import com.sms.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Delta sync for mirrors and caches: each call returns the students, courses or enrollments
+ * changed after the client's token and the ids deleted since, in one (timestamp, id) order, so
+ * a refresh costs O(changes) rather than a full reload. Tombstones are kept for 30 days; a
+ * token older than that gets a page with resyncRequired set.
+ */
+public class SyncService {
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 5000;
+    static final Duration TOMBSTONE_RETENTION = Duration.ofDays(30);
+    private static final long PURGE_INTERVAL_MILLIS = 60 * 60_000;
+
+    @FunctionalInterface
+    private interface ChangedQuery<T> {
+        List<T> find(Instant watermark, UUID afterId, int limit) throws DatabaseException;
+    }
+
+    private final StudentDAO studentDAO;
+    private final CourseDAO courseDAO;
+    private final EnrollmentDAO enrollmentDAO;
+    private final TombstoneDAO tombstoneDAO;
+    private volatile long lastPurge;
+
+    public SyncService() {
+        this.studentDAO = new StudentDAO();
+        this.courseDAO = new CourseDAO();
+        this.enrollmentDAO = new EnrollmentDAO();
+        this.tombstoneDAO = new TombstoneDAO();
+    }
+
+    public DeltaPage<Student> syncStudents(SyncToken token, int limit) throws DatabaseException, ValidationException {
+        return page("student", token, limit, studentDAO::findChangedSince, Student::getId, Student::getUpdatedAt);
+    }
+
+    public DeltaPage<Course> syncCourses(SyncToken token, int limit) throws DatabaseException, ValidationException {
+        return page("course", token, limit, courseDAO::findChangedSince, Course::getId, Course::getUpdatedAt);
+    }
+
+    public DeltaPage<Enrollment> syncEnrollments(SyncToken token, int limit) throws DatabaseException, ValidationException {
+        return page("enrollment", token, limit, enrollmentDAO::findChangedSince, Enrollment::getId,
+                Enrollment::getUpdatedAt);
+    }
+
+    private <T> DeltaPage<T> page(String entity, SyncToken token, int limit, ChangedQuery<T> query,
+                                  Function<T, UUID> idOf, Function<T, Instant> timeOf)
+            throws DatabaseException, ValidationException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        purgeIfDue();
+        if (!token.isInitial() && token.getWatermark().isBefore(Instant.now().minus(TOMBSTONE_RETENTION))) {
+            return new DeltaPage<>(new ArrayList<>(), new ArrayList<>(), SyncToken.INITIAL, false, true);
+        }
+
+        List<T> rows = query.find(token.getWatermark(), token.getAfterId(), limit);
+        List<Tombstone> tombstones = tombstoneDAO.findSince(entity, token.getWatermark(), token.getAfterId(), limit);
+
+        // Both lists are sorted by (timestamp, id); take the first limit entries of the merge so
+        // that the next token does not pass anything left behind in either list.
+        List<T> changed = new ArrayList<>();
+        List<UUID> deleted = new ArrayList<>();
+        SyncToken next = token;
+        int r = 0;
+        int t = 0;
+        while (changed.size() + deleted.size() < limit && (r < rows.size() || t < tombstones.size())) {
+            boolean takeRow = t == tombstones.size() || (r < rows.size()
+                    && compare(timeOf.apply(rows.get(r)), idOf.apply(rows.get(r)),
+                               tombstones.get(t).getDeletedAt(), tombstones.get(t).getEntityId()) < 0);
+            if (takeRow) {
+                T row = rows.get(r++);
+                changed.add(row);
+                next = new SyncToken(timeOf.apply(row), idOf.apply(row));
+            } else {
+                Tombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getEntityId());
+                next = new SyncToken(tombstone.getDeletedAt(), tombstone.getEntityId());
+            }
+        }
+        boolean hasMore = rows.size() == limit || tombstones.size() == limit;
+        return new DeltaPage<>(changed, deleted, next, hasMore, false);
+    }
+
+    // Same order as PostgreSQL: uuid compares as unsigned bytes, UUID.compareTo does not.
+    static int compare(Instant timeA, UUID idA, Instant timeB, UUID idB) {
+        int byTime = timeA.compareTo(timeB);
+        if (byTime != 0) {
+            return byTime;
+        }
+        int byHigh = Long.compareUnsigned(idA.getMostSignificantBits(), idB.getMostSignificantBits());
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(idA.getLeastSignificantBits(), idB.getLeastSignificantBits());
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurge = now;
+        try {
+            int purged = tombstoneDAO.purgeBefore(Instant.now().minus(TOMBSTONE_RETENTION), 10_000);
+            if (purged > 0) {
+                logger.info("Purged " + purged + " tombstones");
+            }
+        } catch (DatabaseException e) {
+            logger.warn("Tombstone purge failed: " + e.getMessage());
+        }
+    }
+}
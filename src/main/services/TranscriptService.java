@@ -0,0 +1,104 @@
+package com.sms.services;
+
+import com.sms.dao.TranscriptDAO;
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.RecordNotFoundException;
+import com.sms.models.Enrollment;
+import com.sms.models.TermSummary;
+import com.sms.models.Transcript;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.UUID;
+
+public class TranscriptService {
+    private static final int FLUSH_EVERY = 500;
+
+    private final TranscriptDAO transcriptDAO;
+
+    public TranscriptService() {
+        this.transcriptDAO = new TranscriptDAO();
+    }
+
+    public Transcript getTranscript(UUID studentId) throws DatabaseException, RecordNotFoundException {
+        return transcriptDAO.findByStudentId(studentId);
+    }
+
+    public List<TermSummary> getTermSummaries(UUID studentId) throws DatabaseException {
+        return transcriptDAO.findTermSummaries(studentId);
+    }
+
+    public double getCumulativeGpa(UUID studentId) throws DatabaseException {
+        double points = 0;
+        int credits = 0;
+        for (TermSummary term : transcriptDAO.findTermSummaries(studentId)) {
+            points += term.getQualityPoints();
+            credits += term.getGradedCredits();
+        }
+        return credits == 0 ? 0.0 : points / credits;
+    }
+
+    // Renders every transcript (optionally only students with the given status) in one streaming
+    // pass. Transcripts are rendered into a shared buffer and written out in batches, so memory
+    // stays flat regardless of how many students there are. Returns the number written.
+    public int writeTranscripts(String studentStatus, Writer out) throws DatabaseException, IOException {
+        StringBuilder buffer = new StringBuilder(64 * 1024);
+        int[] pending = {0};
+
+        try {
+            int count = transcriptDAO.streamAll(studentStatus, transcript -> {
+                render(transcript, buffer);
+                if (++pending[0] == FLUSH_EVERY) {
+                    write(out, buffer);
+                    pending[0] = 0;
+                }
+            });
+            write(out, buffer);
+            out.flush();
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public String renderTranscript(Transcript transcript) {
+        StringBuilder text = new StringBuilder();
+        render(transcript, text);
+        return text.toString();
+    }
+
+    private void render(Transcript transcript, StringBuilder text) {
+        text.append("===== TRANSCRIPT =====\n");
+        text.append("Student: ").append(transcript.getStudent().getFirstName()).append(' ')
+                .append(transcript.getStudent().getLastName())
+                .append(" (").append(transcript.getStudent().getStudentId()).append(")\n");
+        text.append("Status: ").append(transcript.getStudent().getStatus()).append('\n');
+
+        for (TermSummary term : transcript.getTerms()) {
+            text.append('\n').append(term.getSemester().isEmpty() ? "Unscheduled" : term.getSemester()).append('\n');
+            for (Enrollment enrollment : term.getEnrollments()) {
+                text.append(String.format("  %-10s %-30s %3d cr  %-4s %s%n",
+                        enrollment.getCourse().getCourseCode(),
+                        enrollment.getCourse().getCourseName(),
+                        enrollment.getCourse().getCredits(),
+                        enrollment.getGrade() != null ? enrollment.getGrade() : "N/A",
+                        enrollment.getStatus()));
+            }
+            text.append(String.format("  Term GPA: %.2f  Credits earned: %d%n", term.getGpa(), term.getEarnedCredits()));
+        }
+
+        text.append(String.format("%nCumulative GPA: %.2f  Credits earned: %d  Credits graded: %d%n%n",
+                transcript.getCumulativeGpa(), transcript.getEarnedCredits(), transcript.getGradedCredits()));
+    }
+
+    private static void write(Writer out, StringBuilder buffer) {
+        try {
+            out.append(buffer);
+            buffer.setLength(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
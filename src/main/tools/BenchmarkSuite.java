@@ -0,0 +1,293 @@
+package com.sms.tools;
+
+import com.sms.dao.CourseDAO;
+import com.sms.models.Course;
+import com.sms.services.EnrollmentService;
+import com.sms.services.RankingService;
+import com.sms.services.ReportService;
+import com.sms.utils.DatabaseConnection;
+import com.sms.utils.ReportCache;
+import com.sms.utils.ReportExecutor;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.function.IntSupplier;
+
+/**
+ * Single-threaded benchmarks comparing set-based service operations with the per-row loops
+ * they replace. Each case gets a fresh fixture per iteration; only run() is timed.
+ *
+ * Usage: BenchmarkSuite [--size <rows>] [--iterations <n>] [--only <case-prefix>]
+ *
+ * Run against a database populated by {@link DataGenerator}. Fixtures are scratch rows that
+ * are hard-deleted again after every iteration (not soft-deleted, so nothing waits for the purger).
+ */
+public class BenchmarkSuite {
+    private static final int LEADERBOARD_COURSES = 50;
+
+    private final EnrollmentService enrollmentService = new EnrollmentService();
+    private final RankingService rankingService = new RankingService();
+    private final CourseDAO courseDAO = new CourseDAO();
+    private final List<Case> cases = new ArrayList<>();
+    private final int size;
+
+    private List<UUID> activeStudentIds;
+    private List<UUID> busiestCourseIds;
+    private int activeStudentCount;
+    private int courseCount;
+
+    abstract class Case {
+        final String name;
+
+        Case(String name) {
+            this.name = name;
+        }
+
+        // Rows (or lookups) handled per run, for the rows/s column.
+        int size() {
+            return size;
+        }
+
+        void setUp() throws Exception {}
+
+        abstract void run() throws Exception;
+
+        void tearDown() throws Exception {}
+    }
+
+    public BenchmarkSuite(int size) {
+        this.size = size;
+
+        register(new CohortCase("enroll/loop") {
+            @Override
+            void run() throws Exception {
+                for (UUID studentId : activeStudentIds) {
+                    enrollmentService.enrollStudent(studentId, course.getId());
+                }
+            }
+        });
+        register(new CohortCase("enroll/cohort") {
+            @Override
+            void run() throws Exception {
+                enrollmentService.enrollCohort(course.getId(), activeStudentIds);
+            }
+        });
+        register(new LeaderboardCase("top10/sql") {
+            @Override
+            void run() throws Exception {
+                for (UUID courseId : busiestCourseIds) {
+                    rankingService.topAttendanceByRank(courseId, 10);
+                }
+            }
+        });
+        register(new LeaderboardCase("top10/heap") {
+            @Override
+            void setUp() throws Exception {
+                for (UUID courseId : busiestCourseIds) {
+                    rankingService.getCourseStats(courseId);
+                }
+            }
+
+            @Override
+            void run() throws Exception {
+                for (UUID courseId : busiestCourseIds) {
+                    rankingService.topAttendance(courseId, 10);
+                }
+            }
+        });
+        registerReportCases();
+    }
+
+    // Reports rendered with every lookup on the calling thread versus fanned out over the
+    // shared ReportExecutor. The report cache is cleared before each run.
+    private void registerReportCases() {
+        ReportService serial = new ReportService(ReportExecutor.serial());
+        ReportService parallel = new ReportService();
+
+        register(new ReportCase("report/summary/serial", () -> activeStudentCount) {
+            @Override
+            void run() throws Exception {
+                serial.attendanceSummaryReport();
+            }
+        });
+        register(new ReportCase("report/summary/parallel", () -> activeStudentCount) {
+            @Override
+            void run() throws Exception {
+                parallel.attendanceSummaryReport();
+            }
+        });
+        register(new ReportCase("report/statistics/serial", () -> courseCount) {
+            @Override
+            void run() throws Exception {
+                serial.courseEnrollmentStatistics();
+            }
+        });
+        register(new ReportCase("report/statistics/parallel", () -> courseCount) {
+            @Override
+            void run() throws Exception {
+                parallel.courseEnrollmentStatistics();
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = 500;
+        int iterations = 5;
+        String only = "";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--only":
+                    only = args[++i];
+                    break;
+                default:
+                    System.err.println("Usage: BenchmarkSuite [--size <rows>] [--iterations <n>] [--only <case-prefix>]");
+                    System.exit(2);
+            }
+        }
+
+        BenchmarkSuite suite = new BenchmarkSuite(size);
+        suite.loadFixtureIds();
+        suite.run(iterations, only, System.out);
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    public void run(int iterations, String only, PrintStream out) throws Exception {
+        out.printf("%-28s %6s %10s %10s %10s %12s%n", "Case", "Size", "mean ms", "p50 ms", "min ms", "rows/s");
+        for (Case benchmark : cases) {
+            if (!benchmark.name.startsWith(only)) continue;
+
+            // One untimed pass warms the JIT and the server's plan cache.
+            time(benchmark);
+            long[] samples = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                samples[i] = time(benchmark);
+            }
+            Arrays.sort(samples);
+
+            double mean = Arrays.stream(samples).average().orElse(0) / 1e6;
+            out.printf("%-28s %6d %10.2f %10.2f %10.2f %12.0f%n", benchmark.name, benchmark.size(), mean,
+                    samples[samples.length / 2] / 1e6, samples[0] / 1e6, mean == 0 ? 0 : benchmark.size() / (mean / 1000));
+        }
+    }
+
+    private long time(Case benchmark) throws Exception {
+        benchmark.setUp();
+        try {
+            long begin = System.nanoTime();
+            benchmark.run();
+            return System.nanoTime() - begin;
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private void register(Case benchmark) {
+        cases.add(benchmark);
+    }
+
+    private void loadFixtureIds() throws Exception {
+        activeStudentIds = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT id FROM students WHERE status = 'Active' AND deleted_at IS NULL ORDER BY id LIMIT ?")) {
+            stmt.setInt(1, size);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                activeStudentIds.add((UUID) rs.getObject(1));
+            }
+        }
+        if (activeStudentIds.size() < size) {
+            throw new IllegalStateException("Need " + size + " active students; run DataGenerator with a larger scale");
+        }
+
+        busiestCourseIds = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT course_id FROM enrollments WHERE deleted_at IS NULL GROUP BY course_id ORDER BY COUNT(*) DESC, course_id LIMIT ?")) {
+            stmt.setInt(1, LEADERBOARD_COURSES);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                busiestCourseIds.add((UUID) rs.getObject(1));
+            }
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT (SELECT COUNT(*) FROM students WHERE status = 'Active' AND deleted_at IS NULL), " +
+                     "(SELECT COUNT(*) FROM courses WHERE deleted_at IS NULL)")) {
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            activeStudentCount = rs.getInt(1);
+            courseCount = rs.getInt(2);
+        }
+    }
+
+    // Enrolls into a scratch course sized to fit every student. tearDown hard-deletes the course,
+    // which cascades to the enrollments the case created; CourseDAO.delete would only mark them
+    // deleted and leave them for the purger.
+    private abstract class CohortCase extends Case {
+        Course course;
+
+        CohortCase(String name) {
+            super(name);
+        }
+
+        @Override
+        void setUp() throws Exception {
+            course = new Course("BENCH-" + UUID.randomUUID().toString().substring(0, 8), "Benchmark cohort",
+                    "Scratch course created by BenchmarkSuite", 3, "Benchmark", "Benchmark", size);
+            courseDAO.create(course);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("DELETE FROM courses WHERE id = ?")) {
+                stmt.setObject(1, course.getId());
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Top-10 attendance lookups over the busiest courses. The heap variant is measured against
+    // a warm stats cache, which is how interactive callers see it.
+    private abstract class LeaderboardCase extends Case {
+        LeaderboardCase(String name) {
+            super(name);
+        }
+
+        @Override
+        int size() {
+            return busiestCourseIds.size();
+        }
+    }
+
+    private abstract class ReportCase extends Case {
+        private final IntSupplier rows;
+
+        ReportCase(String name, IntSupplier rows) {
+            super(name);
+            this.rows = rows;
+        }
+
+        @Override
+        int size() {
+            return rows.getAsInt();
+        }
+
+        @Override
+        void setUp() {
+            ReportCache.getInstance().invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.sms.tools;
+
+import com.sms.dao.AttendancePartitionDAO;
+import com.sms.utils.DatabaseConnection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Generates a deterministic synthetic dataset and bulk loads it with COPY.
+ *
+ * Usage: DataGenerator --scale <rows> [--seed <n>] [--truncate]
+ *
+ * The scale is the approximate total row count across all four tables (1k to 10M). Each
+ * student contributes one student row, four enrollments and about thirty attendance rows per
+ * enrollment, so attendance dominates the volume as it does in production. The same seed
+ * always produces the same rows, including ids.
+ */
+public class DataGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(DataGenerator.class);
+
+    private static final int ENROLLMENTS_PER_STUDENT = 4;
+    private static final int SESSIONS_PER_ENROLLMENT = 30;
+    private static final int ROWS_PER_STUDENT = 1 + ENROLLMENTS_PER_STUDENT * (1 + SESSIONS_PER_ENROLLMENT);
+    private static final int COPY_CHUNK_ROWS = 50_000;
+    private static final String[] OUTBOX_TABLES = {"students", "courses", "enrollments", "attendance"};
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Diya", "Ishaan", "Ananya", "Kabir", "Meera", "Rohan",
+            "Saanvi", "Vivaan", "Aditi", "Liam", "Olivia", "Noah", "Emma", "Lucas", "Sofia", "Arjun", "Priya"};
+    private static final String[] LAST_NAMES = {"Sharma", "Patel", "Reddy", "Iyer", "Gupta", "Khan", "Singh",
+            "Nair", "Das", "Mehta", "Smith", "Garcia", "Chen", "Kim", "Brown", "Silva", "Joshi", "Rao"};
+    private static final String[] SUBJECTS = {"CS", "MATH", "PHYS", "CHEM", "BIO", "ENG", "HIST", "ECON"};
+    private static final String[] INSTRUCTORS = {"Dr. Kapoor", "Dr. Menon", "Prof. Allen", "Dr. Bose",
+            "Prof. Walker", "Dr. Fernandes", "Prof. Zhang", "Dr. Pillai"};
+    private static final String[] SEMESTERS = {"Fall 2024", "Spring 2025", "Fall 2025", "Spring 2026", "Fall 2026"};
+    private static final LocalDate[] SEMESTER_STARTS = {LocalDate.of(2024, 8, 26), LocalDate.of(2025, 1, 13),
+            LocalDate.of(2025, 8, 25), LocalDate.of(2026, 1, 12), LocalDate.of(2026, 8, 24)};
+    private static final String[] GRADES = {"A+", "A", "A-", "B+", "B", "B-", "C+", "C", "C-", "D", "F"};
+
+    private final SplittableRandom random;
+    private final int studentCount;
+    private final int courseCount;
+    private final LocalDate today = LocalDate.now();
+
+    private UUID[] courseIds;
+    private int[] courseSemesters;
+    private UUID[] studentIds;
+
+    public DataGenerator(long scale, long seed) {
+        this.random = new SplittableRandom(seed);
+        this.studentCount = (int) Math.max(10, scale / ROWS_PER_STUDENT);
+        this.courseCount = Math.max(5, Math.min(SUBJECTS.length * 900, studentCount * ENROLLMENTS_PER_STUDENT / 120));
+    }
+
+    public static void main(String[] args) throws Exception {
+        long scale = 1_000;
+        long seed = 42;
+        boolean truncate = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scale":
+                    scale = Long.parseLong(args[++i].replace("_", ""));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--truncate":
+                    truncate = true;
+                    break;
+                default:
+                    System.err.println("Usage: DataGenerator --scale <rows> [--seed <n>] [--truncate]");
+                    System.exit(2);
+            }
+        }
+
+        new DataGenerator(scale, seed).load(truncate);
+    }
+
+    public void load(boolean truncate) throws Exception {
+        long start = System.nanoTime();
+        ensureAttendancePartitions();
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+
+            try (Statement stmt = conn.createStatement()) {
+                if (truncate) {
+                    stmt.execute("TRUNCATE attendance, enrollments, courses, students, student_term_aggregates");
+                }
+                // Per-row aggregate maintenance is far slower than one rebuild after the load.
+                stmt.execute("ALTER TABLE enrollments DISABLE TRIGGER trg_enrollments_term_aggregates");
+                // Generated rows are not changes anyone subscribed to; keep them out of the outbox.
+                for (String table : OUTBOX_TABLES) {
+                    stmt.execute("ALTER TABLE " + table + " DISABLE TRIGGER trg_" + table + "_outbox");
+                }
+            }
+
+            long courses = loadCourses(copy);
+            long students = loadStudents(copy);
+            long[] enrollmentsAndAttendance = loadEnrollmentsAndAttendance(copy);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE enrollments ENABLE TRIGGER trg_enrollments_term_aggregates");
+                for (String table : OUTBOX_TABLES) {
+                    stmt.execute("ALTER TABLE " + table + " ENABLE TRIGGER trg_" + table + "_outbox");
+                }
+                // Maintenance over the whole data set; not bound by the statement timeouts.
+                stmt.setQueryTimeout(0);
+                stmt.execute("SELECT rebuild_student_term_aggregates(ARRAY(SELECT id FROM students))");
+            }
+            conn.commit();
+
+            try (Statement stmt = conn.createStatement()) {
+                conn.setAutoCommit(true);
+                stmt.setQueryTimeout(0);
+                stmt.execute("ANALYZE students");
+                stmt.execute("ANALYZE courses");
+                stmt.execute("ANALYZE enrollments");
+                stmt.execute("ANALYZE attendance");
+                stmt.execute("ANALYZE student_term_aggregates");
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = courses + students + enrollmentsAndAttendance[0] + enrollmentsAndAttendance[1];
+            System.out.printf("Loaded %d students, %d courses, %d enrollments, %d attendance rows " +
+                            "(%d total) in %.1fs (%.0f rows/s)%n",
+                    students, courses, enrollmentsAndAttendance[0], enrollmentsAndAttendance[1],
+                    total, seconds, total / seconds);
+        }
+    }
+
+    private void ensureAttendancePartitions() throws Exception {
+        AttendancePartitionDAO partitionDAO = new AttendancePartitionDAO();
+        LocalDate month = SEMESTER_STARTS[0].withDayOfMonth(1);
+        while (!month.isAfter(today)) {
+            partitionDAO.ensurePartition(month);
+            month = month.plusMonths(1);
+        }
+    }
+
+    private long loadCourses(CopyManager copy) throws Exception {
+        courseIds = new UUID[courseCount];
+        courseSemesters = new int[courseCount];
+        CopyBuffer buffer = new CopyBuffer(copy, "COPY courses (id, course_code, course_name, description, credits, " +
+                "instructor, semester, max_capacity) FROM STDIN WITH (FORMAT csv)");
+
+        for (int i = 0; i < courseCount; i++) {
+            String subject = SUBJECTS[i % SUBJECTS.length];
+            int number = 100 + i / SUBJECTS.length;
+            courseIds[i] = nextUuid();
+            courseSemesters[i] = random.nextInt(SEMESTERS.length);
+            buffer.row(courseIds[i], subject + number, subject + " " + number, "Generated course",
+                    1 + random.nextInt(6), INSTRUCTORS[random.nextInt(INSTRUCTORS.length)],
+                    SEMESTERS[courseSemesters[i]], 500);
+        }
+
+        return buffer.finish();
+    }
+
+    private long loadStudents(CopyManager copy) throws Exception {
+        studentIds = new UUID[studentCount];
+        CopyBuffer buffer = new CopyBuffer(copy, "COPY students (id, student_id, first_name, last_name, email, phone, " +
+                "date_of_birth, address, enrollment_date, status) FROM STDIN WITH (FORMAT csv)");
+
+        for (int i = 0; i < studentCount; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            int roll = random.nextInt(100);
+            String status = roll < 85 ? "Active" : roll < 95 ? "Graduated" : "Inactive";
+            studentIds[i] = nextUuid();
+            buffer.row(studentIds[i], String.format("STU%06d", i + 1), first, last,
+                    (first + "." + last + "." + (i + 1) + "@example.edu").toLowerCase(),
+                    String.format("9%09d", random.nextInt(1_000_000_000)),
+                    LocalDate.of(1995, 1, 1).plusDays(random.nextInt(4380)),
+                    (1 + random.nextInt(999)) + " Campus Road",
+                    SEMESTER_STARTS[random.nextInt(SEMESTER_STARTS.length)].minusDays(random.nextInt(30)),
+                    status);
+        }
+
+        return buffer.finish();
+    }
+
+    private long[] loadEnrollmentsAndAttendance(CopyManager copy) throws Exception {
+        CopyBuffer enrollments = new CopyBuffer(copy, "COPY enrollments (id, student_id, course_id, enrollment_date, " +
+                "grade, status) FROM STDIN WITH (FORMAT csv)");
+        // Attendance rows reference enrollments, so the enrollments copied so far go first.
+        CopyBuffer attendance = new CopyBuffer(copy, "COPY attendance (id, enrollment_id, attendance_date, status, " +
+                "remarks) FROM STDIN WITH (FORMAT csv)", enrollments);
+        int[] picked = new int[ENROLLMENTS_PER_STUDENT];
+
+        for (int s = 0; s < studentCount; s++) {
+            // Each student has a stable attendance propensity so percentages spread realistically.
+            double propensity = 0.55 + 0.45 * Math.sqrt(random.nextDouble());
+            int count = Math.min(ENROLLMENTS_PER_STUDENT, courseCount);
+
+            for (int k = 0; k < count; k++) {
+                picked[k] = pickDistinctCourse(picked, k);
+                int course = picked[k];
+                LocalDate semesterStart = SEMESTER_STARTS[courseSemesters[course]];
+                boolean past = semesterStart.plusWeeks(16).isBefore(today);
+                int roll = random.nextInt(100);
+                String status = roll < 5 ? "Dropped" : past ? "Completed" : "Enrolled";
+                String grade = status.equals("Completed") ? GRADES[gradeIndex(propensity)] : null;
+
+                UUID enrollmentId = nextUuid();
+                enrollments.row(enrollmentId, studentIds[s], courseIds[course],
+                        semesterStart.minusDays(random.nextInt(14)), grade, status);
+
+                for (int session = 0; session < SESSIONS_PER_ENROLLMENT; session++) {
+                    LocalDate date = sessionDate(semesterStart, session);
+                    if (date.isAfter(today)) {
+                        break;
+                    }
+                    double r = random.nextDouble();
+                    String mark = r < propensity ? "Present" : r < propensity + (1 - propensity) / 3 ? "Late" : "Absent";
+                    attendance.row(nextUuid(), enrollmentId, date, mark, null);
+                }
+            }
+        }
+
+        return new long[]{enrollments.finish(), attendance.finish()};
+    }
+
+    private int pickDistinctCourse(int[] picked, int taken) {
+        while (true) {
+            int candidate = random.nextInt(courseCount);
+            boolean duplicate = false;
+            for (int i = 0; i < taken; i++) {
+                if (picked[i] == candidate) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                return candidate;
+            }
+        }
+    }
+
+    private int gradeIndex(double propensity) {
+        double score = propensity * 0.7 + random.nextDouble() * 0.3;
+        int index = (int) ((1 - score) * GRADES.length * 1.6);
+        return Math.max(0, Math.min(GRADES.length - 1, index));
+    }
+
+    // Three sessions a week (Mon/Wed/Fri) from the first Monday of the semester.
+    private LocalDate sessionDate(LocalDate semesterStart, int session) {
+        LocalDate monday = semesterStart;
+        while (monday.getDayOfWeek() != DayOfWeek.MONDAY) {
+            monday = monday.plusDays(1);
+        }
+        return monday.plusWeeks(session / 3).plusDays((session % 3) * 2L);
+    }
+
+    private UUID nextUuid() {
+        long most = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long least = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+
+    private static class CopyBuffer {
+        private final CopyManager copy;
+        private final String sql;
+        private final CopyBuffer parent;
+        private final StringBuilder buffer = new StringBuilder();
+        private int pending;
+        private long total;
+
+        CopyBuffer(CopyManager copy, String sql) {
+            this(copy, sql, null);
+        }
+
+        // Rows of a parent buffer are flushed before this buffer's, so foreign keys always resolve.
+        CopyBuffer(CopyManager copy, String sql, CopyBuffer parent) {
+            this.copy = copy;
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void row(Object... values) throws Exception {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) buffer.append(',');
+                if (values[i] != null) {
+                    String value = values[i].toString();
+                    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+                        buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+                    } else {
+                        buffer.append(value);
+                    }
+                }
+            }
+            buffer.append('\n');
+            if (++pending >= COPY_CHUNK_ROWS) {
+                flush();
+            }
+        }
+
+        long finish() throws Exception {
+            flush();
+            return total;
+        }
+
+        private void flush() throws Exception {
+            if (pending == 0) return;
+            if (parent != null) {
+                parent.flush();
+            }
+            total += copy.copyIn(sql, new StringReader(buffer.toString()));
+            logger.debug("Copied " + total + " rows: " + sql.substring(0, sql.indexOf('(')).trim());
+            buffer.setLength(0);
+            pending = 0;
+        }
+    }
+}
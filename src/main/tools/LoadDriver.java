@@ -0,0 +1,279 @@
+package com.sms.tools;
+
+import com.sms.exceptions.ValidationException;
+import com.sms.services.AttendanceService;
+import com.sms.services.EnrollmentService;
+import com.sms.services.StudentService;
+import com.sms.utils.DatabaseConnection;
+import com.sms.utils.UnitOfWork;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a weighted mix of service operations from several threads and reports throughput
+ * and latency percentiles per operation.
+ *
+ * Usage: LoadDriver [--threads <n>] [--duration <seconds>] [--warmup <seconds>] [--seed <n>]
+ *
+ * Run against a database populated by {@link DataGenerator}.
+ */
+public class LoadDriver {
+    private static final String[] STATUSES = {"Present", "Present", "Present", "Late", "Absent"};
+    private static final String[] GRADES = {"A", "A-", "B+", "B", "C"};
+
+    private final StudentService studentService = new StudentService();
+    private final EnrollmentService enrollmentService = new EnrollmentService();
+    private final AttendanceService attendanceService = new AttendanceService();
+
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+
+    private List<UUID> studentIds;
+    private List<UUID> courseIds;
+    private List<UUID> enrollmentIds;
+
+    interface Action {
+        void run(SplittableRandom random) throws Exception;
+    }
+
+    static class Operation {
+        final String name;
+        final int weight;
+        final Action action;
+
+        Operation(String name, int weight, Action action) {
+            this.name = name;
+            this.weight = weight;
+            this.action = action;
+        }
+    }
+
+    public LoadDriver() {
+        register("getStudent", 25, r -> studentService.getStudent(pick(studentIds, r)));
+        register("getStudentEnrollments", 15, r -> enrollmentService.getStudentEnrollments(pick(studentIds, r)));
+        register("getAttendancePercentage", 20, r -> attendanceService.getAttendancePercentage(pick(enrollmentIds, r)));
+        register("getEnrollmentAttendance", 10, r -> attendanceService.getEnrollmentAttendance(pick(enrollmentIds, r)));
+        register("getCourseEnrollmentCount", 10, r -> enrollmentService.getCourseEnrollmentCount(pick(courseIds, r)));
+        register("markAttendance", 12, r -> attendanceService.markAttendance(pick(enrollmentIds, r),
+                LocalDate.now().minusDays(r.nextInt(365)), STATUSES[r.nextInt(STATUSES.length)]));
+        register("enrollStudent", 4, r -> enrollmentService.enrollStudent(pick(studentIds, r), pick(courseIds, r)));
+        register("updateGrade", 4, r -> enrollmentService.updateGrade(pick(enrollmentIds, r), GRADES[r.nextInt(GRADES.length)]));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+        int duration = 60;
+        int warmup = 10;
+        long seed = 42;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--duration":
+                    duration = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Usage: LoadDriver [--threads <n>] [--duration <seconds>] [--warmup <seconds>] [--seed <n>]");
+                    System.exit(2);
+            }
+        }
+
+        LoadDriver driver = new LoadDriver();
+        driver.loadIds();
+        if (warmup > 0) {
+            driver.run(threads, warmup, seed - 1);
+        }
+        driver.run(threads, duration, seed).print(System.out);
+    }
+
+    public Report run(int threads, int durationSeconds, long seed) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        SplittableRandom root = new SplittableRandom(seed);
+        Recorder[] recorders = new Recorder[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+
+        long transactionsBefore = transactionCount();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Recorder recorder = new Recorder(operations.size());
+            SplittableRandom random = root.split();
+            recorders[t] = recorder;
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        int index = choose(random);
+                        long begin = System.nanoTime();
+                        try {
+                            operations.get(index).action.run(random);
+                            recorder.record(index, System.nanoTime() - begin);
+                        } catch (ValidationException e) {
+                            recorder.rejected[index]++;
+                        } catch (Exception e) {
+                            recorder.errors[index]++;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.start();
+        }
+        done.await();
+
+        return new Report(operations, recorders, System.nanoTime() - start, transactionCount() - transactionsBefore);
+    }
+
+    // Database transactions started by the run: one per unit of work plus one per connection
+    // checked out outside a unit of work.
+    private static long transactionCount() {
+        return UnitOfWork.getCommitCount() + DatabaseConnection.getStandaloneCheckoutCount();
+    }
+
+    private void register(String name, int weight, Action action) {
+        operations.add(new Operation(name, weight, action));
+        totalWeight += weight;
+    }
+
+    private int choose(SplittableRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (int i = 0; i < operations.size(); i++) {
+            roll -= operations.get(i).weight;
+            if (roll < 0) return i;
+        }
+        return operations.size() - 1;
+    }
+
+    private static UUID pick(List<UUID> ids, SplittableRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private void loadIds() throws Exception {
+        studentIds = sampleIds("SELECT id FROM students WHERE status = 'Active' AND deleted_at IS NULL");
+        courseIds = sampleIds("SELECT id FROM courses WHERE deleted_at IS NULL");
+        enrollmentIds = sampleIds("SELECT id FROM enrollments WHERE status = 'Enrolled' AND deleted_at IS NULL");
+        if (studentIds.isEmpty() || courseIds.isEmpty() || enrollmentIds.isEmpty()) {
+            throw new IllegalStateException("Database has no data; run DataGenerator first");
+        }
+    }
+
+    private List<UUID> sampleIds(String sql) throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql + " ORDER BY id LIMIT 20000")) {
+            while (rs.next()) {
+                ids.add((UUID) rs.getObject(1));
+            }
+        }
+        return ids;
+    }
+
+    static class Recorder {
+        final long[][] samples;
+        final int[] counts;
+        final int[] rejected;
+        final int[] errors;
+
+        Recorder(int operations) {
+            samples = new long[operations][1024];
+            counts = new int[operations];
+            rejected = new int[operations];
+            errors = new int[operations];
+        }
+
+        void record(int operation, long nanos) {
+            if (counts[operation] == samples[operation].length) {
+                samples[operation] = Arrays.copyOf(samples[operation], counts[operation] * 2);
+            }
+            samples[operation][counts[operation]++] = nanos;
+        }
+    }
+
+    public static class Report {
+        private final List<Operation> operations;
+        private final Recorder[] recorders;
+        private final long elapsedNanos;
+        private final long transactions;
+
+        Report(List<Operation> operations, Recorder[] recorders, long elapsedNanos, long transactions) {
+            this.operations = operations;
+            this.recorders = recorders;
+            this.elapsedNanos = elapsedNanos;
+            this.transactions = transactions;
+        }
+
+        public void print(PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            long[] all = new long[0];
+
+            out.printf("%-26s %9s %9s %7s %7s %9s %9s %9s %9s%n",
+                    "Operation", "Ops", "Ops/s", "Reject", "Errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+            for (int op = 0; op < operations.size(); op++) {
+                long[] merged = merge(op);
+                int rejected = 0;
+                int errors = 0;
+                for (Recorder recorder : recorders) {
+                    rejected += recorder.rejected[op];
+                    errors += recorder.errors[op];
+                }
+                printRow(out, operations.get(op).name, merged, rejected, errors, seconds);
+
+                long[] combined = Arrays.copyOf(all, all.length + merged.length);
+                System.arraycopy(merged, 0, combined, all.length, merged.length);
+                all = combined;
+            }
+            Arrays.sort(all);
+            printRow(out, "TOTAL", all, 0, 0, seconds);
+            out.printf("Transactions: %d (%.2f per operation)%n",
+                    transactions, all.length == 0 ? 0.0 : (double) transactions / all.length);
+            DatabaseConnection database = DatabaseConnection.getInstance();
+            out.printf("Connection retries: %d (%d exhausted); circuit breaker: %s%n",
+                    database.getRetryPolicy().getRetryCount(), database.getRetryPolicy().getExhaustedCount(),
+                    database.getCircuitBreaker().describe());
+            if (database.getReplicaRouter() != null) {
+                out.printf("Reads: %s%n", database.getReplicaRouter().describe());
+            }
+        }
+
+        private long[] merge(int op) {
+            int size = 0;
+            for (Recorder recorder : recorders) size += recorder.counts[op];
+            long[] merged = new long[size];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.samples[op], 0, merged, offset, recorder.counts[op]);
+                offset += recorder.counts[op];
+            }
+            Arrays.sort(merged);
+            return merged;
+        }
+
+        private static void printRow(PrintStream out, String name, long[] sorted, int rejected, int errors, double seconds) {
+            out.printf("%-26s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    name, sorted.length, sorted.length / seconds, rejected, errors,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0.0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.sms.utils;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listens on the {@code sms_changes} channel, which the notify_table_change triggers publish to
+ * after every statement that changes a cached table, and hands the changes of other instances
+ * to {@link ChangeNotifier#remoteChanged(Set, Set)}. Notices from this instance (matched by the
+ * connection's application name) are skipped, since its own writes are already announced.
+ * Attendance and enrollment notices carry the ids of the enrollments they touched, or {@code *}
+ * when there were too many to list.
+ *
+ * Notices arriving within COALESCE_MILLIS of each other are merged into one invalidation. The
+ * listener holds one dedicated connection, pings it when idle, and reconnects with backoff if it
+ * is lost; because notices sent while disconnected are gone, every table (and enrollment) is
+ * treated as changed after a reconnect.
+ */
+public class ChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+    public static final String CHANNEL = "sms_changes";
+    private static final long COALESCE_MILLIS = 200;
+    private static final int POLL_MILLIS = 1000;
+    private static final long PING_AFTER_IDLE_MILLIS = 30_000;
+    private static final Set<String> ALL_TABLES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            ChangeNotifier.STUDENTS, ChangeNotifier.COURSES, ChangeNotifier.ENROLLMENTS, ChangeNotifier.ATTENDANCE)));
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String nodeName;
+    private final RetryPolicy backoff = new RetryPolicy(Integer.MAX_VALUE, 500, 30_000);
+    private volatile boolean running;
+    private Thread thread;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong ownSkipped = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    public ChangeFeed(String url, String username, String password, String nodeName) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.nodeName = nodeName;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String describe() {
+        return String.format("%d notices (%d own), %d invalidations, %d reconnects",
+                received.get(), ownSkipped.get(), invalidations.get(), reconnects.get());
+    }
+
+    private void run() {
+        int failures = 0;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                if (connectedBefore) {
+                    reconnects.incrementAndGet();
+                    logger.info("Change feed reconnected; invalidating all cached data");
+                    publish(ALL_TABLES, null);
+                } else {
+                    logger.info("Listening for changes from other instances on " + CHANNEL);
+                }
+                connectedBefore = true;
+                failures = 0;
+                listen(conn);
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                long delay = backoff.delayFor(++failures);
+                logger.warn("Change feed connection lost (" + e.getMessage() + "); reconnecting in " + delay + "ms");
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void listen(Connection conn) throws SQLException {
+        PGConnection pg = conn.unwrap(PGConnection.class);
+        Set<String> pending = new HashSet<>();
+        Set<UUID> pendingEnrollments = new HashSet<>();
+        long firstPendingAt = 0;
+        long lastActivity = System.currentTimeMillis();
+
+        while (running) {
+            int wait = pending.isEmpty() ? POLL_MILLIS
+                    : (int) Math.max(1, COALESCE_MILLIS - (System.currentTimeMillis() - firstPendingAt));
+            PGNotification[] notifications = pg.getNotifications(wait);
+            long now = System.currentTimeMillis();
+
+            if (notifications != null && notifications.length > 0) {
+                lastActivity = now;
+                for (PGNotification notification : notifications) {
+                    received.incrementAndGet();
+                    String[] parts = notification.getParameter().split(" ", 3);
+                    if (parts.length >= 2 && parts[1].equals(nodeName)) {
+                        ownSkipped.incrementAndGet();
+                        continue;
+                    }
+                    if (pending.isEmpty()) {
+                        firstPendingAt = now;
+                    }
+                    pending.add(parts[0]);
+                    if (pendingEnrollments != null
+                            && (parts[0].equals(ChangeNotifier.ATTENDANCE) || parts[0].equals(ChangeNotifier.ENROLLMENTS))) {
+                        Set<UUID> ids = parts.length == 3 ? enrollmentIds(parts[2]) : null;
+                        if (ids == null) {
+                            pendingEnrollments = null;
+                        } else {
+                            pendingEnrollments.addAll(ids);
+                        }
+                    }
+                }
+            } else if (now - lastActivity >= PING_AFTER_IDLE_MILLIS) {
+                // A silently dropped socket never delivers another notice; a query finds out.
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SELECT 1");
+                }
+                lastActivity = now;
+            }
+
+            if (!pending.isEmpty() && now - firstPendingAt >= COALESCE_MILLIS) {
+                publish(pending, pendingEnrollments);
+                pending = new HashSet<>();
+                pendingEnrollments = new HashSet<>();
+            }
+        }
+    }
+
+    private void publish(Set<String> tables, Set<UUID> enrollmentIds) {
+        invalidations.incrementAndGet();
+        ChangeNotifier.remoteChanged(tables, enrollmentIds);
+    }
+
+    // The id list of a notice; null when it was cut short ("*") or cannot be read.
+    static Set<UUID> enrollmentIds(String ids) {
+        if (ids.isEmpty() || ids.equals("*")) {
+            return null;
+        }
+        Set<UUID> result = new HashSet<>();
+        try {
+            for (String id : ids.split(",")) {
+                result.add(UUID.fromString(id.trim()));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells interested caches which tables a DAO has written. Inside a UnitOfWork the notice is
+ * held until the transaction commits (and dropped on rollback), so a cache is never cleared
+ * for a change that did not happen, nor refilled with a write that is not yet visible.
+ *
+ * Writes made by other application instances arrive through {@link ChangeFeed} and are passed
+ * to every listener as well, and additionally to remote listeners: state that local writes
+ * already maintain incrementally only needs to hear about the others, and is told which
+ * enrollments they touched.
+ */
+public class ChangeNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeNotifier.class);
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static final List<RemoteListener> remoteListeners = new CopyOnWriteArrayList<>();
+
+    public static final String STUDENTS = "students";
+    public static final String COURSES = "courses";
+    public static final String ENROLLMENTS = "enrollments";
+    public static final String ATTENDANCE = "attendance";
+
+    @FunctionalInterface
+    public interface Listener {
+        void tablesChanged(Set<String> tables);
+    }
+
+    @FunctionalInterface
+    public interface RemoteListener {
+        // enrollmentIds are the enrollments whose row or attendance changed, or null when the
+        // notices did not name them all.
+        void tablesChanged(Set<String> tables, Set<UUID> enrollmentIds);
+    }
+
+    private ChangeNotifier() {}
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static void addRemoteListener(RemoteListener listener) {
+        remoteListeners.add(listener);
+    }
+
+    public static void changed(String... tables) {
+        Set<String> changed = new HashSet<>(Arrays.asList(tables));
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            unitOfWork.afterCommit(() -> publish(changed));
+        } else {
+            publish(changed);
+        }
+    }
+
+    // Committed changes made by another instance (or any other client).
+    static void remoteChanged(Set<String> tables, Set<UUID> enrollmentIds) {
+        publish(tables);
+        for (RemoteListener listener : remoteListeners) {
+            try {
+                listener.tablesChanged(tables, enrollmentIds);
+            } catch (RuntimeException e) {
+                logger.warn("Change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void publish(Set<String> tables) {
+        for (Listener listener : listeners) {
+            try {
+                listener.tablesChanged(tables);
+            } catch (RuntimeException e) {
+                logger.warn("Change listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
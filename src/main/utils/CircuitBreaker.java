@@ -0,0 +1,180 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Fails fast while the database is unreachable. After {@code failureThreshold} consecutive
+ * failures the breaker opens and calls are rejected with {@link OpenException} without touching
+ * the network. Once {@code openMillis} has passed it goes half-open and lets a single probe
+ * through: success closes it, another failure opens it again.
+ *
+ * Only failures matching the predicate (by default {@link RetryPolicy#isTransient}) count; any
+ * other SQLException means the server answered and is treated as a success.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    public static class OpenException extends SQLException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+    private final Predicate<SQLException> isFailure;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long enteredAt;
+
+    private long successes;
+    private long failures;
+    private long rejections;
+    private final Map<State, Long> transitions = new EnumMap<>(State.class);
+    private final Map<State, Long> timeInState = new EnumMap<>(State.class);
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis, RetryPolicy::isTransient);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock, Predicate<SQLException> isFailure) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+        this.isFailure = isFailure;
+        this.enteredAt = clock.getAsLong();
+        for (State s : State.values()) {
+            transitions.put(s, 0L);
+            timeInState.put(s, 0L);
+        }
+    }
+
+    public <T> T call(SqlCall<T> call) throws SQLException {
+        boolean probe = acquire();
+        boolean recorded = false;
+        try {
+            T result = call.call();
+            onSuccess();
+            recorded = true;
+            return result;
+        } catch (SQLException e) {
+            if (isFailure.test(e)) {
+                onFailure(e);
+            } else {
+                onSuccess();
+            }
+            recorded = true;
+            throw e;
+        } finally {
+            if (probe && !recorded) {
+                releaseProbe();
+            }
+        }
+    }
+
+    // Returns true when the caller is the half-open probe.
+    private synchronized boolean acquire() throws OpenException {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejections++;
+        throw new OpenException("Database unavailable; circuit breaker is " + state);
+    }
+
+    private synchronized void onSuccess() {
+        successes++;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+            logger.info("Database reachable again; circuit breaker closed");
+        }
+    }
+
+    private synchronized void onFailure(SQLException e) {
+        failures++;
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = clock.getAsLong();
+            transition(State.OPEN);
+            logger.warn("Circuit breaker opened after " + consecutiveFailures + " consecutive connection failures ("
+                    + e.getSQLState() + ": " + e.getMessage() + "); failing fast for " + openMillis + "ms");
+        }
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    private void transition(State next) {
+        long now = clock.getAsLong();
+        timeInState.merge(state, now - enteredAt, Long::sum);
+        enteredAt = now;
+        state = next;
+        transitions.merge(next, 1L, Long::sum);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized long getSuccessCount() {
+        return successes;
+    }
+
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejections;
+    }
+
+    // Number of times the breaker has entered the given state.
+    public synchronized long getTransitionCount(State s) {
+        return transitions.get(s);
+    }
+
+    // Total milliseconds spent in the given state, including the current stretch.
+    public synchronized long getTimeInState(State s) {
+        long total = timeInState.get(s);
+        return s == state ? total + clock.getAsLong() - enteredAt : total;
+    }
+
+    public synchronized String describe() {
+        return String.format("%s (opened %d, half-open %d, closed %d; %d ok, %d failed, %d rejected)",
+                getState(), transitions.get(State.OPEN), transitions.get(State.HALF_OPEN),
+                transitions.get(State.CLOSED), successes, failures, rejections);
+    }
+}
@@ -0,0 +1,204 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded JDBC connection pool. Borrowed connections are proxies whose close() hands the
+ * physical connection back to the pool, so DAOs keep their try-with-resources pattern. Their
+ * statements are wrapped by {@link StatementTracer}.
+ */
+public class ConnectionPool {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private volatile boolean shutdown;
+
+    private static class PooledConnection {
+        final Connection physical;
+        final int defaultIsolation;
+        long lastReturned = System.currentTimeMillis();
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+        }
+    }
+
+    public ConnectionPool(String url, String username, String password, int maxSize, long borrowTimeoutMillis) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    return wrap(pooled);
+                }
+                closeQuietly(pooled.physical);
+            }
+            return wrap(new PooledConnection(DriverManager.getConnection(url, username, password)));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Opens connections up front so the first requests do not pay the connect/TLS handshake.
+    public void prefill(int count) throws SQLException {
+        int target = Math.min(count, maxSize);
+        while (idle.size() < target && !shutdown) {
+            idle.offerLast(new PooledConnection(DriverManager.getConnection(url, username, password)));
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.physical);
+        }
+        logger.info("Connection pool shut down");
+    }
+
+    private boolean isUsable(PooledConnection pooled) throws SQLException {
+        if (pooled.physical.isClosed()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - pooled.lastReturned > VALIDATE_AFTER_IDLE_MILLIS) {
+            return pooled.physical.isValid(2);
+        }
+        return true;
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            if (shutdown || pooled.physical.isClosed()) {
+                closeQuietly(pooled.physical);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (pooled.physical.getTransactionIsolation() != pooled.defaultIsolation) {
+                pooled.physical.setTransactionIsolation(pooled.defaultIsolation);
+            }
+            if (pooled.physical.isReadOnly()) {
+                pooled.physical.setReadOnly(false);
+            }
+            pooled.lastReturned = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            logger.warn("Discarding connection that failed to reset: " + e.getMessage());
+            closeQuietly(pooled.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(PooledConnection pooled) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            release(pooled);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || pooled.physical.isClosed();
+                    case "unwrap":
+                        return pooled.physical.unwrap((Class<?>) args[0]);
+                    case "isWrapperFor":
+                        return pooled.physical.isWrapperFor((Class<?>) args[0]);
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        if (closed) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(pooled.physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (method.getName().equals("prepareStatement")) {
+                            return StatementTracer.getInstance().trace((PreparedStatement) result, (String) args[0]);
+                        }
+                        if (method.getName().equals("createStatement")) {
+                            return StatementTracer.getInstance().trace((Statement) result);
+                        }
+                        return result;
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+}
@@ -5,19 +5,76 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DatabaseConnection {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private static volatile DatabaseConnection instance;
+    private static volatile boolean driverLoaded;
+    private static final AtomicLong standaloneCheckouts = new AtomicLong();
+    // Sent as the connections' application_name, so change notices can be traced to their origin.
+    private static final String NODE_NAME = "sms-" + UUID.randomUUID().toString().substring(0, 8);
     private final String url;
     private final String username;
     private final String password;
+    private final int poolSize;
+    private final int minIdle;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final String replicaUrl;
+    private final String replicaUsername;
+    private final String replicaPassword;
+    private final int replicaPoolSize;
+    private final long replicaMaxLagMillis;
+    private volatile ConnectionPool pool;
+    private final boolean changeFeedEnabled;
+    private final String listenUrl;
+    private volatile ReplicaRouter replicaRouter;
+    private volatile ChangeFeed changeFeed;
 
     private DatabaseConnection() {
         Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        this.poolSize = Integer.parseInt(valueOrDefault(dotenv.get("DB_POOL_SIZE"), "10"));
+        this.minIdle = Integer.parseInt(valueOrDefault(dotenv.get("DB_POOL_MIN_IDLE"), "2"));
+        StatementTracer.getInstance().configure(
+                Integer.parseInt(valueOrDefault(dotenv.get("DB_QUERY_TIMEOUT_SECONDS"), "30")),
+                Integer.parseInt(valueOrDefault(dotenv.get("DB_BULK_TIMEOUT_SECONDS"), "300")),
+                Long.parseLong(valueOrDefault(dotenv.get("DB_SLOW_QUERY_MS"), "500")));
+        this.retryPolicy = new RetryPolicy(
+                Integer.parseInt(valueOrDefault(dotenv.get("DB_RETRY_ATTEMPTS"), "4")),
+                Long.parseLong(valueOrDefault(dotenv.get("DB_RETRY_BASE_MS"), "100")),
+                Long.parseLong(valueOrDefault(dotenv.get("DB_RETRY_MAX_MS"), "2000")));
+        this.circuitBreaker = new CircuitBreaker(
+                Integer.parseInt(valueOrDefault(dotenv.get("DB_BREAKER_FAILURES"), "5")),
+                Long.parseLong(valueOrDefault(dotenv.get("DB_BREAKER_OPEN_MS"), "10000")));
+
+        // Optional read replica for listings and reports; credentials default to the primary's.
+        this.replicaUrl = dotenv.get("DB_REPLICA_URL");
+        this.replicaUsername = dotenv.get("DB_REPLICA_USER");
+        this.replicaPassword = dotenv.get("DB_REPLICA_PASSWORD");
+        this.replicaPoolSize = Integer.parseInt(valueOrDefault(dotenv.get("DB_REPLICA_POOL_SIZE"), String.valueOf(poolSize)));
+        this.replicaMaxLagMillis = Long.parseLong(valueOrDefault(dotenv.get("DB_REPLICA_MAX_LAG_MS"), "5000"));
+        if (replicaUrl != null && !replicaUrl.isEmpty()) {
+            ChangeNotifier.addListener(tables -> markReplicaWrite());
+        }
+
+        // LISTEN needs a session-level connection; behind a transaction pooler point
+        // DB_LISTEN_URL at the database directly.
+        this.changeFeedEnabled = Boolean.parseBoolean(valueOrDefault(dotenv.get("DB_CHANGE_FEED"), "true"));
+        this.listenUrl = dotenv.get("DB_LISTEN_URL");
+
+        // DB_URL points the application at any Postgres instance, e.g. a local database
+        // loaded by the data generator, instead of the Supabase pooler.
+        String jdbcUrl = dotenv.get("DB_URL");
+        if (jdbcUrl != null && !jdbcUrl.isEmpty()) {
+            this.url = jdbcUrl;
+            this.username = dotenv.get("DB_USER");
+            this.password = dotenv.get("DB_PASSWORD");
+            return;
+        }
+
         String supabaseUrl = dotenv.get("SUPABASE_URL");
         String supabaseKey = dotenv.get("SUPABASE_ANON_KEY");
 
@@ -43,31 +100,180 @@ public class DatabaseConnection {
         return instance;
     }
 
+    public static void loadDriver() throws SQLException {
+        if (driverLoaded) {
+            return;
+        }
+        try {
+            Class.forName("org.postgresql.Driver");
+            driverLoaded = true;
+        } catch (ClassNotFoundException e) {
+            logger.error("PostgreSQL Driver not found", e);
+            throw new SQLException("Database driver not found", e);
+        }
+    }
+
+    // Callers close the connection when done, which returns it to the pool. Inside a
+    // UnitOfWork the thread's bound connection is returned instead and close() is a no-op.
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("org.postgresql.Driver");
-                connection = DriverManager.getConnection(url, username, password);
-                logger.info("Database connection established successfully");
-            } catch (ClassNotFoundException e) {
-                logger.error("PostgreSQL Driver not found", e);
-                throw new SQLException("Database driver not found", e);
-            } catch (SQLException e) {
-                logger.error("Failed to establish database connection", e);
-                throw e;
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
+        }
+        standaloneCheckouts.incrementAndGet();
+        return borrow();
+    }
+
+    // Pool checkout behind the retry policy and circuit breaker: transient connect failures are
+    // retried with backoff, and while the breaker is open callers fail fast instead of queueing.
+    Connection borrow() throws SQLException {
+        ConnectionPool connectionPool = getPool();
+        try {
+            return retryPolicy.call(() -> circuitBreaker.call(connectionPool::borrow));
+        } catch (CircuitBreaker.OpenException e) {
+            throw e;
+        } catch (SQLException e) {
+            logger.error("Failed to establish database connection", e);
+            throw e;
+        }
+    }
+
+    // For read-only DAO methods and reports. Uses the replica when one is configured and it is
+    // caught up with this session's writes, otherwise the primary. Inside a UnitOfWork the
+    // bound connection is returned, as with getConnection().
+    public Connection getReadConnection() throws SQLException {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
+        }
+        standaloneCheckouts.incrementAndGet();
+        return borrowRead();
+    }
+
+    Connection borrowRead() throws SQLException {
+        ReplicaRouter router = replicaRouter();
+        Connection connection = router != null ? router.borrow() : null;
+        return connection != null ? connection : borrow();
+    }
+
+    // Null unless DB_REPLICA_URL is set and a read has been routed.
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    // The primary's current WAL position when a replica is configured, otherwise 0.
+    long primaryPosition() throws SQLException {
+        ReplicaRouter router = replicaRouter();
+        return router != null ? router.primaryPosition() : 0;
+    }
+
+    private void markReplicaWrite() {
+        try {
+            replicaRouter().markWrite();
+        } catch (SQLException e) {
+            logger.warn("Could not set up replica routing: " + e.getMessage());
+        }
+    }
+
+    private ReplicaRouter replicaRouter() throws SQLException {
+        if (replicaRouter == null && replicaUrl != null && !replicaUrl.isEmpty()) {
+            synchronized (this) {
+                if (replicaRouter == null) {
+                    loadDriver();
+                    // A short checkout timeout: a saturated replica pool falls back to the primary.
+                    ConnectionPool replicaPool = new ConnectionPool(withApplicationName(replicaUrl),
+                            replicaUsername != null ? replicaUsername : username,
+                            replicaPassword != null ? replicaPassword : password, replicaPoolSize, 1_000);
+                    replicaRouter = new ReplicaRouter(replicaPool, this::borrow, replicaMaxLagMillis);
+                    logger.info("Routing read-only queries to replica " + replicaUrl);
+                }
             }
         }
-        return connection;
+        return replicaRouter;
     }
 
-    public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                logger.info("Database connection closed");
-            } catch (SQLException e) {
-                logger.error("Error closing database connection", e);
+    // Connections handed out outside a UnitOfWork; each runs at least one transaction of its own.
+    public static long getStandaloneCheckoutCount() {
+        return standaloneCheckouts.get();
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    loadDriver();
+                    pool = new ConnectionPool(withApplicationName(url), username, password, poolSize, 30_000);
+                }
             }
         }
+        return pool;
+    }
+
+    public static String getNodeName() {
+        return NODE_NAME;
+    }
+
+    // Starts listening for other instances' writes unless DB_CHANGE_FEED=false. A transaction
+    // pooler never delivers notifications, so without DB_LISTEN_URL the feed is not started
+    // there and the problem is logged instead of invalidation silently doing nothing.
+    public synchronized void startChangeFeed() throws SQLException {
+        if (!changeFeedEnabled || changeFeed != null) {
+            return;
+        }
+        String feedUrl = listenUrl != null && !listenUrl.isEmpty() ? listenUrl : url;
+        if (isTransactionPooler(feedUrl)) {
+            logger.warn("Change feed not started: " + feedUrl.replaceAll("\\?.*", "") + " is a transaction pooler, "
+                    + "where LISTEN receives nothing. Set DB_LISTEN_URL to a direct connection URL "
+                    + "(or DB_CHANGE_FEED=false to silence this).");
+            return;
+        }
+        loadDriver();
+        changeFeed = new ChangeFeed(withApplicationName(feedUrl), username, password, NODE_NAME);
+        changeFeed.start();
+    }
+
+    // Null until startChangeFeed() has run.
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    public void warmPool() throws SQLException {
+        getPool().prefill(minIdle);
+        logger.info("Database connection pool warmed with " + pool.getIdleCount() + " connections");
+    }
+
+    public void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (replicaRouter != null) {
+            replicaRouter.shutdown();
+        }
+        if (changeFeed != null) {
+            changeFeed.stop();
+        }
+    }
+
+    // Supabase's transaction pooler listens on 6543 (the session pooler and direct connections on 5432).
+    static boolean isTransactionPooler(String jdbcUrl) {
+        return jdbcUrl.matches("jdbc:postgresql://[^/]*:6543(/.*)?");
+    }
+
+    // Replaces any ApplicationName in the URL: the change feed recognises its own notices by it.
+    private static String withApplicationName(String jdbcUrl) {
+        String stripped = jdbcUrl.replaceAll("([?&])ApplicationName=[^&]*&?", "$1").replaceAll("[?&]$", "");
+        return stripped + (stripped.contains("?") ? "&" : "?") + "ApplicationName=" + NODE_NAME;
+    }
+
+    private static String valueOrDefault(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
     }
 }
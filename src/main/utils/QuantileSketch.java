@@ -0,0 +1,140 @@
+package com.sms.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mergeable approximate quantiles in bounded memory, using the compactor hierarchy of the KLL
+ * sketch with the same capacity at every level. Level h holds items that each stand for 2^h
+ * inputs; a full level is sorted and every other item (from a random offset) moves up a level.
+ * Memory is O(k log(n / k)) and rank error is roughly 1/k, whatever the number of inputs.
+ *
+ * Sketches built over disjoint inputs (e.g. parallel shards) can be merged into one that
+ * summarises the union. Not thread-safe.
+ */
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+
+    private final int k;
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private final Random random;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8");
+        }
+        this.k = k;
+        this.random = new Random(k);
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        add(0, value);
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        for (int h = 0; h < other.levels.size(); h++) {
+            double[] items = other.levels.get(h);
+            for (int i = 0; i < other.sizes.get(h); i++) {
+                add(h, items[i]);
+            }
+        }
+    }
+
+    // The value at quantile q (0 <= q <= 1), or NaN when nothing has been recorded.
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+
+        double[][] weighted = new double[getRetainedCount()][];
+        int n = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            double[] items = levels.get(h);
+            for (int i = 0; i < sizes.get(h); i++) {
+                weighted[n++] = new double[]{items[i], 1L << h};
+            }
+        }
+        Arrays.sort(weighted, (a, b) -> Double.compare(a[0], b[0]));
+
+        double target = q * count;
+        double seen = 0;
+        for (double[] item : weighted) {
+            seen += item[1];
+            if (seen >= target) {
+                return item[0];
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    // Items currently held, for checking the memory bound.
+    public int getRetainedCount() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    private void add(int level, double value) {
+        while (level >= levels.size()) {
+            levels.add(new double[2 * k]);
+            sizes.add(0);
+        }
+        double[] items = levels.get(level);
+        int size = sizes.get(level);
+        items[size++] = value;
+        sizes.set(level, size);
+
+        if (size == items.length) {
+            Arrays.sort(items);
+            sizes.set(level, 0);
+            for (int i = random.nextInt(2); i < items.length; i += 2) {
+                add(level + 1, items[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a read may go to the replica. A read is sent there only if the replica's
+ * replay lag is within {@code maxLagMillis} and it has replayed the WAL up to the position the
+ * primary had reached after the session's last commit, so a session always sees its own
+ * commits; otherwise it falls back to the primary.
+ *
+ * The session is the calling thread: ChangeNotifier marks it after every committed write, and
+ * ReportExecutor, AsyncServices and ReportCache carry it over to the threads and loads that
+ * act on its behalf. Lag and replay position are measured on the replica at most once per
+ * second; the age of the measurement is added to the lag, so a replica that stops answering
+ * soon counts as lagging.
+ */
+public class ReplicaRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+    private static final long LAG_CHECK_INTERVAL_MILLIS = 1000;
+    private static final ThreadLocal<Long> SESSION = ThreadLocal.withInitial(() -> 0L);
+
+    // Zero when the replica has replayed everything it received (or is not a standby at all),
+    // otherwise the age of the last transaction it replayed; then the WAL position replayed,
+    // 0 on a server that is not a standby (which never receives the primary's writes).
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000, 0) END, " +
+            "COALESCE((pg_last_wal_replay_lsn() - '0/0')::bigint, 0)";
+    private static final String POSITION_SQL = "SELECT (pg_current_wal_lsn() - '0/0')::bigint";
+
+    private final ConnectionPool pool;
+    private final CircuitBreaker.SqlCall<Connection> primary;
+    private final long maxLagMillis;
+    private final CircuitBreaker breaker;
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long lagMillis;
+    private volatile long replayedPosition;
+    private volatile long measuredAt;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong ownWriteReads = new AtomicLong();
+    private final AtomicLong laggingReads = new AtomicLong();
+    private final AtomicLong unavailableReads = new AtomicLong();
+
+    public ReplicaRouter(ConnectionPool pool, CircuitBreaker.SqlCall<Connection> primary, long maxLagMillis) {
+        this.pool = pool;
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        // Any checkout failure (including a saturated replica pool) sends reads to the primary.
+        this.breaker = new CircuitBreaker(3, 10_000, System::currentTimeMillis, e -> true);
+    }
+
+    // Primary WAL position after the calling session's last committed write, 0 if it has not
+    // written.
+    public static long currentSession() {
+        return SESSION.get();
+    }
+
+    // Makes the calling thread act for a session whose last write is at the given position.
+    // Returns the previous value for restoreSession().
+    public static long joinSession(long lastWrite) {
+        long previous = SESSION.get();
+        SESSION.set(Math.max(previous, lastWrite));
+        return previous;
+    }
+
+    public static void restoreSession(long previous) {
+        SESSION.set(previous);
+    }
+
+    // Called through ChangeNotifier when a replica is configured, so it runs on the writing
+    // thread once the write has committed. If the position cannot be read, the thread's reads
+    // stay on the primary.
+    void markWrite() {
+        long position;
+        try {
+            position = primaryPosition();
+        } catch (SQLException e) {
+            logger.warn("Could not read the primary WAL position, reads stay on the primary: " + e.getMessage());
+            position = Long.MAX_VALUE;
+        }
+        SESSION.set(Math.max(SESSION.get(), position));
+    }
+
+    // The primary's current WAL position, which is at or past every commit made so far.
+    long primaryPosition() throws SQLException {
+        try (Connection connection = primary.call();
+             PreparedStatement stmt = connection.prepareStatement(POSITION_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Returns a replica connection, or null if the read should go to the primary.
+    Connection borrow() {
+        long lastWrite = SESSION.get();
+        if (breaker.getState() == CircuitBreaker.State.OPEN) {
+            unavailableReads.incrementAndGet();
+            return null;
+        }
+        if (isFresh() && !isAcceptable(lastWrite)) {
+            countFallback(lastWrite);
+            return null;
+        }
+
+        Connection connection;
+        try {
+            connection = breaker.call(pool::borrow);
+        } catch (SQLException e) {
+            if (!(e instanceof CircuitBreaker.OpenException)) {
+                logger.warn("Replica unavailable, reading from primary: " + e.getMessage());
+            }
+            unavailableReads.incrementAndGet();
+            return null;
+        }
+
+        if (!isFresh() && probing.compareAndSet(false, true)) {
+            try {
+                measureLag(connection);
+            } finally {
+                probing.set(false);
+            }
+        }
+        if (isAcceptable(lastWrite)) {
+            replicaReads.incrementAndGet();
+            return connection;
+        }
+        closeQuietly(connection);
+        countFallback(lastWrite);
+        return null;
+    }
+
+    public long getLagMillis() {
+        return lagMillis + (System.currentTimeMillis() - measuredAt);
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.get();
+    }
+
+    public long getPrimaryFallbackCount() {
+        return ownWriteReads.get() + laggingReads.get() + unavailableReads.get();
+    }
+
+    public String describe() {
+        return String.format("%d on replica, %d on primary (%d after own writes, %d lagging, %d unavailable); breaker %s",
+                replicaReads.get(), getPrimaryFallbackCount(), ownWriteReads.get(), laggingReads.get(),
+                unavailableReads.get(), breaker.getState());
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private boolean isFresh() {
+        return System.currentTimeMillis() - measuredAt < LAG_CHECK_INTERVAL_MILLIS;
+    }
+
+    private boolean isAcceptable(long lastWrite) {
+        return getLagMillis() <= maxLagMillis && (lastWrite == 0 || replayedPosition >= lastWrite);
+    }
+
+    private void countFallback(long lastWrite) {
+        if (getLagMillis() <= maxLagMillis && lastWrite != 0) {
+            ownWriteReads.incrementAndGet();
+        } else {
+            laggingReads.incrementAndGet();
+        }
+    }
+
+    private void measureLag(Connection connection) {
+        long started = System.currentTimeMillis();
+        try (PreparedStatement stmt = connection.prepareStatement(LAG_SQL)) {
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            lagMillis = (long) rs.getDouble(1);
+            replayedPosition = rs.getLong(2);
+            measuredAt = started;
+        } catch (SQLException e) {
+            // Leave the old measurement to age past maxLagMillis.
+            logger.warn("Could not measure replica lag: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Error returning replica connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sms.utils;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.RecordNotFoundException;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches computed reports by key (report type plus parameters). Each entry names the tables
+ * it was read from and is dropped as soon as ChangeNotifier reports a committed write to any
+ * of them; the TTL only bounds staleness from writes made outside the DAOs.
+ *
+ * Loading is single-flight: while one caller computes a report, concurrent callers asking for
+ * the same key wait for that result instead of computing it again.
+ */
+public class ReportCache {
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60_000;
+    private static final ReportCache INSTANCE = new ReportCache(DEFAULT_TTL_MILLIS);
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws DatabaseException, RecordNotFoundException;
+    }
+
+    private static class Entry {
+        final CompletableFuture<Object> value = new CompletableFuture<>();
+        final Set<String> tables;
+        final long createdAt = System.currentTimeMillis();
+
+        Entry(Set<String> tables) {
+            this.tables = tables;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicBoolean invalidated = new AtomicBoolean();
+    private long invalidationPosition;
+
+    ReportCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        ChangeNotifier.addListener(this::invalidate);
+    }
+
+    public static ReportCache getInstance() {
+        return INSTANCE;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Set<String> tables, Loader<T> loader) throws DatabaseException, RecordNotFoundException {
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.createdAt <= ttlMillis) {
+                hits.incrementAndGet();
+                return (T) await(entry);
+            }
+
+            Entry created = new Entry(tables);
+            boolean owner = entry == null ? entries.putIfAbsent(key, created) == null : entries.replace(key, entry, created);
+            if (!owner) {
+                continue;
+            }
+
+            loads.incrementAndGet();
+            // The reload must not come from a replica that has not yet replayed the write that
+            // invalidated the previous entry.
+            long previous = ReplicaRouter.joinSession(invalidationPosition());
+            try {
+                T value = loader.load();
+                created.value.complete(value);
+                return value;
+            } catch (Throwable e) {
+                // Errors too: an entry left incomplete would block every later caller of the key.
+                entries.remove(key, created);
+                created.value.completeExceptionally(e);
+                throw e;
+            } finally {
+                ReplicaRouter.restoreSession(previous);
+            }
+        }
+    }
+
+    // Drops every entry that read from one of the tables. A load already in flight still
+    // answers the callers waiting on it, but its result is not kept.
+    public void invalidate(Set<String> tables) {
+        invalidated.set(true);
+        entries.values().removeIf(entry -> !Collections.disjoint(entry.tables, tables));
+    }
+
+    // A primary WAL position at or past the last invalidation, read from the primary at the first
+    // reload after one rather than on every write.
+    private synchronized long invalidationPosition() {
+        if (invalidated.getAndSet(false)) {
+            try {
+                invalidationPosition = Math.max(invalidationPosition, DatabaseConnection.getInstance().primaryPosition());
+            } catch (SQLException e) {
+                invalidated.set(true);
+                return Long.MAX_VALUE;
+            }
+        }
+        return invalidationPosition;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    private static Object await(Entry entry) throws DatabaseException, RecordNotFoundException {
+        try {
+            return entry.value.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while waiting for a report", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DatabaseException) {
+                throw (DatabaseException) cause;
+            }
+            if (cause instanceof RecordNotFoundException) {
+                throw (RecordNotFoundException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DatabaseException("Failed to compute report", cause);
+        }
+    }
+}
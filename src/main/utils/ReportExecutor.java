@@ -0,0 +1,133 @@
+package com.sms.utils;
+
+import com.sms.exceptions.DatabaseException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Fans per-course or per-student report work out across a fixed set of worker threads. The
+ * workers are I/O bound (each DAO call waits on the database), so their number is capped at
+ * the connection pool size minus headroom for the interactive thread; more would only queue
+ * on borrow(). Results come back in the order of the input, whatever order tasks finish in.
+ *
+ * Work submitted from a worker runs inline on that worker, so nested reports cannot exhaust
+ * the pool waiting on each other.
+ */
+public class ReportExecutor {
+    private static volatile ReportExecutor instance;
+
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R apply(T item) throws DatabaseException;
+    }
+
+    private static class Worker extends Thread {
+        Worker(Runnable task, String name) {
+            super(task, name);
+            setDaemon(true);
+        }
+    }
+
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    private ReportExecutor(int parallelism) {
+        this.parallelism = parallelism;
+        this.workers = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private int next;
+
+            @Override
+            public synchronized Thread newThread(Runnable task) {
+                return new Worker(task, "report-" + next++);
+            }
+        }) : null;
+    }
+
+    public static ReportExecutor getInstance() throws DatabaseException {
+        if (instance == null) {
+            synchronized (ReportExecutor.class) {
+                if (instance == null) {
+                    try {
+                        int poolSize = DatabaseConnection.getInstance().getPool().getMaxSize();
+                        instance = new ReportExecutor(Math.max(1, poolSize - 2));
+                    } catch (SQLException e) {
+                        throw new DatabaseException("Failed to start report executor", e);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Runs everything on the calling thread; the baseline the benchmarks compare against.
+    public static ReportExecutor serial() {
+        return new ReportExecutor(1);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <T, R> List<R> map(List<T> items, Task<T, R> task) throws DatabaseException {
+        if (workers == null || items.size() < 2 || Thread.currentThread() instanceof Worker) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(task.apply(item));
+            }
+            return results;
+        }
+
+        // Workers read on behalf of the caller, so they must see the caller's writes.
+        long session = ReplicaRouter.currentSession();
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(workers.submit(() -> {
+                long previous = ReplicaRouter.joinSession(session);
+                try {
+                    return task.apply(item);
+                } finally {
+                    ReplicaRouter.restoreSession(previous);
+                }
+            }));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while running report tasks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DatabaseException) {
+                throw (DatabaseException) e.getCause();
+            }
+            throw new DatabaseException("Report task failed", e.getCause());
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // Like map(), but hands each task a slice of up to batchSize items so per-task overhead
+    // (a connection checkout, a set-based query) is paid once per slice. Results are flattened
+    // back into input order.
+    public <T, R> List<R> mapBatches(List<T> items, int batchSize, Task<List<T>, List<R>> task) throws DatabaseException {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(items.size(), from + batchSize)));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        for (List<R> batch : map(batches, task)) {
+            results.addAll(batch);
+        }
+        return results;
+    }
+}
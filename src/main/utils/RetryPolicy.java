@@ -0,0 +1,104 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retries an operation that failed with a transient SQLState, sleeping between attempts with
+ * exponential backoff and jitter: attempt n waits between half and all of
+ * min(maxDelay, baseDelay * 2^(n-1)), so clients that failed together do not reconnect together.
+ * Rejections from an open {@link CircuitBreaker} are never retried.
+ */
+public class RetryPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Sleeper sleeper;
+    private final Random random;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this(maxAttempts, baseDelayMillis, maxDelayMillis, Thread::sleep, null);
+    }
+
+    RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, Sleeper sleeper, Random random) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.sleeper = sleeper;
+        this.random = random;
+    }
+
+    // Connection exceptions (class 08), too_many_connections, and the server shutting down or
+    // still starting up. Anything else (bad credentials, SQL errors, pool timeouts) is final.
+    public static boolean isTransient(SQLException e) {
+        if (e instanceof CircuitBreaker.OpenException) {
+            return false;
+        }
+        String state = e.getSQLState();
+        if (state == null) {
+            return false;
+        }
+        return state.startsWith("08") || state.equals("53300")
+                || state.equals("57P01") || state.equals("57P02") || state.equals("57P03");
+    }
+
+    public <T> T call(CircuitBreaker.SqlCall<T> call) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (SQLException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                long delay = delayFor(attempt);
+                logger.warn("Transient database error (" + e.getSQLState() + ": " + e.getMessage() + "); retry "
+                        + attempt + " of " + (maxAttempts - 1) + " in " + delay + "ms");
+                retries.incrementAndGet();
+                try {
+                    sleeper.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    long delayFor(int attempt) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        long half = cap / 2;
+        Random rnd = random != null ? random : ThreadLocalRandom.current();
+        return half + (long) (rnd.nextDouble() * (cap - half + 1));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    // Calls that still failed transiently after the last attempt.
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+}
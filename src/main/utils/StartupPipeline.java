@@ -0,0 +1,148 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs application initialisation in the background so the console is usable immediately.
+ * Config loading and driver loading start in parallel; the pool is warmed once both finish,
+ * then registered warmup tasks (caches, class loading) run in parallel. Each phase is timed.
+ *
+ * Readiness is exposed through {@link #isReady()} / {@link #awaitReady(long, TimeUnit)} and,
+ * when SMS_READY_FILE is set, by creating that file once every phase has completed.
+ */
+public class StartupPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(StartupPipeline.class);
+    private static final StartupPipeline INSTANCE = new StartupPipeline();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phaseMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Runnable> warmups = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile CompletableFuture<Void> ready;
+
+    private StartupPipeline() {}
+
+    public static StartupPipeline getInstance() {
+        return INSTANCE;
+    }
+
+    // Warmups must be registered before start(); failures are logged but do not block readiness.
+    public synchronized void registerWarmup(String name, Runnable task) {
+        warmups.put(name, task);
+    }
+
+    public synchronized CompletableFuture<Void> start() {
+        if (ready != null) {
+            return ready;
+        }
+
+        CompletableFuture<Void> config = CompletableFuture.runAsync(
+                timed("config", DatabaseConnection::getInstance), executor);
+        CompletableFuture<Void> driver = CompletableFuture.runAsync(timed("driver", () -> {
+            try {
+                DatabaseConnection.loadDriver();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }), executor);
+        CompletableFuture<Void> pool = config.thenCombine(driver, (a, b) -> (Void) null)
+                .thenRunAsync(timed("pool", () -> {
+                    try {
+                        DatabaseConnection.getInstance().warmPool();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }), executor);
+
+        List<CompletableFuture<Void>> warmupFutures = new ArrayList<>();
+        for (Map.Entry<String, Runnable> warmup : warmups.entrySet()) {
+            warmupFutures.add(pool.thenRunAsync(timed("warmup:" + warmup.getKey(), warmup.getValue()), executor)
+                    .exceptionally(e -> {
+                        logger.warn("Startup warmup " + warmup.getKey() + " failed: " + e.getMessage());
+                        return null;
+                    }));
+        }
+
+        ready = CompletableFuture.allOf(warmupFutures.toArray(new CompletableFuture<?>[0]))
+                .thenCombine(pool, (a, b) -> (Void) null)
+                .whenComplete((result, error) -> {
+                    phaseMillis.put("total", elapsedMillis(startNanos));
+                    if (error != null) {
+                        logger.error("Startup failed: " + error.getMessage());
+                    } else {
+                        logger.info("Startup complete: " + phaseMillis);
+                        signalReadyFile();
+                    }
+                    executor.shutdown();
+                });
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready != null && ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        if (ready == null) {
+            return false;
+        }
+        try {
+            ready.get(timeout, unit);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    public Map<String, Long> getPhaseTimings() {
+        synchronized (phaseMillis) {
+            return new LinkedHashMap<>(phaseMillis);
+        }
+    }
+
+    public void printReport(PrintStream out) {
+        out.println("Startup phases (ms):");
+        for (Map.Entry<String, Long> phase : getPhaseTimings().entrySet()) {
+            out.printf("  %-24s %6d%n", phase.getKey(), phase.getValue());
+        }
+    }
+
+    private Runnable timed(String phase, Runnable task) {
+        return () -> {
+            long begin = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                phaseMillis.put(phase, elapsedMillis(begin));
+            }
+        };
+    }
+
+    private void signalReadyFile() {
+        String readyFile = System.getenv("SMS_READY_FILE");
+        if (readyFile == null || readyFile.isEmpty()) {
+            return;
+        }
+        try {
+            Files.write(Paths.get(readyFile), String.valueOf(System.currentTimeMillis()).getBytes());
+        } catch (IOException e) {
+            logger.warn("Could not write readiness file " + readyFile + ": " + e.getMessage());
+        }
+    }
+
+    private static long elapsedMillis(long fromNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fromNanos);
+    }
+}
@@ -0,0 +1,258 @@
+package com.sms.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Wraps every statement handed out by the connection pool, so all DAO calls get the same
+ * treatment without changes at the call sites:
+ *
+ * - a query timeout unless the caller set one: the default for ordinary statements, a longer
+ *   bulk timeout for batches and cursor reads (statements with a fetch size). Maintenance work
+ *   that may legitimately run for longer opts out with an explicit setQueryTimeout(0);
+ * - statements slower than the threshold (execute through close, so cursor reads include the
+ *   fetching) are logged with their SQL, bind-parameter types and row count, and kept in a
+ *   ring buffer of recent slow queries.
+ *
+ * Only the types of bind parameters are recorded, never their values.
+ */
+public class StatementTracer {
+    private static final Logger logger = LoggerFactory.getLogger(StatementTracer.class);
+    private static final int SLOW_QUERY_CAPACITY = 50;
+    private static final StatementTracer INSTANCE = new StatementTracer();
+
+    public static class SlowQuery {
+        private final String sql;
+        private final String parameters;
+        private final long rows;
+        private final long elapsedMillis;
+        private final Instant finishedAt;
+        private final String thread;
+
+        SlowQuery(String sql, String parameters, long rows, long elapsedMillis, String thread) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+            this.finishedAt = Instant.now();
+            this.thread = thread;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getParameters() {
+            return parameters;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ms, %d rows, params %s [%s]: %s", elapsedMillis, rows, parameters, thread, sql);
+        }
+    }
+
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private volatile int queryTimeoutSeconds = 30;
+    private volatile int bulkTimeoutSeconds = 300;
+    private volatile long slowQueryMillis = 500;
+
+    private StatementTracer() {}
+
+    public static StatementTracer getInstance() {
+        return INSTANCE;
+    }
+
+    // Zero disables the corresponding timeout.
+    public void configure(int queryTimeoutSeconds, int bulkTimeoutSeconds, long slowQueryMillis) {
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.bulkTimeoutSeconds = bulkTimeoutSeconds;
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    public long getSlowQueryMillis() {
+        return slowQueryMillis;
+    }
+
+    // Recent slow queries, slowest first.
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> result;
+        synchronized (slowQueries) {
+            result = new ArrayList<>(slowQueries);
+        }
+        result.sort(Comparator.comparingLong(SlowQuery::getElapsedMillis).reversed());
+        return result;
+    }
+
+    public void clearSlowQueries() {
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public PreparedStatement trace(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(StatementTracer.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Handler(statement, sql));
+    }
+
+    public Statement trace(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(StatementTracer.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new Handler(statement, null));
+    }
+
+    // The timeout an execute call runs with: the caller's own if it set one (zero meaning none),
+    // otherwise the bulk timeout for batches and cursor reads and the default for the rest.
+    int timeoutFor(String executeMethod, boolean bulk, Integer explicitSeconds) {
+        if (explicitSeconds != null) {
+            return explicitSeconds;
+        }
+        return bulk || executeMethod.equals("executeBatch") || executeMethod.equals("executeLargeBatch")
+                ? bulkTimeoutSeconds : queryTimeoutSeconds;
+    }
+
+    private void finished(String sql, Map<Integer, String> parameters, long rows, long elapsedNanos) {
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        if (slowQueryMillis <= 0 || elapsedMillis < slowQueryMillis) {
+            return;
+        }
+
+        SlowQuery slow = new SlowQuery(sql, parameters.values().toString(), rows, elapsedMillis,
+                Thread.currentThread().getName());
+        logger.warn("Slow query: " + slow);
+        synchronized (slowQueries) {
+            if (slowQueries.size() == SLOW_QUERY_CAPACITY) {
+                slowQueries.pollFirst();
+            }
+            slowQueries.addLast(slow);
+        }
+    }
+
+    private class Handler implements InvocationHandler {
+        private final Statement statement;
+        private String sql;
+        private final Map<Integer, String> parameters = new TreeMap<>();
+        private Integer explicitTimeout;
+        private boolean bulk;
+        private long started;
+        private long rows;
+
+        Handler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], shape(name, args[1]));
+            } else if (name.equals("setQueryTimeout")) {
+                explicitTimeout = (Integer) args[0];
+            } else if (name.equals("setFetchSize")) {
+                bulk = (Integer) args[0] > 0;
+            } else if (name.equals("close")) {
+                complete();
+            } else if (name.startsWith("execute")) {
+                complete();
+                if (args != null && args.length > 0 && args[0] instanceof String) {
+                    sql = (String) args[0];
+                }
+                if (explicitTimeout == null) {
+                    statement.setQueryTimeout(timeoutFor(name, bulk, null));
+                }
+                started = System.nanoTime();
+            }
+
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                if (started != 0) {
+                    complete();
+                }
+                throw e.getCause();
+            }
+
+            if (started != 0) {
+                if (result instanceof Integer || result instanceof Long) {
+                    rows += ((Number) result).longValue();
+                } else if (result instanceof int[]) {
+                    for (int count : (int[]) result) {
+                        rows += Math.max(count, 0);
+                    }
+                } else if (result instanceof ResultSet) {
+                    return countRows((ResultSet) result);
+                }
+            }
+            if (name.equals("getResultSet") && result != null) {
+                return countRows((ResultSet) result);
+            }
+            return result;
+        }
+
+        private void complete() {
+            if (started != 0) {
+                finished(sql, parameters, rows, System.nanoTime() - started);
+                started = 0;
+                rows = 0;
+            }
+        }
+
+        private ResultSet countRows(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(StatementTracer.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        try {
+                            Object result = method.invoke(resultSet, args);
+                            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                                rows++;
+                            }
+                            return result;
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    private static String shape(String setter, Object value) {
+        if (setter.equals("setNull") || value == null) {
+            return "null";
+        }
+        if (setter.equals("setObject")) {
+            return value instanceof UUID ? "uuid" : value.getClass().getSimpleName();
+        }
+        return setter.substring(3).toLowerCase();
+    }
+}
@@ -0,0 +1,307 @@
+package com.sms.utils;
+
+import com.sms.exceptions.DatabaseException;
+import com.sms.exceptions.RecordNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Binds one connection and transaction to the current thread for the duration of a multi-step
+ * service operation. While a unit of work is active, every DAO call made on the thread runs
+ * on its connection (DatabaseConnection.getConnection() returns it), so the steps commit or
+ * roll back together.
+ *
+ * DAO updates are registered as dirty writes instead of executing immediately. Repeated
+ * writes to the same row collapse into one, and the pending writes are sent as JDBC batches
+ * (one per statement shape) before the next read on the connection or at commit; a write
+ * that matches no row fails the unit of work, and the model versions bumped by its writes are
+ * restored if it rolls back. Nested calls join the outer unit of work.
+ */
+public class UnitOfWork {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong commits = new AtomicLong();
+
+    public enum Isolation {
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        private final int level;
+
+        Isolation(int level) {
+            this.level = level;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T execute() throws DatabaseException, RecordNotFoundException, E;
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T execute() throws DatabaseException;
+    }
+
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private static class PendingWrite {
+        final String sql;
+        final StatementBinder binder;
+        final Runnable afterWrite;
+        final Supplier<DatabaseException> noRowsFailure;
+
+        PendingWrite(String sql, StatementBinder binder, Runnable afterWrite, Supplier<DatabaseException> noRowsFailure) {
+            this.sql = sql;
+            this.binder = binder;
+            this.afterWrite = afterWrite;
+            this.noRowsFailure = noRowsFailure;
+        }
+    }
+
+    private final Connection connection;
+    private final Connection participant;
+    private final Map<String, PendingWrite> dirty = new LinkedHashMap<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final List<Runnable> onRollback = new ArrayList<>();
+    private DatabaseException writeFailure;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.participant = participantView(connection);
+    }
+
+    public static <T, E extends Exception> T execute(Work<T, E> work) throws DatabaseException, RecordNotFoundException, E {
+        return execute(Isolation.READ_COMMITTED, work);
+    }
+
+    public static <T, E extends Exception> T execute(Isolation isolation, Work<T, E> work)
+            throws DatabaseException, RecordNotFoundException, E {
+        if (CURRENT.get() != null) {
+            return work.execute();
+        }
+
+        UnitOfWork unitOfWork = begin(isolation, false);
+        boolean committed = false;
+        try {
+            T result = work.execute();
+            unitOfWork.commit();
+            committed = true;
+            return result;
+        } catch (DatabaseException e) {
+            throw unitOfWork.failureOr(e);
+        } finally {
+            unitOfWork.end(committed);
+        }
+    }
+
+    public static <T> T run(Operation<T> operation) throws DatabaseException {
+        return run(operation, false);
+    }
+
+    // A read-only transaction on a connection from DatabaseConnection.getReadConnection(), so
+    // report steps that share one connection can still be served by the replica. Joins an
+    // enclosing unit of work like run().
+    public static <T> T read(Operation<T> operation) throws DatabaseException {
+        return run(operation, true);
+    }
+
+    private static <T> T run(Operation<T> operation, boolean readOnly) throws DatabaseException {
+        if (CURRENT.get() != null) {
+            return operation.execute();
+        }
+
+        UnitOfWork unitOfWork = begin(Isolation.READ_COMMITTED, readOnly);
+        boolean committed = false;
+        try {
+            T result = operation.execute();
+            unitOfWork.commit();
+            committed = true;
+            return result;
+        } catch (DatabaseException e) {
+            throw unitOfWork.failureOr(e);
+        } finally {
+            unitOfWork.end(committed);
+        }
+    }
+
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    public static long getCommitCount() {
+        return commits.get();
+    }
+
+    // Connection handed to DAOs: pending writes are flushed first so reads see them, and
+    // close/commit/setAutoCommit are ignored because the unit of work owns the transaction.
+    public Connection getConnection() throws SQLException {
+        flush();
+        return participant;
+    }
+
+    // afterWrite runs once the write has reached the database; noRowsFailure is raised from the
+    // unit of work if the statement matches no row (e.g. a version conflict).
+    public void registerDirty(String key, String sql, StatementBinder binder, Runnable afterWrite,
+                              Supplier<DatabaseException> noRowsFailure) {
+        dirty.remove(key);
+        dirty.put(key, new PendingWrite(sql, binder, afterWrite, noRowsFailure));
+    }
+
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    // Undoes an in-memory change (such as a version bump) if the transaction does not commit;
+    // actions run in reverse order of registration.
+    public void onRollback(Runnable action) {
+        onRollback.add(action);
+    }
+
+    private static UnitOfWork begin(Isolation isolation, boolean readOnly) throws DatabaseException {
+        try {
+            DatabaseConnection database = DatabaseConnection.getInstance();
+            Connection connection = readOnly ? database.borrowRead() : database.borrow();
+            if (readOnly) {
+                connection.setReadOnly(true);
+            }
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(isolation.level);
+            UnitOfWork unitOfWork = new UnitOfWork(connection);
+            CURRENT.set(unitOfWork);
+            return unitOfWork;
+        } catch (SQLException e) {
+            logger.error("Error starting unit of work: " + e.getMessage());
+            throw new DatabaseException("Failed to start transaction", e);
+        }
+    }
+
+    private void commit() throws DatabaseException {
+        try {
+            flush();
+            connection.commit();
+            commits.incrementAndGet();
+        } catch (SQLException e) {
+            logger.error("Error committing unit of work: " + e.getMessage());
+            throw new DatabaseException("Failed to commit transaction", e);
+        }
+
+        // Hooks run as ordinary standalone operations: a DAO call gets a connection of its own
+        // instead of the committed one, and a notice raised by a hook is published at once.
+        CURRENT.remove();
+        for (Runnable action : new ArrayList<>(afterCommit)) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.warn("After-commit action failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private DatabaseException failureOr(DatabaseException e) {
+        return writeFailure != null ? writeFailure : e;
+    }
+
+    private void end(boolean committed) {
+        CURRENT.remove();
+        try {
+            if (!committed) {
+                for (int i = onRollback.size() - 1; i >= 0; i--) {
+                    onRollback.get(i).run();
+                }
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            logger.error("Error rolling back unit of work: " + e.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.error("Error releasing unit of work connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<PendingWrite>> byStatement = new LinkedHashMap<>();
+        for (PendingWrite write : dirty.values()) {
+            byStatement.computeIfAbsent(write.sql, sql -> new ArrayList<>()).add(write);
+        }
+        dirty.clear();
+
+        for (Map.Entry<String, List<PendingWrite>> batch : byStatement.entrySet()) {
+            try (PreparedStatement stmt = connection.prepareStatement(batch.getKey())) {
+                for (PendingWrite write : batch.getValue()) {
+                    write.binder.bind(stmt);
+                    stmt.addBatch();
+                }
+                int[] counts = stmt.executeBatch();
+                // Every count is checked before any afterWrite runs, so no model reflects a
+                // batch that is about to fail.
+                for (int i = 0; i < batch.getValue().size(); i++) {
+                    if (i >= counts.length || counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED) {
+                        // Surfaced with its own type by execute()/run(); the SQLException only
+                        // aborts whichever DAO call triggered the flush.
+                        writeFailure = batch.getValue().get(i).noRowsFailure.get();
+                        throw new SQLException(writeFailure.getMessage());
+                    }
+                }
+                for (PendingWrite write : batch.getValue()) {
+                    if (write.afterWrite != null) {
+                        write.afterWrite.run();
+                    }
+                }
+            }
+        }
+    }
+
+    private static Connection participantView(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        // A DAO gave up on its statement; the exception it rethrows will roll
+                        // back the whole unit of work.
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(UnitOfWork.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+}
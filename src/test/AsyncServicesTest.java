@@ -0,0 +1,76 @@
+package com.sms.services;
+
+import com.sms.models.Enrollment;
+import com.sms.models.Student;
+import com.sms.models.StudentSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncServicesTest {
+
+    private static Enrollment enrollment() {
+        Enrollment enrollment = new Enrollment(UUID.randomUUID(), UUID.randomUUID());
+        enrollment.setId(UUID.randomUUID());
+        return enrollment;
+    }
+
+    // An attendance lookup that never answers, and counts down once it is interrupted.
+    private static Function<UUID, AsyncServices.Call<Double>> hangingAttendance(CountDownLatch started, CountDownLatch interrupted) {
+        return enrollmentId -> () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return 100.0;
+        };
+    }
+
+    @Test
+    public void testCancelledSummaryInterruptsAttendanceLookups() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (AsyncServices services = new AsyncServices(executor, null)) {
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch interrupted = new CountDownLatch(2);
+            CompletableFuture<StudentSummary> summary = services.summarize(Student::new, () -> 3.0,
+                    () -> List.of(enrollment(), enrollment()), hangingAttendance(started, interrupted));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            summary.cancel(true);
+
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSummaryTimeoutInterruptsAttendanceLookups() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (AsyncServices services = new AsyncServices(executor, Duration.ofMillis(1000))) {
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch interrupted = new CountDownLatch(2);
+            // The lookups start 600 ms in, so their own timeouts would only fire at 1600 ms.
+            CompletableFuture<StudentSummary> summary = services.summarize(Student::new, () -> 3.0, () -> {
+                Thread.sleep(600);
+                return List.of(enrollment(), enrollment());
+            }, hangingAttendance(started, interrupted));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> summary.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof TimeoutException);
+            assertEquals(0, started.getCount());
+            assertTrue(interrupted.await(300, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
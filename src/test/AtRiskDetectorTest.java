@@ -0,0 +1,112 @@
+package com.sms.services;
+
+import com.sms.dao.AttendanceDAO;
+import com.sms.models.AttendanceStats;
+import com.sms.models.Enrollment;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AtRiskDetectorTest {
+
+    // Serves counts from memory instead of the attendance table.
+    private static class StubAttendanceDAO extends AttendanceDAO {
+        final Map<UUID, AttendanceStats> open = new LinkedHashMap<>();
+        Runnable duringStream = () -> {};
+
+        @Override
+        public int streamStats(String enrollmentStatus, Consumer<AttendanceStats> handler) {
+            List<AttendanceStats> snapshot = new ArrayList<>(open.values());
+            duringStream.run();
+            snapshot.forEach(handler);
+            return snapshot.size();
+        }
+
+        @Override
+        public List<AttendanceStats> findOpenStatsByEnrollmentIds(Collection<UUID> enrollmentIds) {
+            List<AttendanceStats> result = new ArrayList<>();
+            for (UUID id : enrollmentIds) {
+                if (open.containsKey(id)) {
+                    result.add(open.get(id));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static Enrollment enrollment() {
+        Enrollment enrollment = new Enrollment(UUID.randomUUID(), UUID.randomUUID());
+        enrollment.setId(UUID.randomUUID());
+        return enrollment;
+    }
+
+    private static AttendanceStats stats(Enrollment enrollment, int present, int late, int absent) {
+        return new AttendanceStats(enrollment.getId(), enrollment.getStudentId(), enrollment.getCourseId(), present, late, absent);
+    }
+
+    @Test
+    public void testReMarkMovesCountInsteadOfAddingOne() throws Exception {
+        StubAttendanceDAO dao = new StubAttendanceDAO();
+        Enrollment enrollment = enrollment();
+        dao.open.put(enrollment.getId(), stats(enrollment, 3, 0, 0));
+        AtRiskDetector detector = new AtRiskDetector(dao);
+        List<Boolean> crossings = new ArrayList<>();
+        detector.addListener((stats, atRisk) -> crossings.add(atRisk));
+        detector.load();
+
+        detector.recordChange(enrollment, null, "Absent");
+        detector.recordChange(enrollment, "Absent", "Absent");
+        detector.recordChange(enrollment, "Absent", "Present");
+
+        AttendanceStats current = detector.getStats(enrollment.getId());
+        assertEquals(4, current.getPresent());
+        assertEquals(0, current.getAbsent());
+        assertEquals(List.of(), crossings);
+
+        detector.recordChange(enrollment, null, "Absent");
+        detector.recordChange(enrollment, null, "Absent");
+        assertTrue(detector.isAtRisk(enrollment.getId()));
+        detector.recordChange(enrollment, "Absent", "Present");
+        assertFalse(detector.isAtRisk(enrollment.getId()));
+        assertEquals(List.of(true, false), crossings);
+    }
+
+    @Test
+    public void testRefreshForgetsClosedEnrollments() throws Exception {
+        StubAttendanceDAO dao = new StubAttendanceDAO();
+        Enrollment open = enrollment();
+        Enrollment closed = enrollment();
+        dao.open.put(open.getId(), stats(open, 1, 0, 0));
+        dao.open.put(closed.getId(), stats(closed, 0, 0, 2));
+        AtRiskDetector detector = new AtRiskDetector(dao);
+        detector.load();
+        assertEquals(1, detector.getAtRiskCount());
+
+        dao.open.remove(closed.getId());
+        dao.open.put(open.getId(), stats(open, 1, 0, 3));
+        detector.refresh(List.of(open.getId(), closed.getId()));
+
+        assertNull(detector.getStats(closed.getId()));
+        assertEquals(List.of(open.getId()), List.of(detector.getAtRisk().get(0).getEnrollmentId()));
+    }
+
+    @Test
+    public void testMarksDuringLoadAreReRead() throws Exception {
+        StubAttendanceDAO dao = new StubAttendanceDAO();
+        Enrollment enrollment = enrollment();
+        dao.open.put(enrollment.getId(), stats(enrollment, 2, 0, 0));
+        AtRiskDetector detector = new AtRiskDetector(dao);
+        dao.duringStream = () -> {
+            dao.open.put(enrollment.getId(), stats(enrollment, 2, 0, 1));
+            detector.recordChange(enrollment, null, "Absent");
+        };
+
+        detector.load();
+
+        assertEquals(1, detector.getStats(enrollment.getId()).getAbsent());
+        assertEquals(3, detector.getStats(enrollment.getId()).getTotal());
+    }
+}
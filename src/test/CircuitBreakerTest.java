@@ -0,0 +1,132 @@
+package com.sms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    // Stands in for the driver: fails with the given SQLState until told to recover.
+    private static class FlakyDatabase {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile String failWith;
+
+        String connect() throws SQLException {
+            calls.incrementAndGet();
+            if (failWith != null) {
+                throw new SQLException("Connection refused", failWith);
+            }
+            return "connection";
+        }
+    }
+
+    @Test
+    public void testOpensAfterThresholdAndFailsFast() throws Exception {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000, now::get, RetryPolicy::isTransient);
+        FlakyDatabase db = new FlakyDatabase();
+        db.failWith = "08001";
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(SQLException.class, () -> breaker.call(db::connect));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(db::connect));
+        assertEquals(3, db.calls.get());
+        assertEquals(1, breaker.getRejectedCount());
+        assertEquals(1, breaker.getTransitionCount(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testHalfOpenProbeClosesOrReopens() throws Exception {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get, RetryPolicy::isTransient);
+        FlakyDatabase db = new FlakyDatabase();
+        db.failWith = "08006";
+
+        assertThrows(SQLException.class, () -> breaker.call(db::connect));
+        now.addAndGet(1000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // A failed probe opens the breaker for another full period.
+        assertThrows(SQLException.class, () -> breaker.call(db::connect));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        now.addAndGet(999);
+        assertThrows(CircuitBreaker.OpenException.class, () -> breaker.call(db::connect));
+
+        now.addAndGet(1);
+        db.failWith = null;
+        assertEquals("connection", breaker.call(db::connect));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getTransitionCount(CircuitBreaker.State.HALF_OPEN));
+        assertEquals(1, breaker.getTransitionCount(CircuitBreaker.State.CLOSED));
+        assertEquals(2000, breaker.getTimeInState(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void testNonTransientErrorsDoNotTrip() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1000, () -> 0, RetryPolicy::isTransient);
+        FlakyDatabase db = new FlakyDatabase();
+        db.failWith = "28P01";
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(SQLException.class, () -> breaker.call(db::connect));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureCount());
+    }
+
+    @Test
+    public void testRetryBacksOffWithJitterUntilRecovered() throws Exception {
+        List<Long> sleeps = new ArrayList<>();
+        RetryPolicy retry = new RetryPolicy(5, 100, 300, sleeps::add, new Random(7));
+        FlakyDatabase db = new FlakyDatabase();
+        db.failWith = "57P03";
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = retry.call(() -> {
+            if (attempts.incrementAndGet() == 3) {
+                db.failWith = null;
+            }
+            return db.connect();
+        });
+
+        assertEquals("connection", result);
+        assertEquals(2, sleeps.size());
+        assertTrue(sleeps.get(0) >= 50 && sleeps.get(0) <= 100, "first delay " + sleeps.get(0));
+        assertTrue(sleeps.get(1) >= 100 && sleeps.get(1) <= 200, "second delay " + sleeps.get(1));
+        assertEquals(2, retry.getRetryCount());
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            assertTrue(retry.delayFor(attempt) <= 300);
+        }
+    }
+
+    @Test
+    public void testRetryStopsAtOpenBreaker() throws Exception {
+        List<Long> sleeps = new ArrayList<>();
+        RetryPolicy retry = new RetryPolicy(5, 10, 100, sleeps::add, new Random(7));
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000, () -> 0, RetryPolicy::isTransient);
+        FlakyDatabase db = new FlakyDatabase();
+        db.failWith = "08001";
+
+        assertThrows(CircuitBreaker.OpenException.class, () -> retry.call(() -> breaker.call(db::connect)));
+        assertEquals(2, db.calls.get());
+        assertEquals(2, sleeps.size());
+        assertEquals(0, retry.getExhaustedCount());
+
+        // Errors that are not transient are raised on the first attempt.
+        RetryPolicy other = new RetryPolicy(5, 10, 100, sleeps::add, new Random(7));
+        db.failWith = "42P01";
+        assertThrows(SQLException.class, () -> other.call(db::connect));
+        assertEquals(3, db.calls.get());
+        assertEquals(0, other.getRetryCount());
+    }
+}
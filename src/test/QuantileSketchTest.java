@@ -0,0 +1,60 @@
+package com.sms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void testExactForSmallInputs() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+        assertEquals(100, sketch.getCount());
+        assertEquals(1, sketch.quantile(0));
+        assertEquals(50, sketch.quantile(0.5));
+        assertEquals(90, sketch.quantile(0.9));
+        assertEquals(100, sketch.quantile(1));
+    }
+
+    @Test
+    public void testBoundedMemoryAndRankError() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(42);
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            sketch.update(random.nextDouble() * 100);
+        }
+        assertTrue(sketch.getRetainedCount() < 20 * QuantileSketch.DEFAULT_K);
+        assertEquals(10, sketch.quantile(0.1), 2.0);
+        assertEquals(50, sketch.quantile(0.5), 2.0);
+        assertEquals(90, sketch.quantile(0.9), 2.0);
+    }
+
+    @Test
+    public void testMergeMatchesSingleSketch() {
+        QuantileSketch merged = new QuantileSketch();
+        for (int shard = 0; shard < 4; shard++) {
+            QuantileSketch part = new QuantileSketch();
+            for (int i = shard; i < 100_000; i += 4) {
+                part.update(i);
+            }
+            merged.merge(part);
+        }
+        assertEquals(100_000, merged.getCount());
+        assertEquals(0, merged.getMin());
+        assertEquals(99_999, merged.getMax());
+        assertEquals(50_000, merged.quantile(0.5), 2_000);
+    }
+
+    @Test
+    public void testEmptySketch() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    }
+}
@@ -0,0 +1,138 @@
+package com.sms.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the hot DAO queries are served by an index on a seeded local database. The
+ * statements are the DAOs' own package-visible constants, so a query change is tested as shipped.
+ * Runs only when SMS_TEST_DB_URL (plus SMS_TEST_DB_USER / SMS_TEST_DB_PASSWORD) points at a
+ * Postgres instance with the migrations applied. Seed data is rolled back after each test.
+ */
+public class QueryPlanTest {
+    private Connection conn;
+
+    @BeforeEach
+    public void seed() throws SQLException {
+        String url = System.getenv("SMS_TEST_DB_URL");
+        assumeTrue(url != null && !url.isEmpty(), "SMS_TEST_DB_URL not set");
+
+        conn = DriverManager.getConnection(url, System.getenv("SMS_TEST_DB_USER"), System.getenv("SMS_TEST_DB_PASSWORD"));
+        conn.setAutoCommit(false);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO students (student_id, first_name, last_name, email, enrollment_date, status) " +
+                    "SELECT 'STU' || lpad(g::text, 6, '0'), 'First' || g, 'Last' || g, 'plan' || g || '@example.com', " +
+                    "DATE '2020-01-01' + (g % 1500), CASE WHEN g % 10 = 0 THEN 'Graduated' ELSE 'Active' END " +
+                    "FROM generate_series(1, 5000) g ON CONFLICT DO NOTHING");
+            stmt.execute("INSERT INTO courses (course_code, course_name, credits, semester, max_capacity) " +
+                    "SELECT 'PLN' || lpad(g::text, 3, '0'), 'Plan Course ' || g, 3, " +
+                    "(ARRAY['Fall 2024', 'Spring 2025', 'Fall 2025', 'Spring 2026'])[1 + g % 4], 100 " +
+                    "FROM generate_series(1, 200) g ON CONFLICT DO NOTHING");
+            stmt.execute("INSERT INTO enrollments (student_id, course_id, enrollment_date, status) " +
+                    "SELECT s.id, c.id, DATE '2024-01-01' + (s.rn % 600)::int, " +
+                    "CASE WHEN (s.rn + c.rn) % 3 = 0 THEN 'Completed' ELSE 'Enrolled' END " +
+                    "FROM (SELECT id, row_number() OVER (ORDER BY student_id) AS rn FROM students) s " +
+                    "JOIN (SELECT id, row_number() OVER (ORDER BY course_code) AS rn FROM courses) c " +
+                    "ON c.rn IN (s.rn % 200 + 1, (s.rn + 50) % 200 + 1, (s.rn + 100) % 200 + 1) " +
+                    "ON CONFLICT DO NOTHING");
+            stmt.execute("INSERT INTO attendance (enrollment_id, attendance_date, status) " +
+                    "SELECT e.id, DATE '2026-09-01' + d, CASE WHEN d % 5 = 0 THEN 'Absent' ELSE 'Present' END " +
+                    "FROM enrollments e CROSS JOIN generate_series(0, 9) d ON CONFLICT DO NOTHING");
+            stmt.execute("ANALYZE students");
+            stmt.execute("ANALYZE courses");
+            stmt.execute("ANALYZE enrollments");
+            stmt.execute("ANALYZE attendance");
+            // The seed is small enough that a sequential scan can be costed cheaper than an
+            // index; disabling it makes the plan fall back to a seq scan only if no index applies.
+            stmt.execute("SET LOCAL enable_seqscan = off");
+        }
+    }
+
+    @AfterEach
+    public void rollback() throws SQLException {
+        if (conn != null) {
+            conn.rollback();
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testEnrollmentCountUsesPartialIndex() throws SQLException {
+        String plan = explain(EnrollmentDAO.ENROLLED_COUNT, anyId("courses"));
+        assertUsesIndex(plan, "idx_enrollments_course_enrolled");
+    }
+
+    @Test
+    public void testFindEnrollmentsByStudentUsesIndex() throws SQLException {
+        String plan = explain(EnrollmentDAO.FIND_BY_STUDENT, anyId("students"));
+        assertUsesIndex(plan, null);
+    }
+
+    @Test
+    public void testFindEnrollmentsByCourseUsesIndex() throws SQLException {
+        String plan = explain(EnrollmentDAO.FIND_BY_COURSE, anyId("courses"));
+        assertUsesIndex(plan, "idx_enrollments_course_date");
+    }
+
+    @Test
+    public void testFindStudentsByStatusUsesIndex() throws SQLException {
+        String plan = explain(StudentDAO.FIND_BY_STATUS, "Graduated");
+        assertUsesIndex(plan, "idx_students_status_enrollment_date");
+    }
+
+    @Test
+    public void testFindCoursesBySemesterUsesIndex() throws SQLException {
+        String plan = explain(CourseDAO.FIND_BY_SEMESTER, "Fall 2025");
+        assertUsesIndex(plan, "idx_courses_semester_code");
+    }
+
+    @Test
+    public void testFindAttendanceByDateUsesIndex() throws SQLException {
+        String plan = explain(AttendanceDAO.FIND_BY_DATE, Date.valueOf(LocalDate.of(2026, 9, 3)));
+        assertUsesIndex(plan, null);
+    }
+
+    @Test
+    public void testFindAttendanceByEnrollmentUsesIndex() throws SQLException {
+        String plan = explain(AttendanceDAO.FIND_BY_ENROLLMENT, anyId("enrollments"));
+        assertUsesIndex(plan, null);
+    }
+
+    private String explain(String sql, Object param) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            stmt.setObject(1, param);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private UUID anyId(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM " + table + " LIMIT 1")) {
+            assertTrue(rs.next(), "No seeded rows in " + table);
+            return (UUID) rs.getObject(1);
+        }
+    }
+
+    private void assertUsesIndex(String plan, String indexName) {
+        assertFalse(plan.contains("Seq Scan"), "Expected an index scan but got:\n" + plan);
+        assertTrue(plan.contains("Index"), "Expected an index scan but got:\n" + plan);
+        if (indexName != null) {
+            assertTrue(plan.contains(indexName), "Expected " + indexName + " in plan:\n" + plan);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.sms.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementTracerTest {
+
+    // A statement that only remembers the timeouts it was given.
+    private static Statement recordingStatement(List<Integer> timeouts) {
+        return (Statement) Proxy.newProxyInstance(StatementTracerTest.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("setQueryTimeout")) {
+                        timeouts.add((Integer) args[0]);
+                    }
+                    return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                });
+    }
+
+    @Test
+    public void testTimeoutSelection() {
+        StatementTracer tracer = StatementTracer.getInstance();
+        tracer.configure(30, 300, 500);
+
+        assertEquals(30, tracer.timeoutFor("executeQuery", false, null));
+        assertEquals(300, tracer.timeoutFor("executeQuery", true, null));
+        assertEquals(300, tracer.timeoutFor("executeBatch", false, null));
+        assertEquals(5, tracer.timeoutFor("executeBatch", true, 5));
+        assertEquals(0, tracer.timeoutFor("execute", false, 0));
+    }
+
+    @Test
+    public void testExplicitZeroTimeoutIsKept() throws Exception {
+        StatementTracer tracer = StatementTracer.getInstance();
+        tracer.configure(30, 300, 500);
+
+        List<Integer> defaulted = new ArrayList<>();
+        tracer.trace(recordingStatement(defaulted)).execute("SELECT 1");
+        assertEquals(List.of(30), defaulted);
+
+        List<Integer> explicit = new ArrayList<>();
+        Statement maintenance = tracer.trace(recordingStatement(explicit));
+        maintenance.setQueryTimeout(0);
+        maintenance.execute("ANALYZE attendance");
+        maintenance.execute("ANALYZE enrollments");
+        assertEquals(List.of(0), explicit);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+  # Query-shape indexes
+
+  ## Overview
+  Aligns indexes with the predicates and sort orders actually issued by the DAO layer.
+  The initial schema only indexed single foreign-key columns, so the hot queries below
+  either fell back to sequential scans or needed an explicit sort step.
+
+  ## 1. New Indexes
+
+  ### enrollments
+  - `idx_enrollments_course_enrolled` (partial, `status = 'Enrolled'`) - `EnrollmentDAO.getEnrollmentCount`
+  - `idx_enrollments_student_date` (`student_id, enrollment_date DESC`) - `EnrollmentDAO.findByStudentId`
+  - `idx_enrollments_course_date` (`course_id, enrollment_date DESC`) - `EnrollmentDAO.findByCourseId`
+
+  ### students
+  - `idx_students_status_enrollment_date` (`status, enrollment_date DESC`) - `StudentDAO.findByStatus`
+
+  ### courses
+  - `idx_courses_semester_code` (`semester, course_code`) - `CourseDAO.findBySemester`
+
+  ### attendance
+  - `idx_attendance_date` (`attendance_date`) - `AttendanceDAO.findByDate`
+
+  ## 2. New Constraints
+  - `uq_attendance_enrollment_date` - UNIQUE (`enrollment_id, attendance_date`); one attendance
+    record per enrollment per day. Existing duplicates are collapsed first, keeping the most
+    recently created row. The constraint index also serves `AttendanceDAO.findByEnrollmentId`
+    and `getAttendancePercentage`.
+
+  ## 3. Removed Indexes
+  The following are superseded by the composite indexes above or duplicate the index that
+  backs an existing UNIQUE constraint, so they only add write cost:
+  - `idx_enrollments_student_id` (covered by UNIQUE(student_id, course_id))
+  - `idx_enrollments_course_id` (covered by `idx_enrollments_course_date`)
+  - `idx_attendance_enrollment_id` (covered by `uq_attendance_enrollment_date`)
+  - `idx_students_email`, `idx_students_student_id`, `idx_courses_course_code` (UNIQUE constraints)
+*/
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_course_enrolled
+  ON enrollments(course_id)
+  WHERE status = 'Enrolled';
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_student_date
+  ON enrollments(student_id, enrollment_date DESC);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_course_date
+  ON enrollments(course_id, enrollment_date DESC);
+
+CREATE INDEX IF NOT EXISTS idx_students_status_enrollment_date
+  ON students(status, enrollment_date DESC);
+
+CREATE INDEX IF NOT EXISTS idx_courses_semester_code
+  ON courses(semester, course_code);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_date
+  ON attendance(attendance_date);
+
+DELETE FROM attendance a
+USING attendance newer
+WHERE a.enrollment_id = newer.enrollment_id
+  AND a.attendance_date = newer.attendance_date
+  AND (a.created_at, a.id) < (newer.created_at, newer.id);
+
+ALTER TABLE attendance
+  ADD CONSTRAINT uq_attendance_enrollment_date UNIQUE (enrollment_id, attendance_date);
+
+DROP INDEX IF EXISTS idx_enrollments_student_id;
+DROP INDEX IF EXISTS idx_enrollments_course_id;
+DROP INDEX IF EXISTS idx_attendance_enrollment_id;
+DROP INDEX IF EXISTS idx_students_email;
+DROP INDEX IF EXISTS idx_students_student_id;
+DROP INDEX IF EXISTS idx_courses_course_code;
@@ -0,0 +1,101 @@
+/*
+  # Monthly range partitioning for attendance
+
+  ## Overview
+  `attendance` grows by students x courses x days and never shrinks. This migration turns it
+  into a table range-partitioned by month on `attendance_date`, so date-bounded queries only
+  touch the partitions they need and closed terms can be detached and archived as a whole
+  partition instead of being deleted row by row.
+
+  ## 1. Changes
+  - `attendance` is recreated as `PARTITION BY RANGE (attendance_date)`; existing rows are copied
+    over and the old table is dropped.
+  - The primary key becomes (`id`, `attendance_date`) because a partitioned table's unique
+    constraints must include the partition key. `uq_attendance_enrollment_date` is kept.
+  - `attendance_date` is now NOT NULL (it is the partition key).
+  - One partition per month (`attendance_YYYY_MM`) covering existing data plus the next
+    twelve months, and `attendance_default` as a catch-all.
+
+  ## 2. New Functions
+  - `create_attendance_partition(p_month date)` - creates the partition for the month containing
+    `p_month` if it does not exist and returns its name. Called by the archival job to keep
+    partitions ahead of the calendar.
+
+  ## 3. Security
+  - RLS is enabled on the new table and the public policies are recreated.
+
+  ## 4. Important Notes
+  - Create partitions ahead of time: rows for a month with no partition land in
+    `attendance_default`, and a month's partition cannot be created while the default
+    partition holds rows for it.
+*/
+
+ALTER TABLE attendance RENAME TO attendance_legacy;
+ALTER TABLE attendance_legacy RENAME CONSTRAINT attendance_pkey TO attendance_legacy_pkey;
+ALTER TABLE attendance_legacy RENAME CONSTRAINT uq_attendance_enrollment_date TO uq_attendance_legacy_enrollment_date;
+DROP INDEX IF EXISTS idx_attendance_date;
+
+CREATE TABLE attendance (
+  id uuid NOT NULL DEFAULT gen_random_uuid(),
+  enrollment_id uuid NOT NULL REFERENCES enrollments(id) ON DELETE CASCADE,
+  attendance_date date NOT NULL DEFAULT CURRENT_DATE,
+  status text DEFAULT 'Present',
+  remarks text,
+  created_at timestamptz DEFAULT now(),
+  PRIMARY KEY (id, attendance_date),
+  CONSTRAINT uq_attendance_enrollment_date UNIQUE (enrollment_id, attendance_date)
+) PARTITION BY RANGE (attendance_date);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_date ON attendance(attendance_date);
+
+CREATE OR REPLACE FUNCTION create_attendance_partition(p_month date)
+RETURNS text AS $$
+DECLARE
+  start_date date := date_trunc('month', p_month)::date;
+  end_date date := (date_trunc('month', p_month) + interval '1 month')::date;
+  partition_name text := 'attendance_' || to_char(start_date, 'YYYY_MM');
+BEGIN
+  EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF attendance FOR VALUES FROM (%L) TO (%L)',
+                 partition_name, start_date, end_date);
+  RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_attendance_partition(month::date)
+FROM generate_series(
+  date_trunc('month', LEAST((SELECT MIN(attendance_date) FROM attendance_legacy), CURRENT_DATE)),
+  date_trunc('month', CURRENT_DATE + interval '12 months'),
+  interval '1 month'
+) AS month;
+
+CREATE TABLE IF NOT EXISTS attendance_default PARTITION OF attendance DEFAULT;
+
+INSERT INTO attendance (id, enrollment_id, attendance_date, status, remarks, created_at)
+SELECT id, enrollment_id, COALESCE(attendance_date, created_at::date, CURRENT_DATE), status, remarks, created_at
+FROM attendance_legacy
+ON CONFLICT DO NOTHING;
+
+DROP TABLE attendance_legacy;
+
+ALTER TABLE attendance ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY "Allow public read access to attendance"
+  ON attendance FOR SELECT
+  TO public
+  USING (true);
+
+CREATE POLICY "Allow public insert to attendance"
+  ON attendance FOR INSERT
+  TO public
+  WITH CHECK (true);
+
+CREATE POLICY "Allow public update to attendance"
+  ON attendance FOR UPDATE
+  TO public
+  USING (true)
+  WITH CHECK (true);
+
+CREATE POLICY "Allow public delete from attendance"
+  ON attendance FOR DELETE
+  TO public
+  USING (true);
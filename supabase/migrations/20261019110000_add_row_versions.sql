@@ -0,0 +1,23 @@
+/*
+  # Row versions for optimistic concurrency
+
+  ## Overview
+  `StudentDAO.update`, `CourseDAO.update` and `EnrollmentDAO.update` (and the batch variants)
+  previously overwrote rows unconditionally, so two users editing the same record silently
+  lost one of the edits. Each mutable table now carries a version counter; updates are issued
+  as `... SET version = version + 1 WHERE id = ? AND version = ?` and a miss is reported to the
+  caller as `OptimisticLockException` instead of taking row locks up front.
+
+  ## 1. Modified Tables
+  - `students.version` integer NOT NULL DEFAULT 0
+  - `courses.version` integer NOT NULL DEFAULT 0
+  - `enrollments.version` integer NOT NULL DEFAULT 0
+
+  ## 2. Notes
+  - Adding a column with a constant default does not rewrite the table on PostgreSQL 11+.
+  - Attendance rows are not versioned; re-marking is made idempotent separately.
+*/
+
+ALTER TABLE students ADD COLUMN IF NOT EXISTS version integer NOT NULL DEFAULT 0;
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS version integer NOT NULL DEFAULT 0;
+ALTER TABLE enrollments ADD COLUMN IF NOT EXISTS version integer NOT NULL DEFAULT 0;
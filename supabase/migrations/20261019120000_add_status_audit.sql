@@ -0,0 +1,54 @@
+/*
+  # Status audit trail for bulk transitions
+
+  ## Overview
+  End-of-year processing (graduating a cohort, dropping stale enrollments) now runs as one
+  set-based `UPDATE ... WHERE <filters>` per operation instead of a `findById` + full-row
+  update per record. Each such statement also records the previous and new status of every
+  row it touched, tagged with a batch id, so a bulk run can be reviewed or reversed.
+
+  ## 1. New Tables
+  - `status_audit`
+    - `id` (uuid, primary key)
+    - `entity` (text) - 'student' or 'enrollment'
+    - `entity_id` (uuid) - id of the changed row
+    - `old_status` / `new_status` (text)
+    - `batch_id` (uuid) - one per bulk operation
+    - `changed_at` (timestamptz)
+
+  ## 2. New Indexes
+  - `idx_status_audit_entity` (`entity, entity_id, changed_at DESC`) - history of one record
+  - `idx_status_audit_batch` (`batch_id`) - everything changed by one run
+
+  ## 3. Security
+  - RLS enabled with the same public read/insert policies as the other tables; audit rows
+    are never updated or deleted by the application.
+*/
+
+CREATE TABLE IF NOT EXISTS status_audit (
+  id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+  entity text NOT NULL,
+  entity_id uuid NOT NULL,
+  old_status text,
+  new_status text NOT NULL,
+  batch_id uuid NOT NULL,
+  changed_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_status_audit_entity
+  ON status_audit(entity, entity_id, changed_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_status_audit_batch
+  ON status_audit(batch_id);
+
+ALTER TABLE status_audit ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY "Allow public read access to status_audit"
+  ON status_audit FOR SELECT
+  TO public
+  USING (true);
+
+CREATE POLICY "Allow public insert to status_audit"
+  ON status_audit FOR INSERT
+  TO public
+  WITH CHECK (true);
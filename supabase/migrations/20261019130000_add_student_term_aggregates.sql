@@ -0,0 +1,165 @@
+/*
+  # Per-student, per-semester grade aggregates
+
+  ## Overview
+  GPA and credit totals were only derivable by scanning every enrollment of a student and
+  joining its course. This migration keeps a running aggregate per (student, semester) that
+  triggers adjust by the delta of each changed enrollment, so bulk grade imports and single
+  grade edits update only the affected students' rows and GPA reads are a primary-key lookup.
+
+  ## 1. New Functions
+  - `grade_points(grade text)` - 4.0 scale points for a letter grade; NULL for ungraded
+  - `adjust_student_term_aggregate(...)` - adds (+1) or removes (-1) one enrollment's contribution
+  - `rebuild_student_term_aggregates(students uuid[])` - recomputes the given students from
+    scratch (used for the backfill and when a course's credits or semester change)
+
+  ## 2. New Tables
+  - `student_term_aggregates`
+    - `student_id` (uuid, FK students, cascade) / `semester` (text, '' when unset) - primary key
+    - `graded_credits` (integer) - credits of graded, non-dropped enrollments
+    - `quality_points` (numeric) - sum of credits * grade points over the same enrollments
+    - `earned_credits` (integer) - credits of graded enrollments with a passing grade
+    - `updated_at` (timestamptz)
+    GPA for a term is quality_points / graded_credits; cumulative GPA sums across terms.
+
+  ## 3. Security
+  - RLS enabled with a public read policy only; rows are written exclusively by the
+    SECURITY DEFINER functions above, never directly by the application.
+
+  ## 4. New Triggers
+  - `trg_enrollments_term_aggregates` - AFTER INSERT, DELETE, or UPDATE OF grade, status,
+    course_id, student_id on enrollments
+  - `trg_courses_term_aggregates` - AFTER UPDATE OF credits, semester on courses
+*/
+
+CREATE OR REPLACE FUNCTION grade_points(p_grade text)
+RETURNS numeric
+LANGUAGE sql
+IMMUTABLE
+AS $$
+  SELECT CASE p_grade
+    WHEN 'A+' THEN 4.0
+    WHEN 'A'  THEN 4.0
+    WHEN 'A-' THEN 3.7
+    WHEN 'B+' THEN 3.3
+    WHEN 'B'  THEN 3.0
+    WHEN 'B-' THEN 2.7
+    WHEN 'C+' THEN 2.3
+    WHEN 'C'  THEN 2.0
+    WHEN 'C-' THEN 1.7
+    WHEN 'D'  THEN 1.0
+    WHEN 'F'  THEN 0.0
+  END
+$$;
+
+CREATE TABLE IF NOT EXISTS student_term_aggregates (
+  student_id uuid NOT NULL REFERENCES students(id) ON DELETE CASCADE,
+  semester text NOT NULL DEFAULT '',
+  graded_credits integer NOT NULL DEFAULT 0,
+  quality_points numeric(10, 2) NOT NULL DEFAULT 0,
+  earned_credits integer NOT NULL DEFAULT 0,
+  updated_at timestamptz NOT NULL DEFAULT now(),
+  PRIMARY KEY (student_id, semester)
+);
+
+CREATE OR REPLACE FUNCTION adjust_student_term_aggregate(
+  p_student uuid, p_course uuid, p_grade text, p_status text, p_sign integer)
+RETURNS void
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+DECLARE
+  v_points numeric := grade_points(p_grade);
+  v_credits integer;
+  v_semester text;
+BEGIN
+  IF v_points IS NULL OR p_status = 'Dropped' THEN
+    RETURN;
+  END IF;
+
+  SELECT COALESCE(credits, 0), COALESCE(semester, '') INTO v_credits, v_semester
+  FROM courses WHERE id = p_course;
+  IF NOT FOUND THEN
+    RETURN;
+  END IF;
+
+  INSERT INTO student_term_aggregates AS a (student_id, semester, graded_credits, quality_points, earned_credits)
+  VALUES (p_student, v_semester, p_sign * v_credits, p_sign * v_credits * v_points,
+          CASE WHEN v_points > 0 THEN p_sign * v_credits ELSE 0 END)
+  ON CONFLICT (student_id, semester) DO UPDATE
+  SET graded_credits = a.graded_credits + EXCLUDED.graded_credits,
+      quality_points = a.quality_points + EXCLUDED.quality_points,
+      earned_credits = a.earned_credits + EXCLUDED.earned_credits,
+      updated_at = now();
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION rebuild_student_term_aggregates(p_students uuid[])
+RETURNS void
+LANGUAGE sql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+  DELETE FROM student_term_aggregates WHERE student_id = ANY(p_students);
+
+  INSERT INTO student_term_aggregates (student_id, semester, graded_credits, quality_points, earned_credits)
+  SELECT e.student_id,
+         COALESCE(c.semester, ''),
+         SUM(COALESCE(c.credits, 0)),
+         SUM(COALESCE(c.credits, 0) * grade_points(e.grade)),
+         SUM(CASE WHEN grade_points(e.grade) > 0 THEN COALESCE(c.credits, 0) ELSE 0 END)
+  FROM enrollments e
+  JOIN courses c ON c.id = e.course_id
+  WHERE e.student_id = ANY(p_students)
+    AND grade_points(e.grade) IS NOT NULL
+    AND e.status <> 'Dropped'
+  GROUP BY e.student_id, COALESCE(c.semester, '');
+$$;
+
+CREATE OR REPLACE FUNCTION sync_enrollment_term_aggregates()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    PERFORM adjust_student_term_aggregate(OLD.student_id, OLD.course_id, OLD.grade, OLD.status, -1);
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    PERFORM adjust_student_term_aggregate(NEW.student_id, NEW.course_id, NEW.grade, NEW.status, 1);
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION sync_course_term_aggregates()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  PERFORM rebuild_student_term_aggregates(ARRAY(
+    SELECT student_id FROM enrollments WHERE course_id = NEW.id));
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_enrollments_term_aggregates ON enrollments;
+CREATE TRIGGER trg_enrollments_term_aggregates
+  AFTER INSERT OR DELETE OR UPDATE OF grade, status, course_id, student_id ON enrollments
+  FOR EACH ROW EXECUTE FUNCTION sync_enrollment_term_aggregates();
+
+DROP TRIGGER IF EXISTS trg_courses_term_aggregates ON courses;
+CREATE TRIGGER trg_courses_term_aggregates
+  AFTER UPDATE OF credits, semester ON courses
+  FOR EACH ROW
+  WHEN (OLD.credits IS DISTINCT FROM NEW.credits OR OLD.semester IS DISTINCT FROM NEW.semester)
+  EXECUTE FUNCTION sync_course_term_aggregates();
+
+SELECT rebuild_student_term_aggregates(ARRAY(SELECT id FROM students));
+
+ALTER TABLE student_term_aggregates ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY "Allow public read access to student_term_aggregates"
+  ON student_term_aggregates FOR SELECT
+  TO public
+  USING (true);
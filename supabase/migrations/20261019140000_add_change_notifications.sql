@@ -0,0 +1,52 @@
+/*
+  # Change notifications for cache invalidation across app instances
+
+  ## Overview
+  Each application instance caches reports and attendance counters and drops them when its own
+  DAOs write. Writes made by another instance (or by any other client) were only picked up when
+  the cache expired. Every statement that changes one of the cached tables now publishes a
+  notice on the `sms_changes` channel; each instance LISTENs and invalidates what it holds.
+
+  Notices are statement-level, so a batch of a thousand rows costs one notice. They are
+  delivered at commit, never for a rolled-back transaction, and identical notices raised in one
+  transaction are collapsed by the server.
+
+  ## 1. New Functions
+  - `notify_table_change()` - sends `<table> <application_name>` on `sms_changes`. The
+    application name lets an instance skip the notices caused by its own writes.
+
+  ## 2. New Triggers
+  - `trg_<table>_notify_change` on `students`, `courses`, `enrollments` and `attendance` -
+    AFTER INSERT, UPDATE, DELETE or TRUNCATE, FOR EACH STATEMENT (no TRUNCATE trigger on the
+    partitioned `attendance` table; truncating it is only done by the data generator)
+*/
+
+CREATE OR REPLACE FUNCTION notify_table_change()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  PERFORM pg_notify('sms_changes', TG_TABLE_NAME || ' ' || COALESCE(current_setting('application_name', true), ''));
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_students_notify_change ON students;
+CREATE TRIGGER trg_students_notify_change
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON students
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+DROP TRIGGER IF EXISTS trg_courses_notify_change ON courses;
+CREATE TRIGGER trg_courses_notify_change
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON courses
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_change ON enrollments;
+CREATE TRIGGER trg_enrollments_notify_change
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON enrollments
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+DROP TRIGGER IF EXISTS trg_attendance_notify_change ON attendance;
+CREATE TRIGGER trg_attendance_notify_change
+  AFTER INSERT OR UPDATE OR DELETE ON attendance
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
@@ -0,0 +1,108 @@
+/*
+  # Transactional outbox for entity changes
+
+  ## Overview
+  Downstream systems detected changes by re-reading whole tables. Every insert, update and
+  delete of a student, course, enrollment or attendance mark now also writes one outbox row in
+  the same transaction, so an event exists exactly when the change commits (cascaded deletes
+  included). The application's outbox relay reads the rows in commit-safe order and delivers
+  them in batches to one or more sinks, each with its own durable offset.
+
+  ## 1. New Tables
+  - `outbox`
+    - `id` (bigint identity, primary key)
+    - `tx_id` (xid8) - writing transaction; events are read in (tx_id, id) order and only once
+      every older transaction has finished, so a late commit can never fall behind an offset
+    - `entity` (text) - 'student', 'course', 'enrollment' or 'attendance'
+    - `entity_id` (uuid)
+    - `operation` (text) - 'create', 'update' or 'delete'
+    - `payload` (jsonb) - the row after the change (before it, for deletes)
+    - `created_at` (timestamptz)
+  - `outbox_offsets`
+    - `sink` (text, primary key) - relay sink name
+    - `last_tx_id` (xid8) / `last_id` (bigint) - position of the last delivered event
+    - `sequence` (bigint) - number of events delivered to the sink; event sequence numbers
+      are contiguous per sink, so consumers can resume from the last one they stored
+    - `updated_at` (timestamptz)
+
+  ## 2. New Indexes
+  - `idx_outbox_position` (`tx_id, id`) - relay reads
+
+  ## 3. New Functions and Triggers
+  - `write_outbox_event()` - SECURITY DEFINER; skips updates that change nothing
+  - `trg_<table>_outbox` on `students`, `courses`, `enrollments` and `attendance` - AFTER
+    INSERT, UPDATE or DELETE, FOR EACH ROW
+
+  ## 4. Security
+  - RLS enabled on both tables with no public policies; only the relay reads them.
+*/
+
+CREATE TABLE IF NOT EXISTS outbox (
+  id bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  tx_id xid8 NOT NULL DEFAULT pg_current_xact_id(),
+  entity text NOT NULL,
+  entity_id uuid NOT NULL,
+  operation text NOT NULL CHECK (operation IN ('create', 'update', 'delete')),
+  payload jsonb NOT NULL,
+  created_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_position ON outbox(tx_id, id);
+
+CREATE TABLE IF NOT EXISTS outbox_offsets (
+  sink text PRIMARY KEY,
+  last_tx_id xid8 NOT NULL DEFAULT '0',
+  last_id bigint NOT NULL DEFAULT 0,
+  sequence bigint NOT NULL DEFAULT 0,
+  updated_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION write_outbox_event()
+RETURNS trigger
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+DECLARE
+  v_entity text := CASE TG_TABLE_NAME
+    WHEN 'students' THEN 'student'
+    WHEN 'courses' THEN 'course'
+    WHEN 'enrollments' THEN 'enrollment'
+    ELSE TG_TABLE_NAME
+  END;
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, NEW.id, 'create', to_jsonb(NEW));
+  ELSIF TG_OP = 'UPDATE' THEN
+    IF OLD IS DISTINCT FROM NEW THEN
+      INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, NEW.id, 'update', to_jsonb(NEW));
+    END IF;
+  ELSE
+    INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, OLD.id, 'delete', to_jsonb(OLD));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_students_outbox ON students;
+CREATE TRIGGER trg_students_outbox
+  AFTER INSERT OR UPDATE OR DELETE ON students
+  FOR EACH ROW EXECUTE FUNCTION write_outbox_event();
+
+DROP TRIGGER IF EXISTS trg_courses_outbox ON courses;
+CREATE TRIGGER trg_courses_outbox
+  AFTER INSERT OR UPDATE OR DELETE ON courses
+  FOR EACH ROW EXECUTE FUNCTION write_outbox_event();
+
+DROP TRIGGER IF EXISTS trg_enrollments_outbox ON enrollments;
+CREATE TRIGGER trg_enrollments_outbox
+  AFTER INSERT OR UPDATE OR DELETE ON enrollments
+  FOR EACH ROW EXECUTE FUNCTION write_outbox_event();
+
+DROP TRIGGER IF EXISTS trg_attendance_outbox ON attendance;
+CREATE TRIGGER trg_attendance_outbox
+  AFTER INSERT OR UPDATE OR DELETE ON attendance
+  FOR EACH ROW EXECUTE FUNCTION write_outbox_event();
+
+ALTER TABLE outbox ENABLE ROW LEVEL SECURITY;
+ALTER TABLE outbox_offsets ENABLE ROW LEVEL SECURITY;
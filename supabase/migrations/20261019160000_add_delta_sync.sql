@@ -0,0 +1,120 @@
+/*
+  # Delta sync by updated_at watermark
+
+  ## Overview
+  Mirrors and caches refreshed by re-reading whole tables. Students, courses and enrollments
+  can now be read "changed since" a watermark, in (updated_at, id) order, and deletes leave a
+  tombstone so a mirror can remove the row. A refresh costs O(changes) instead of O(table).
+
+  `updated_at` was only maintained by the DAO update statements; a trigger now sets it on every
+  update, so changes made outside the application are picked up as well. It is the writing
+  transaction's start time, which is what lets the reader hold its watermark behind any
+  transaction still in progress.
+
+  ## 1. Modified Columns
+  - `students.updated_at`, `courses.updated_at`, `enrollments.updated_at` - NOT NULL (backfilled
+    from created_at)
+
+  ## 2. New Tables
+  - `tombstones`
+    - `entity` (text) - 'student', 'course' or 'enrollment'
+    - `entity_id` (uuid) - id of the deleted row
+    - `deleted_at` (timestamptz)
+    Primary key (`entity`, `entity_id`). Rows are kept for 30 days; a mirror whose watermark is
+    older than that must reload in full.
+
+  ## 3. New Indexes
+  - `idx_students_updated_at`, `idx_courses_updated_at`, `idx_enrollments_updated_at`
+    (`updated_at, id`) - `findChangedSince`
+  - `idx_tombstones_entity_deleted_at` (`entity, deleted_at, entity_id`) - tombstone reads
+
+  ## 4. New Functions and Triggers
+  - `set_updated_at()` / `trg_<table>_updated_at` - BEFORE UPDATE, FOR EACH ROW
+  - `record_tombstone()` / `trg_<table>_tombstone` - AFTER DELETE, FOR EACH ROW (cascaded deletes
+    included); SECURITY DEFINER
+
+  ## 5. Security
+  - RLS enabled on `tombstones` with a public read policy, like the tables it describes.
+*/
+
+UPDATE students SET updated_at = COALESCE(created_at, now()) WHERE updated_at IS NULL;
+UPDATE courses SET updated_at = COALESCE(created_at, now()) WHERE updated_at IS NULL;
+UPDATE enrollments SET updated_at = COALESCE(created_at, now()) WHERE updated_at IS NULL;
+
+ALTER TABLE students ALTER COLUMN updated_at SET NOT NULL;
+ALTER TABLE courses ALTER COLUMN updated_at SET NOT NULL;
+ALTER TABLE enrollments ALTER COLUMN updated_at SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_students_updated_at ON students(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_courses_updated_at ON courses(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_enrollments_updated_at ON enrollments(updated_at, id);
+
+CREATE TABLE IF NOT EXISTS tombstones (
+  entity text NOT NULL,
+  entity_id uuid NOT NULL,
+  deleted_at timestamptz NOT NULL DEFAULT now(),
+  PRIMARY KEY (entity, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tombstones_entity_deleted_at ON tombstones(entity, deleted_at, entity_id);
+
+CREATE OR REPLACE FUNCTION set_updated_at()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  NEW.updated_at := now();
+  RETURN NEW;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION record_tombstone()
+RETURNS trigger
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+BEGIN
+  INSERT INTO tombstones (entity, entity_id, deleted_at)
+  VALUES (TG_ARGV[0], OLD.id, now())
+  ON CONFLICT (entity, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_students_updated_at ON students;
+CREATE TRIGGER trg_students_updated_at
+  BEFORE UPDATE ON students
+  FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+
+DROP TRIGGER IF EXISTS trg_courses_updated_at ON courses;
+CREATE TRIGGER trg_courses_updated_at
+  BEFORE UPDATE ON courses
+  FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+
+DROP TRIGGER IF EXISTS trg_enrollments_updated_at ON enrollments;
+CREATE TRIGGER trg_enrollments_updated_at
+  BEFORE UPDATE ON enrollments
+  FOR EACH ROW EXECUTE FUNCTION set_updated_at();
+
+DROP TRIGGER IF EXISTS trg_students_tombstone ON students;
+CREATE TRIGGER trg_students_tombstone
+  AFTER DELETE ON students
+  FOR EACH ROW EXECUTE FUNCTION record_tombstone('student');
+
+DROP TRIGGER IF EXISTS trg_courses_tombstone ON courses;
+CREATE TRIGGER trg_courses_tombstone
+  AFTER DELETE ON courses
+  FOR EACH ROW EXECUTE FUNCTION record_tombstone('course');
+
+DROP TRIGGER IF EXISTS trg_enrollments_tombstone ON enrollments;
+CREATE TRIGGER trg_enrollments_tombstone
+  AFTER DELETE ON enrollments
+  FOR EACH ROW EXECUTE FUNCTION record_tombstone('enrollment');
+
+ALTER TABLE tombstones ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY "Allow public read access to tombstones"
+  ON tombstones FOR SELECT
+  TO public
+  USING (true);
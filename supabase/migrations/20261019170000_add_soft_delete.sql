@@ -0,0 +1,209 @@
+/*
+  # Soft delete for students, courses and enrollments
+
+  ## Overview
+  Deleting a course cascaded (ON DELETE CASCADE) through every enrollment and its full
+  attendance history in one transaction, holding row and index locks for as long as that took.
+  The DAOs now set `deleted_at` on the row and its enrollments instead, and every query filters
+  `deleted_at IS NULL`. The application's SoftDeletePurger removes the rows for good during a
+  quiet window, in small batches, children first, so each hard delete cascades into nothing.
+
+  ## 1. New Columns
+  - `students.deleted_at`, `courses.deleted_at`, `enrollments.deleted_at` (timestamptz, NULL
+    while the row is live)
+
+  ## 2. Modified Constraints
+  - The unique constraints on `students.student_id`, `students.email`, `courses.course_code`
+    and `enrollments (student_id, course_id)` become partial unique indexes over live rows, so a
+    deleted student or enrollment does not block creating it again:
+    `uq_students_student_id`, `uq_students_email`, `uq_courses_course_code`,
+    `uq_enrollments_student_course`.
+
+  ## 3. Modified Indexes
+  - `idx_enrollments_course_enrolled`, `idx_students_status_enrollment_date` and
+    `idx_courses_semester_code` are rebuilt with `WHERE deleted_at IS NULL`.
+  - `idx_enrollments_student_date` and `idx_enrollments_course_date` stay unfiltered: the
+    foreign-key cascades the purger triggers have no `deleted_at` predicate and need them.
+
+  ## 4. New Indexes
+  - `idx_students_live_enrollment_date`, `idx_enrollments_live_enrollment_date`
+    (`enrollment_date DESC`, live rows) - findAll
+  - `idx_students_deleted_at`, `idx_courses_deleted_at`, `idx_enrollments_deleted_at`
+    (`deleted_at`, deleted rows only) - the purger
+
+  ## 5. Modified Functions and Triggers
+  - `sync_enrollment_term_aggregates()` / `rebuild_student_term_aggregates()` - a deleted
+    enrollment no longer counts toward GPA; the trigger now also fires on `deleted_at`.
+  - `write_outbox_event()` - setting `deleted_at` is published as a 'delete'; the later hard
+    delete of that row is not published again. Attendance has no `deleted_at`: its rows count as
+    deleted with their enrollment's 'delete' event, and the purger removing them later publishes
+    nothing.
+  - `record_tombstone()` - the tombstone is written when `deleted_at` is set
+    (`trg_<table>_soft_delete_tombstone`), not again when the purger removes the row.
+*/
+
+ALTER TABLE students ADD COLUMN IF NOT EXISTS deleted_at timestamptz;
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS deleted_at timestamptz;
+ALTER TABLE enrollments ADD COLUMN IF NOT EXISTS deleted_at timestamptz;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_students_student_id ON students(student_id) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_students_email ON students(email) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_courses_course_code ON courses(course_code) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_enrollments_student_course
+  ON enrollments(student_id, course_id) WHERE deleted_at IS NULL;
+
+ALTER TABLE students DROP CONSTRAINT IF EXISTS students_student_id_key;
+ALTER TABLE students DROP CONSTRAINT IF EXISTS students_email_key;
+ALTER TABLE courses DROP CONSTRAINT IF EXISTS courses_course_code_key;
+ALTER TABLE enrollments DROP CONSTRAINT IF EXISTS enrollments_student_id_course_id_key;
+
+DROP INDEX IF EXISTS idx_enrollments_course_enrolled;
+CREATE INDEX idx_enrollments_course_enrolled
+  ON enrollments(course_id)
+  WHERE status = 'Enrolled' AND deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_students_status_enrollment_date;
+CREATE INDEX idx_students_status_enrollment_date
+  ON students(status, enrollment_date DESC)
+  WHERE deleted_at IS NULL;
+
+DROP INDEX IF EXISTS idx_courses_semester_code;
+CREATE INDEX idx_courses_semester_code
+  ON courses(semester, course_code)
+  WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_students_live_enrollment_date
+  ON students(enrollment_date DESC)
+  WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_live_enrollment_date
+  ON enrollments(enrollment_date DESC)
+  WHERE deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_students_deleted_at ON students(deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_courses_deleted_at ON courses(deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_enrollments_deleted_at ON enrollments(deleted_at) WHERE deleted_at IS NOT NULL;
+
+CREATE OR REPLACE FUNCTION sync_enrollment_term_aggregates()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    IF OLD.deleted_at IS NULL THEN
+      PERFORM adjust_student_term_aggregate(OLD.student_id, OLD.course_id, OLD.grade, OLD.status, -1);
+    END IF;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    IF NEW.deleted_at IS NULL THEN
+      PERFORM adjust_student_term_aggregate(NEW.student_id, NEW.course_id, NEW.grade, NEW.status, 1);
+    END IF;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_enrollments_term_aggregates ON enrollments;
+CREATE TRIGGER trg_enrollments_term_aggregates
+  AFTER INSERT OR DELETE OR UPDATE OF grade, status, course_id, student_id, deleted_at ON enrollments
+  FOR EACH ROW EXECUTE FUNCTION sync_enrollment_term_aggregates();
+
+CREATE OR REPLACE FUNCTION rebuild_student_term_aggregates(p_students uuid[])
+RETURNS void
+LANGUAGE sql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+  DELETE FROM student_term_aggregates WHERE student_id = ANY(p_students);
+  INSERT INTO student_term_aggregates (student_id, semester, graded_credits, quality_points, earned_credits)
+  SELECT e.student_id,
+         COALESCE(c.semester, ''),
+         SUM(COALESCE(c.credits, 0)),
+         SUM(COALESCE(c.credits, 0) * grade_points(e.grade)),
+         SUM(CASE WHEN grade_points(e.grade) > 0 THEN COALESCE(c.credits, 0) ELSE 0 END)
+  FROM enrollments e
+  JOIN courses c ON c.id = e.course_id
+  WHERE e.student_id = ANY(p_students)
+    AND grade_points(e.grade) IS NOT NULL
+    AND e.status <> 'Dropped'
+    AND e.deleted_at IS NULL
+  GROUP BY e.student_id, COALESCE(c.semester, '');
+$$;
+
+CREATE OR REPLACE FUNCTION write_outbox_event()
+RETURNS trigger
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+DECLARE
+  v_entity text := CASE TG_TABLE_NAME
+    WHEN 'students' THEN 'student'
+    WHEN 'courses' THEN 'course'
+    WHEN 'enrollments' THEN 'enrollment'
+    ELSE TG_TABLE_NAME
+  END;
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, NEW.id, 'create', to_jsonb(NEW));
+  ELSIF TG_OP = 'UPDATE' THEN
+    IF OLD IS DISTINCT FROM NEW THEN
+      IF to_jsonb(OLD)->>'deleted_at' IS NULL AND to_jsonb(NEW)->>'deleted_at' IS NOT NULL THEN
+        INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, NEW.id, 'delete', to_jsonb(NEW));
+      ELSE
+        INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, NEW.id, 'update', to_jsonb(NEW));
+      END IF;
+    END IF;
+  ELSIF TG_TABLE_NAME = 'attendance' THEN
+    IF NOT EXISTS (SELECT 1 FROM enrollments WHERE id = OLD.enrollment_id AND deleted_at IS NOT NULL) THEN
+      INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, OLD.id, 'delete', to_jsonb(OLD));
+    END IF;
+  ELSIF to_jsonb(OLD)->>'deleted_at' IS NULL THEN
+    INSERT INTO outbox (entity, entity_id, operation, payload) VALUES (v_entity, OLD.id, 'delete', to_jsonb(OLD));
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION record_tombstone()
+RETURNS trigger
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    IF OLD.deleted_at IS NULL THEN
+      INSERT INTO tombstones (entity, entity_id, deleted_at)
+      VALUES (TG_ARGV[0], OLD.id, now())
+      ON CONFLICT (entity, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    END IF;
+  ELSE
+    INSERT INTO tombstones (entity, entity_id, deleted_at)
+    VALUES (TG_ARGV[0], NEW.id, now())
+    ON CONFLICT (entity, entity_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_students_soft_delete_tombstone ON students;
+CREATE TRIGGER trg_students_soft_delete_tombstone
+  AFTER UPDATE OF deleted_at ON students
+  FOR EACH ROW
+  WHEN (OLD.deleted_at IS NULL AND NEW.deleted_at IS NOT NULL)
+  EXECUTE FUNCTION record_tombstone('student');
+
+DROP TRIGGER IF EXISTS trg_courses_soft_delete_tombstone ON courses;
+CREATE TRIGGER trg_courses_soft_delete_tombstone
+  AFTER UPDATE OF deleted_at ON courses
+  FOR EACH ROW
+  WHEN (OLD.deleted_at IS NULL AND NEW.deleted_at IS NOT NULL)
+  EXECUTE FUNCTION record_tombstone('course');
+
+DROP TRIGGER IF EXISTS trg_enrollments_soft_delete_tombstone ON enrollments;
+CREATE TRIGGER trg_enrollments_soft_delete_tombstone
+  AFTER UPDATE OF deleted_at ON enrollments
+  FOR EACH ROW
+  WHEN (OLD.deleted_at IS NULL AND NEW.deleted_at IS NOT NULL)
+  EXECUTE FUNCTION record_tombstone('enrollment');
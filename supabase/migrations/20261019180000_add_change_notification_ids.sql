@@ -0,0 +1,98 @@
+/*
+  # Enrollment ids in change notifications
+
+  ## Overview
+  A notice on `sms_changes` only named the table, so an instance that saw another instance
+  mark attendance had to throw away all of its at-risk counters and rebuild them with a full
+  pass over attendance. Notices for `attendance` and `enrollments` now also carry the ids of the
+  enrollments the statement touched, and the counters of just those enrollments are re-read.
+
+  The payload becomes `<table> <application_name> <ids>`, with the ids comma-separated. A
+  statement touching more than 100 enrollments sends `*` instead, which (like a notice without
+  ids) still resets the counters; the ids must fit in the 8000-byte notice limit. A statement
+  that changed no rows sends nothing.
+
+  ## 1. New Functions
+  - `notify_enrollment_change()` - statement-level, reads the statement's transition tables;
+    the enrollment id column is passed as the trigger argument (`enrollment_id` for
+    `attendance`, `id` for `enrollments`)
+
+  ## 2. Modified Triggers
+  - `trg_attendance_notify_change` and `trg_enrollments_notify_change` are replaced by one
+    trigger per operation, since a trigger with transition tables can only have one event:
+    `trg_<table>_notify_insert`, `trg_<table>_notify_update`, `trg_<table>_notify_delete`.
+  - `trg_enrollments_notify_truncate` keeps sending the table-only notice for TRUNCATE.
+*/
+
+CREATE OR REPLACE FUNCTION notify_enrollment_change()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+DECLARE
+  v_rows text := CASE TG_OP
+    WHEN 'INSERT' THEN 'new_rows'
+    WHEN 'DELETE' THEN 'old_rows'
+    ELSE '(SELECT * FROM old_rows UNION ALL SELECT * FROM new_rows)'
+  END;
+  v_count integer;
+  v_ids text;
+BEGIN
+  EXECUTE format('SELECT count(*), string_agg(id::text, '','') FROM (SELECT DISTINCT %I AS id FROM %s r LIMIT 101) ids',
+                 TG_ARGV[0], v_rows)
+    INTO v_count, v_ids;
+  IF v_count = 0 THEN
+    RETURN NULL;
+  END IF;
+  IF v_count > 100 THEN
+    v_ids := '*';
+  END IF;
+  PERFORM pg_notify('sms_changes',
+    TG_TABLE_NAME || ' ' || COALESCE(current_setting('application_name', true), '') || ' ' || v_ids);
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS trg_attendance_notify_change ON attendance;
+
+DROP TRIGGER IF EXISTS trg_attendance_notify_insert ON attendance;
+CREATE TRIGGER trg_attendance_notify_insert
+  AFTER INSERT ON attendance
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('enrollment_id');
+
+DROP TRIGGER IF EXISTS trg_attendance_notify_update ON attendance;
+CREATE TRIGGER trg_attendance_notify_update
+  AFTER UPDATE ON attendance
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('enrollment_id');
+
+DROP TRIGGER IF EXISTS trg_attendance_notify_delete ON attendance;
+CREATE TRIGGER trg_attendance_notify_delete
+  AFTER DELETE ON attendance
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('enrollment_id');
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_change ON enrollments;
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_insert ON enrollments;
+CREATE TRIGGER trg_enrollments_notify_insert
+  AFTER INSERT ON enrollments
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('id');
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_update ON enrollments;
+CREATE TRIGGER trg_enrollments_notify_update
+  AFTER UPDATE ON enrollments
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('id');
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_delete ON enrollments;
+CREATE TRIGGER trg_enrollments_notify_delete
+  AFTER DELETE ON enrollments
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_enrollment_change('id');
+
+DROP TRIGGER IF EXISTS trg_enrollments_notify_truncate ON enrollments;
+CREATE TRIGGER trg_enrollments_notify_truncate
+  AFTER TRUNCATE ON enrollments
+  FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();